@@ -1,7 +1,5 @@
 package com.fredrikux.unitedcolors.models;
 
-import android.graphics.Color;
-import android.graphics.PointF;
 import android.hardware.Sensor;
 import android.hardware.SensorManager;
 import android.media.SoundPool;
@@ -11,17 +9,23 @@ import android.util.Log;
 
 import com.fredrikux.unitedcolors.views.OpenGLActivity;
 import com.fredrikux.unitedcolors.opengl.GLRenderer;
-import com.fredrikux.unitedcolors.utils.IActionListener;
-import com.fredrikux.unitedcolors.utils.IActionListener.ActionEvent;
-
-import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.List;
-import java.util.Random;
+import com.fredrikux.unitedcolors.utils.FrameStats;
+import com.fredrikux.unitedcolors.utils.EventBus;
+import com.fredrikux.unitedcolors.utils.LoopPolicy;
+import com.fredrikux.unitedcolors.utils.TickClock;
+import com.fredrikux.unitedcolors.utils.TripleBuffer;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.locks.LockSupport;
 
 /**
- * This is the main core and class of the model. It contains all information
- * of the game.
+ * This is the main class of the model on Android. It runs the game loop,
+ * feeds the sensors in to the {@link Simulation} and turns the side
+ * effects of the simulation in to sounds and actions for the view.
  */
 public class GameManager
         implements
@@ -32,24 +36,30 @@ public class GameManager
      * STATIC FINAL FIELDS
      */
     private static final double GAME_HERTZ = 30.0;
-    private static final double TIME_BETWEEN_UPDATES
-            = 1000000000.0 / GAME_HERTZ;
+    private static final long TIME_BETWEEN_UPDATES
+            = (long) (1000000000.0 / GAME_HERTZ);
     private static final int MAX_UPDATES_BEFORE_RENDER = 5;
-    private static final double TARGET_FPS = 60.0;
-    private static final double TARGET_TIME_BETWEEN_RENDERS
-            = 1000000000 / TARGET_FPS;
-
-
-    public static final int[] colorAlt = {
-            Color.parseColor("#E91E63"),
-            Color.parseColor("#2196F3"),
-            Color.parseColor("#8BC34A")
-    };
+    private static final long STATS_LOG_INTERVAL = 5000000000l;
+
+    // How the game loop runs and is drawn in each state, see getLoopPolicy().
+    // Kiosk mode ticks a third as often, three steps at a time
+    public static final LoopPolicy POLICY_RUNNING = new LoopPolicy(
+            "running", TIME_BETWEEN_UPDATES, LoopPolicy.EVERY_FRAME);
+    public static final LoopPolicy POLICY_KIOSK = new LoopPolicy("kiosk",
+            3 * TIME_BETWEEN_UPDATES, 1000000000l / 30);
+
+    // The metrics of the game loop, see getStats()
+    public static final int STAT_TICK = 0;
+    public static final int STAT_SPAWN = 1;
+    public static final int STAT_UPDATE = 2;
+    public static final int STAT_COLLISION = 3;
+    public static final int STAT_PUBLISH = 4;
+    public static final int STAT_CATCH_UP = 5;
+    public static final int STAT_DOT_COUNT = 6;
 
     public static final int ACTION_SCORE_CHANGED = 1;
-
-    public static final int ACTION_STEP = 2;
     public static final int ACTION_STATE_CHANGED = 3;
+    private static final int ACTION_COUNT = ACTION_STATE_CHANGED + 1;
     public static final int STATE_RUNNING = 11;
 
     public static final int STATE_GAME_OVER = 12;
@@ -57,49 +67,91 @@ public class GameManager
     public static final int STATE_KIOSK_MODE = 14;
     public static final int STATE_PAUSED = 15;
 
-    private static final int SIZE_OF_POSITION = 2;
-    private static final int SIZE_OF_COLOR = 3;
-    private static final int SIZE_OF_DOT_SIZE = 1;
-
 
     /*
      * FINAL FIELDS
      */
-    private final Random RANDOM = new Random(System.currentTimeMillis());
+    private final WorldConfig mConfig = new WorldConfig(GLRenderer.screenW,
+            GLRenderer.screenH, OpenGLActivity.screenDensity);
+
+    private final Simulation mSimulation = new Simulation(mConfig,
+            System.currentTimeMillis());
 
-    private final float[] positions = new float[DOT_LIMIT * SIZE_OF_POSITION];
-    private final float[] colors = new float[DOT_LIMIT * SIZE_OF_COLOR];
-    private final float[] sizes = new float[DOT_LIMIT * SIZE_OF_DOT_SIZE];
+    // The frames handed over from the game loop to the renderer
+    private final TripleBuffer<RenderFrame> mFrames = new TripleBuffer<RenderFrame>(
+            new RenderFrame(mConfig.getDotLimit()),
+            new RenderFrame(mConfig.getDotLimit()),
+            new RenderFrame(mConfig.getDotLimit()));
 
-    private final List<Dot> drawList = new ArrayList<>(DOT_LIMIT);
+    // Ticks the game loop, and parks it until the next tick is due
+    private final TickClock mClock = new TickClock(MAX_UPDATES_BEFORE_RENDER);
+
+    // The actions for the view, coalesced until the view drains them
+    private final EventBus mEvents = new EventBus(ACTION_COUNT);
+
+    // Recorded to by the game loop only
+    private final FrameStats mStats = createStats();
+    private final StringBuilder mStatsLog = new StringBuilder();
 
     private final IOrientationChangeListener ocl = new IOrientationChangeListener() {
-        public void onUpdate(float x, float y) {
-            mPlayerDot.updateOrientation(x, y);
+        public void onUpdate(long timestamp, float x, float y) {
+            mSimulation.updateOrientation(timestamp, x, y);
         }
 
         public void onAccuraryChanged(int accuracy) {
-            mPlayerDot.updateAccuracy(accuracy);
+            mSimulation.getPlayerDot().updateAccuracy(accuracy);
+        }
+    };
+
+    private final ISimulationListener mSimulationListener
+            = new ISimulationListener() {
+        @Override
+        public void onSimulationEvent(int event, int value) {
+            switch (event) {
+                case Simulation.EVENT_SCORE_CHANGED:
+                    performAction(ACTION_SCORE_CHANGED, value);
+                    break;
+
+                case Simulation.EVENT_GAME_OVER:
+                    gameOver();
+                    break;
+
+                case Simulation.EVENT_SOUND_BLOP:
+                    mSoundPool.play(mSoundBlopId, 1, 1, 1, 0, 1);
+                    break;
+
+                case Simulation.EVENT_SOUND_JUMP:
+                    mSoundPool.play(mSoundJumpId, 1, 1, 1, 0, 1);
+                    break;
+
+                default:
+                    break;
+            }
         }
     };
 
     /*
      * OTHER FIELDS
      */
+    // Only touched by the game loop, except for the file
+    private final ReplayRecorder mRecorder = new ReplayRecorder();
+    private volatile File mReplayFile;
+    private volatile boolean mStatsLogging = false;
+
+    // The game is saved by the game loop when it pauses
+    private SnapshotFile mSnapshotFile;
+    private volatile boolean mSnapshotSaved = false;
+    private volatile boolean mSnapshotPending = false;
+    private boolean mRestorePending = false;
+    private boolean mRestored = false;
+
     private IOrientationSensorListener mSensorListener;
-    private IActionListener listener;
     private Thread gameLoop;
-    private PlayerDot mPlayerDot;
-    private PointDot mPointDot;
     private SoundPool mSoundPool;
     private boolean running = false;
     private boolean paused = false;
     private boolean mKioskMode = false;
-    private double mPointStep = System.nanoTime();
-    private long mDotCreateStep;
-    private int score = 0;
     private int gameState = STATE_KIOSK_MODE;
-    private int mColorCounter = RANDOM.nextInt(colorAlt.length);
     private int mSoundBlopId;
     private int mSoundJumpId;
 
@@ -107,12 +159,8 @@ public class GameManager
      * Creates a GameManager-object.
      */
     public GameManager(){
-
-        // Create the player dot.
-        mPlayerDot = spawnPlayerDot(new PointF(GLRenderer.screenW / 2.0f,
-                GLRenderer.screenH / 2.0f),
-                PLAYER_DOT_SIZE_RATIO*OpenGLActivity.screenDensity);
-
+        mSimulation.setListener(mSimulationListener);
+        mClock.setPolicy(getPolicy(gameState));
     }
 
     /**
@@ -121,18 +169,40 @@ public class GameManager
      * @param in the saved parcel.
      */
     protected GameManager(Parcel in) {
+        mSimulation.setListener(mSimulationListener);
 
-        Dot[] array  = (Dot[]) in.readParcelableArray(Dot.class.getClassLoader());
-        drawList.addAll(Arrays.asList(array));
-        score = in.readInt();
-        mPlayerDot = in.readParcelable(PlayerDot.class.getClassLoader());
-        mPointDot = in.readParcelable(PointDot.class.getClassLoader());
+        // The world itself is restored from the snapshot file, once set
+        mRestorePending = in.readInt() == 1;
         paused = in.readInt() == 1;
         gameState = in.readInt();
-        mPlayerDot = spawnPlayerDot(new PointF(GLRenderer.screenW / 2.0f,
-                GLRenderer.screenH / 2.0f)
-                , PLAYER_DOT_SIZE_RATIO * OpenGLActivity.screenDensity);
+        mClock.setPolicy(getPolicy(gameState));
+
+    }
 
+    private FrameStats createStats(){
+
+        final FrameStats stats = new FrameStats("Game loop, times in us",
+                STAT_DOT_COUNT + 1);
+
+        // Every time has a second to spread out over
+        final long second = 1000000000l;
+        stats.define(STAT_TICK, "tick", second, FrameStats.NANOS_PER_MICRO,
+                TIME_BETWEEN_UPDATES);
+        stats.define(STAT_SPAWN, "spawn", second, FrameStats.NANOS_PER_MICRO,
+                0l);
+        stats.define(STAT_UPDATE, "update", second,
+                FrameStats.NANOS_PER_MICRO, 0l);
+        stats.define(STAT_COLLISION, "collision", second,
+                FrameStats.NANOS_PER_MICRO, 0l);
+        stats.define(STAT_PUBLISH, "publish", second,
+                FrameStats.NANOS_PER_MICRO, 0l);
+
+        // Hitting the limit means the game fell behind and skipped time
+        stats.define(STAT_CATCH_UP, "updates per frame",
+                MAX_UPDATES_BEFORE_RENDER, 1l, MAX_UPDATES_BEFORE_RENDER - 1);
+        stats.define(STAT_DOT_COUNT, "dots", mConfig.getDotLimit(), 1l, 0l);
+
+        return stats;
     }
 
     /**
@@ -141,7 +211,6 @@ public class GameManager
      * @param kioskMode tru for kiosk mode.
      */
     public void startNewGame(final boolean kioskMode){
-
         // Save the kiosk mode.
         mKioskMode = kioskMode;
 
@@ -187,46 +256,49 @@ public class GameManager
      */
     private void gameLoop(boolean kioskMode) {
 
-        // Always clear the dot list for a new game
-        drawList.clear();
+        // A restored game goes on where it was saved, in its saved state
+        if(mRestored){
+            mRestored = false;
+        } else {
 
-        // If the game loop shouldn't start in kiosk mode
-        if(!kioskMode) {
+            // Start from a clear world, with a seed that can be recorded
+            long seed = System.currentTimeMillis();
+            mSimulation.reset(kioskMode, seed);
+            mSnapshotSaved = false;
 
-            // Re add the player dot
-            drawList.add(mPlayerDot);
+            if(mReplayFile != null){
+                mRecorder.begin(seed, mConfig, kioskMode);
+            }
 
-            // Reset player dot
-            mPlayerDot.x = GLRenderer.screenW / 2.0f;
-            mPlayerDot.y = GLRenderer.screenH / 2.0f;
-            mPlayerDot.setSize(PLAYER_DOT_SIZE_RATIO * OpenGLActivity.screenDensity);
+            // If the game loop shouldn't start in kiosk mode
+            if(!kioskMode) {
 
-            setGameState(STATE_RUNNING);
-        }
+                setGameState(STATE_RUNNING);
+            }
 
-        // Else if in kiosk mode.
-        else {
+            // Else if in kiosk mode.
+            else {
 
-            setGameState(STATE_KIOSK_MODE);
+                setGameState(STATE_KIOSK_MODE);
+            }
         }
 
-        // Clear the point dot
-        mPointDot = null;
-
-        // Reset the score
-        score = 0;
+        mClock.start(System.nanoTime());
+        long lastStatsLog = System.nanoTime();
 
-        double mLastUpdateTime = System.nanoTime();
-        double lastRenderTime;
+        mSimulation.setTimed(true);
+        mStats.reset();
 
-        long mTimeStep = 0l;
-        mDotCreateStep = 0l;
         running = true;
 
         while(running) {
 
-            double now = System.nanoTime();
-            int updateCount = 0;
+            // Save the game before parking, it may never come back. Saved
+            // outside of the lock, so the UI thread never waits on it
+            if (paused) {
+                saveSnapshot();
+                mSnapshotPending = false;
+            }
 
             synchronized (gameLoop){
                 try {
@@ -237,495 +309,205 @@ public class GameManager
                         // Wait for unpause
                         gameLoop.wait();
 
+                        // Don't catch up on the time spent paused
+                        mClock.start(System.nanoTime());
                     }
                 } catch (InterruptedException ignored) {}
             }
 
+            long now = System.nanoTime();
+
             /*
              * Do as many game updates as we need to, potentially playing
-             * catchup.
+             * catchup. The time of any more than that is dropped, if for
+             * some reason an update takes forever.
              */
-            while ( now - mLastUpdateTime > TIME_BETWEEN_UPDATES &&
-                    updateCount < MAX_UPDATES_BEFORE_RENDER){
+            int updateCount = mClock.pollTicks(now);
+            int steps = mClock.getTickPolicy()
+                    .getStepsPerTick(TIME_BETWEEN_UPDATES);
+            for(int update = 0; update < updateCount && running; update++){
 
                 // Update the game world
-                updateGame(mTimeStep++);
-
-                mLastUpdateTime += TIME_BETWEEN_UPDATES;
-                updateCount++;
+                long start = System.nanoTime();
+                mRecorder.recordWorld(mConfig);
+                mRecorder.recordSteps(steps);
+                mSimulation.step(steps);
+                mRecorder.recordTick(
+                        mSimulation.getPlayerDot().getOrientationX(),
+                        mSimulation.getPlayerDot().getOrientationY());
+
+                mStats.record(STAT_TICK, System.nanoTime() - start);
+                mStats.record(STAT_SPAWN, mSimulation.getSpawnTime());
+                mStats.record(STAT_UPDATE, mSimulation.getUpdateTime());
+                mStats.record(STAT_COLLISION, mSimulation.getCollisionTime());
             }
 
-            /*
-             * If for some reason an update takes forever, we don't want
-             * to do an insane number of catchups.
-             */
-            if ( now - mLastUpdateTime > TIME_BETWEEN_UPDATES){
-                mLastUpdateTime = now - TIME_BETWEEN_UPDATES;
+            // Hand the new state over to the renderer, it never waits on us
+            if(updateCount > 0){
+                long start = System.nanoTime();
+                RenderFrame frame = mFrames.getWriteBuffer();
+                mSimulation.packRenderArrays(frame);
+                frame.time = mClock.getTickTime();
+                frame.duration = TIME_BETWEEN_UPDATES;
+                mFrames.publish();
+
+                mStats.record(STAT_PUBLISH, System.nanoTime() - start);
+                mStats.record(STAT_CATCH_UP, updateCount);
+                mStats.record(STAT_DOT_COUNT, frame.count);
             }
 
-            /*
-             * Render. To do so, we need to calculate interpolation for a
-             * smooth render.
-             */
-            float interpolation = Math.min(1.0f, (float) ((now -
-                    mLastUpdateTime) / TIME_BETWEEN_UPDATES) );
-
-            // Announce that a step has taken place
-            synchronized (lock){
-
-                performAction(ACTION_STEP, null, "Interpolation (float)");
-
-                // Wait for the draw thread to draw
-                while (!condition && running){
-                    try {
-                        lock.wait(500);
-                    } catch (InterruptedException ignore) {}
-                }
-                condition = false;
+            // Now and then, dump what the last seconds looked like
+            if(mStatsLogging && now - lastStatsLog >= STATS_LOG_INTERVAL){
+                mStatsLog.setLength(0);
+                Log.d("GameManager", mStats.appendTo(mStatsLog).toString());
+                mStats.reset();
+                lastStatsLog = now;
             }
 
-            lastRenderTime = now;
-
-            /*
-             * Yield until it has benn at least the target time between
-             * renders.
-             */
-            while ( now - lastRenderTime < TARGET_TIME_BETWEEN_RENDERS
-                    && now - mLastUpdateTime < TIME_BETWEEN_UPDATES){
-                Thread.yield();
-
-                /*
-                 * This stops the app from consuming all your CPU. It
-                 * makes this slightly less accurate, but is worth it.
-                 */
-                try {Thread.sleep(1);}catch (Exception e) {}
-
-                now = System.nanoTime();
+            // Park until the next updates are due, or the policy changes
+            long wait = mClock.getParkTime(System.nanoTime());
+            if(wait == TickClock.FOREVER && running){
+                LockSupport.park(this);
+                mClock.start(System.nanoTime());
+            } else if(wait > 0 && running){
+                LockSupport.parkNanos(this, wait);
             }
         }
         Log.d("GameManager", "Loop died");
 
+        saveReplay();
+
     }
 
     /**
-     * Spawns a static point dot with provided size and with value.
-     *
-     * @param timeStep in which time step the game loop is in.
-     * @param size the size of the small dot.
-     * @param value the worth value which the player receives for consuming
-     *              the dot.
-     * @return a PointDot-object
+     * Writes the recorded game to the replay file, if recording.
      */
-    public PointDot spawnPointDot(final long timeStep, final float size,
-                                  final int value){
+    private void saveReplay(){
 
-        float x = RANDOM.nextInt(GLRenderer.screenW - (int) size*2) + size;
-        float y = RANDOM.nextInt(GLRenderer.screenH - (int) size*2) + size;
-
-        // Check to see that the point dot doesn't spawn on the player dot
-        if( isPointOnDot(mPlayerDot, new PointF(x, y), size*2.0f) ){
-
-            return spawnPointDot(timeStep, size, value);
+        if(!mRecorder.isRecording()){
+            return;
         }
 
-        PointDot pDot = new PointDot(timeStep, new PointF(x, y), mPlayerDot
-                .color, size,
-                value);
-        mSoundPool.play(mSoundJumpId, 1, 1, 1, 0, 1);
-
-        // Add the dot to the draw list
-        addDotToDrawList(pDot);
-
-        return pDot;
+        OutputStream out = null;
+        try {
+            out = new BufferedOutputStream(new FileOutputStream(mReplayFile));
+            mRecorder.end(out);
+        } catch (IOException e) {
+            Log.w("GameManager", "Could not save replay", e);
+        } finally {
+            if(out != null){
+                try {
+                    out.close();
+                } catch (IOException ignored) {}
+            }
+        }
     }
 
     /**
-     * Spawn the player dot, can only be one.
+     * Sets the file to save the game to when it is paused, and restores the
+     * game from it if this game manager was created from a saved instance.
      *
-     * @param position the position of the player dot.
-     * @param size the size of the player dot
-     * @return a PlayerDot-object.
+     * @param file the file to keep the snapshot in.
      */
-    public PlayerDot spawnPlayerDot(final PointF position, final float size){
+    public void setSnapshotFile(File file){
+        mSnapshotFile = new SnapshotFile(file, mSimulation);
 
-        // Get a random color
-        int index = RANDOM.nextInt(colorAlt.length);
-
-        // Create a PlayerDot-object
-        PlayerDot playerDot = new PlayerDot(position, colorAlt[index],
-                size, PLAYER_DOT_SPEED_RATIO*OpenGLActivity.screenDensity);
-
-        // Add the dot to the draw list
-        addDotToDrawList(playerDot);
-
-        return playerDot;
+        if(mRestorePending){
+            mRestorePending = false;
 
+            try {
+                mRestored = mSnapshotFile.restore(mSimulation);
+                mSnapshotSaved = mRestored;
+            } catch (IOException e) {
+                Log.e("GameManager", "Could not restore the game", e);
+            }
+        }
     }
 
     /**
-     * Create a point dot which spawn at the edge of the screen, moving in to
-     * the screen.
+     * Checks to see if a saved game was restored, which should be continued
+     * with {@code continueRestoredGame()} instead of starting a new one.
      *
-     * @param timeStep the game loops time step.
+     * @return true if a game was restored.
      */
-    private void spawnRandomDot(long timeStep) {
-
-        // Get the spawn time step
-        double dif = getSpawnWaitTime(timeStep);
-
-        /*
-         * If there has passed enough time steps from last random dot spawn and
-         * we are eater not in kiosk mode or there exists no more than 10
-         * random dots.
-         */
-
-        if(timeStep - mDotCreateStep > dif
-                && (!mKioskMode || drawList.size() < 10)){
-
-            // Save current time step
-            mDotCreateStep = timeStep;
-
-            // Create a random dot.
-            createRandomDot(SMALL_DOT_SIZE_RATIO * OpenGLActivity.screenDensity,
-                    GLRenderer.screenW,
-                    GLRenderer.screenH);
-
-        }
+    public boolean hasRestoredGame(){
+        return mRestored;
     }
 
     /**
-     * Creates the random dot usin som math sp calculate start position and
-     * direction of the dot.
-     *
-     * @param size the size of the dot to create.
-     * @param width the maximum with in where the dot can sapwn.
-     * @param height the maximum height in where the dot can spaw.
-     */
-    public void createRandomDot(final float size,
-                                final int width, final int height){
-
-        // Default values for position and direction
-        float maxX = width - size;
-        float maxY = height - size;
-        float y, x = y =  (float) Math.ceil(size/2.0);
-        float k, vy, vx = vy = 1.0f;
-        float halfY = maxY/2.0f + size/2.0f;
-        float halfX = maxX/2.0f + size/2.0f;
-
-        // Four sides, switch 0-3
-        switch (RANDOM.nextInt(4)){
-
-            // Left
-            case 0:
-                y = RANDOM.nextFloat() * maxY + size;
-                k = y/halfY - 1.0f;
-                vx = Math.abs(k);
-                vy = RANDOM.nextFloat() - k;
-                break;
-
-            // Right
-            case 1:
-                x = (float) Math.floor(maxX + size/2.0f);
-                y = RANDOM.nextFloat() * maxY + size;
-                k = y/halfY - 1.0f;
-                vx = - Math.abs(k);
-                vy = RANDOM.nextFloat() - k;
-                break;
-
-            // Top
-            case 2:
-                x = RANDOM.nextFloat() * maxX + size;
-                k = x/halfX - 1.0f;
-                vx = RANDOM.nextFloat() - k;
-                vy = Math.abs(k);
-                break;
-
-            // Bottom
-            case 3:
-                x = RANDOM.nextFloat() * maxX + size;
-                y = (float) Math.floor(maxY + size/2.0f);
-                k = x/halfX - 1.0f;
-                vx = RANDOM.nextFloat() - k;
-                vy = - Math.abs(k);
-                break;
-        }
-
-        // Create the dots position
-        PointF position = new PointF(x, y);
-
-        // Normalize the vector
-        double normal = Math.sqrt(Math.pow(vx, 2.0) + Math.pow(vy, 2.0));
-        PointF velocity = new PointF(
-                vx/(float)normal,
-                vy/(float)normal
-        );
-
-        // Get next color in line
-        int color = colorAlt[mColorCounter++ % colorAlt.length];
-
-        // Create the Dot-object
-        Dot dot = new Dot(position, velocity, color, size,
-                SMALL_DOT_SPEED_RATIO*OpenGLActivity.screenDensity);
-
-        // Add it to the list of objects to be drawn on to the screen
-        addDotToDrawList(dot);
-
+     * Starts the game loop on the restored game, paused until
+     * {@code unPause()}.
+     */
+    public void continueRestoredGame(){
+        paused = true;
+        startNewGame(mSimulation.isInKioskMode());
     }
 
-    private void spawnBigPoint(long timeStep) {
-
-        long interval = RANDOM.nextInt( (int) POINT_DOT_TIME_BETWEEN);
-        long halfInterval = POINT_DOT_TIME_BETWEEN /2;
-        long randomNanoTime = (interval + halfInterval);
-
-        // If we have an existing dot point
-        if (mPointDot != null) {
-
-            // Se if it is to be removed
-            if(mPointDot.isFlaggedForRemoval()){
-
-                // Check to see that enough time has pasted since it got removed
-                if (timeStep - mPointStep > randomNanoTime) {
-
-                    // Create a new point dot
-                    mPointDot = spawnPointDot(
-                            timeStep,
-                            POINT_DOT_SIZE_RATIO*OpenGLActivity.screenDensity,
-                            POINT_DOT_VALUE
-                    );
-                    mPointStep = timeStep;
-                }
-            }
-
-            // Else push the point timer forward
-            else {
-                mPointStep = timeStep;
-            }
+    private void saveSnapshot(){
 
+        // Only real games are worth coming back to
+        if(mSnapshotFile == null || mKioskMode || mSimulation.isGameOver()){
+            return;
         }
 
-        // Else if enough time has past since game start
-        else if (timeStep > randomNanoTime) {
-
-            // Create a mew point dot
-            mPointDot = spawnPointDot(timeStep,
-                    POINT_DOT_SIZE_RATIO*OpenGLActivity.screenDensity,
-                    POINT_DOT_VALUE);
-            mPointStep = timeStep;
+        try {
+            mSnapshotFile.save(mSimulation);
+            mSnapshotSaved = true;
+        } catch (IOException e) {
+            Log.e("GameManager", "Could not save the game", e);
         }
-
     }
 
     /**
-     * Checks to see if a specific point has collided with a coordinate.
+     * Sets a file to record every game to, so it can be played again
+     * headless. Each game overwrites the previous one.
      *
-     * @param d1 the dot to check.
-     * @param point the point to see if the dot has collided with.
-     * @param size the diameter around the {@code point} in which to return
-     *             true for collision.
-     * @return tru of the dot touches the point, false otherwise
+     * @param file the file to record to, or null to not record.
      */
-    public boolean isPointOnDot(Dot d1, PointF point, float size){
-
-
-        PointF p = new PointF(
-                d1.x - point.x,
-                d1.y - point.y
-        );
-
-        /* Without using coustfull squar root functions, check to see if the
-         * distance between the point and the dot is smaller the or equal to
-         * zero.
-         */
-        double distance = Math.pow(p.x, 2.0) + Math.pow(p.y, 2.0)
-                - Math.pow(d1.getSize() + size, 2.0)/4.0;
-
-        return distance <= 0;
+    public void setReplayFile(File file){
+        mReplayFile = file;
     }
 
-
-    // A lock for the game loop
-    public final Object lock = new Object();
-    public boolean condition = false;
-
-    private void updateGame(final long timeStep){
-
-        spawnRandomDot(timeStep);
-        spawnBigPoint(timeStep);
-
-        Dot dot;
-        for(int i = 0; i < drawList.size(); i++){
-            dot = drawList.get(i);
-
-            // First check to see of the dot is flagged for removal
-            if(dot.isFlaggedForRemoval()){
-                removeDot(dot);
-                i--;
-
-            } else {
-
-                // Update the dot with new position etc.
-                dot.update(timeStep);
-
-                boolean[] flags = GameManager.isPositionOnScreen(dot, dot.getSize());
-                if(flags[GameManager.OUT_OF_LEFT] || flags[GameManager.OUT_OF_RIGHT]){
-
-                    // Bounce dot x-axis
-                    dot.vx *= -1.0f;
-                }
-
-                // If the new position is outside in the y-axis
-                if(flags[GameManager.OUT_OF_TOP] || flags[GameManager.OUT_OF_BOTTOM]){
-
-                    // Bounce dot y-axis
-                    dot.vy *= -1.0f;
-                }
-
-                // If the dot isn't on screen or it has collided, flagForRemoval
-                if (didCollide(mPlayerDot, dot)) {
-
-                    if(dot instanceof PointDot){
-                        PointDot pointDot = (PointDot) dot;
-                        pointDot.flagForForceRemoval(timeStep);
-
-                    } else if (dot instanceof Dot) {
-                        dot.flagForRemoval(timeStep);
-                    }
-
-                } else {
-
-                    // Update the float arrays
-                    positions[i * SIZE_OF_POSITION] = dot.x;
-                    positions[i * SIZE_OF_POSITION + 1] = dot.y;
-
-                    colors[i * SIZE_OF_COLOR] = Color.red(dot.color) / 255.0f;
-                    colors[i * SIZE_OF_COLOR + 1] = Color.green(dot.color) / 255.0f;
-                    colors[i * SIZE_OF_COLOR + 2] = Color.blue(dot.color) / 255.0f;
-
-                    sizes[i * SIZE_OF_DOT_SIZE] = dot.getSize();
-                }
-            }
-        }
-
-    }
-
-    /**
-     * Removes a dot from the dot draw list.
-     * @param dot the dot to remove.
-     */
-    public void removeDot(Dot dot){
-        drawList.remove(dot);
+    private void setGameState(int state){
+        gameState = state;
+        mClock.setPolicy(getPolicy(state));
+        wakeGameLoop();
+        performAction(ACTION_STATE_CHANGED, state);
     }
 
     /**
-     * Checks to see if the player dot has collide with any of the other dots.
+     * Gets how the game loop runs and is drawn in provided state.
      *
-     * @param playerDot the dot controlled by the player
-     * @param dot the dot to check if collided.
-     * @return true for collision, false otherwise
-     */
-    private boolean didCollide(final PlayerDot playerDot, final Dot dot){
-
-        /*
-         * If we are in kiosk mode or we'r comparing the player dot with it
-         * self, return false
-         */
-        if(mKioskMode || playerDot.id == dot.id) {
-            return false;
-        }
-
-        // If collision occurred
-        if(isPointOnDot(playerDot, new PointF(dot.x, dot.y), dot.getSize())){
-
-            // If the player collided with a point dot
-            if(dot instanceof PointDot){
-
-                // Increment the score
-                performAction(ACTION_SCORE_CHANGED,
-                        score += 5,
-                        "Score Updated");
-
-                // Switch color on model
-                switchColorOnDot(playerDot);
-
-            }
-
-            // If color is equal to the color of player
-            else if(playerDot.color == dot.color){
-                performAction(ACTION_SCORE_CHANGED, ++score, "Score " +
-                        "Updated");
-            }
-
-            // Collision occurred wrong color
-            else {
-
-                // End the game
-                gameOver();
-            }
-
-            // Play a sound for collection a dot
-            mSoundPool.play(mSoundBlopId, 1, 1, 1, 0, 1);
-            return true;
+     * @param state the game state.
+     * @return the policy of the state.
+     */
+    private static LoopPolicy getPolicy(final int state){
+        switch (state) {
+            case STATE_RUNNING:
+                return POLICY_RUNNING;
+
+            // Nothing to play, the dots only move by
+            case STATE_KIOSK_MODE:
+            case STATE_NEW_GAME:
+                return POLICY_KIOSK;
+
+            default:
+                return LoopPolicy.PARKED;
         }
-
-        return false;
-    }
-
-
-    private void switchColorOnDot(PlayerDot pDot) {
-        int i;
-        for(i = RANDOM.nextInt(colorAlt.length);
-            pDot.color == colorAlt[i];
-            i = RANDOM.nextInt(colorAlt.length)){}
-
-        pDot.color = colorAlt[i];
     }
 
-    public static final int OUT_OF_LEFT = 0;
-    public static final int OUT_OF_TOP = 1;
-    public static final int OUT_OF_RIGHT = 2;
-    public static final int OUT_OF_BOTTOM = 3;
-    public static final int IS_ON_SCREEN = 4;
-
     /**
-     * Checks to se if provided point and size is outside the screen.
-     * @param p the pint.
-     * @param size the size of the point.
-     * @return a boolean array containing tru or false for each of the
-     * four sides. <br>
-     *      boolean[0] -> left side of the screen.<br>
-     *      boolean[1] -> top side of the screen.<br>
-     *      boolean[2] -> right side of the screen.<br>
-     *      boolean[3] -> bottom side of the screen.<br>
-     *      boolean[4] -> is true if all above is false.<br>
+     * Wakes the game loop up if it is parked, so it follows a new policy
+     * at once. A wake-up before its time does no harm, the loop checks what
+     * is due and parks again.
      */
-    public static boolean[] isPositionOnScreen(PointF p, float size){
-
-        boolean[] flags = new boolean[5];
-
-        flags[OUT_OF_LEFT] = p.x-size/2.0f < 0;
-        flags[OUT_OF_TOP] = p.y-size/2.0f < 0;
-        flags[OUT_OF_RIGHT] = p.x+size/2.0f > GLRenderer.screenW;
-        flags[OUT_OF_BOTTOM] = p.y+size/2.0f > GLRenderer.screenH;
-        flags[IS_ON_SCREEN] = !(flags[OUT_OF_LEFT] || flags[OUT_OF_TOP]
-                || flags[OUT_OF_RIGHT] || flags[OUT_OF_BOTTOM]);
-
-        return flags;
-    }
-
-    private void addDotToDrawList(final Dot dot){
-
-        // If the list is full, don't add any more.
-        if (drawList.size() < DOT_LIMIT){
-            drawList.add(dot);
+    private void wakeGameLoop(){
+        final Thread loop = gameLoop;
+        if(loop != null){
+            LockSupport.unpark(loop);
         }
     }
 
-    private void setGameState(int state){
-        gameState = state;
-        performAction(ACTION_STATE_CHANGED, state, "Game state changed.");
-    }
-
     /**
      * Sets up the senors to use in this applikatione.
      *
@@ -769,59 +551,62 @@ public class GameManager
     }
 
     /**
-     * Getches the time until next random small dot should spawn.
-     *
-     * @param timeStep the game loops current time stamp.
-     * @return the time to wait.
+     * Fetches the current game state.
+     * @return
      */
-    private double getSpawnWaitTime(long timeStep) {
-
-        if(mKioskMode){
-            return SMALL_DOT_CREATE_INTERVAL;
-        }
-
-        double percent = (double) timeStep / (double)
-                MAX_TIME_DIFFICULTY;
-
-        percent = percent > 1.0? 1.0 : percent;
-
-        double time = SMALL_DOT_CREATE_INTERVAL * (1.0 - percent );
-
-        // Cap the output to zero at minimum
-        return time;
+    public int getGameState(){
+        return gameState;
+    }
 
+    /**
+     * Gets how the game loop currently runs and is drawn. The view should
+     * draw frames at the frame period of the policy, and none at all when
+     * it is parked.
+     *
+     * @return the current policy.
+     */
+    public LoopPolicy getLoopPolicy(){
+        return mClock.getPolicy();
     }
 
     /**
-     * Fetches the current game state.
-     * @return
+     * Gets the newest frame published by the game loop, to be called from
+     * the render thread only. The frame stays valid until the next call.
+     *
+     * @return the newest frame.
      */
-    public int getGameState(){
-        return gameState;
+    public RenderFrame acquireFrame(){
+        return mFrames.acquire();
     }
 
     /**
-     * Get an array of positions for all dots in thisworld.
-     * @return an array of positions as floats [x, y, x, y, z, y . . .]
+     * Gets the statistics of the game loop, indexed by the {@code STAT}
+     * constants. They are recorded to by the game loop thread, so reading
+     * them from other threads gives approximate values.
+     *
+     * @return the statistics of the game loop.
      */
-    public float[] getPositions(){
-        return positions;
+    public FrameStats getStats(){
+        return mStats;
     }
 
     /**
-     * Gets an array of colors all colors for each element to draw.
-     * @return an array of colors as floats [rgb, rgb, rgb . . .]
+     * Turns the periodic logging of the game loop statistics on or off.
+     * The statistics are cleared after every log line.
+     *
+     * @param logging true to log the statistics.
      */
-    public float[] getColors(){
-        return colors;
+    public void setStatsLogging(final boolean logging){
+        mStatsLogging = logging;
     }
 
     /**
-     *  Gets an array of all size all elements in the draw list has.
-     * @return an array of size as float [size, size, size . . .]
+     * Gets the maximum number of dots a frame can hold.
+     *
+     * @return the dot limit of the world.
      */
-    public float[] getSizes(){
-        return sizes;
+    public int getDotLimit(){
+        return mConfig.getDotLimit();
     }
 
     /**
@@ -829,7 +614,23 @@ public class GameManager
      * @return current score.
      */
     public int getScore(){
-        return score;
+        return mSimulation.getScore();
+    }
+
+    /**
+     * Gets the seed the current game was started from.
+     * @return the seed.
+     */
+    public long getSeed(){
+        return mSimulation.getSeed();
+    }
+
+    /**
+     * Gets how long the current game has been played.
+     * @return the length in ticks.
+     */
+    public int getDuration(){
+        return (int) mSimulation.getTimeStep();
     }
 
     /**
@@ -841,28 +642,50 @@ public class GameManager
     }
 
     /**
-     * Gets the number of dots currently in the draw list.
+     * Gets the number of dots currently in the world.
      *
      * @return the number of dots.
      */
     public int getDotCount() {
-        return drawList.size();
+        return mSimulation.getDotCount();
     }
 
     /**
-     * Sets a listener to listener for actions in this class.
+     * Sets the size of the world, to be called when the screen changes.
+     *
+     * @param width the width of the world.
+     * @param height the height of the world.
+     */
+    public void setWorldSize(int width, int height){
+        mConfig.setSize(width, height);
+    }
+
+    /**
+     * Sets a listener to listener for actions in this class. The actions
+     * are delivered from {@link #drainActions()}, with the latest value of
+     * each action only.
+     *
      * @param listener the listener to set.
+     * @param scheduler called when actions are waiting, it should arrange
+     *                  for {@link #drainActions()} to be called on the
+     *                  thread of the listener.
      */
-    public void setListener(IActionListener listener){
-        this.listener = listener;
+    public void setListener(EventBus.IListener listener,
+                            EventBus.IDrainScheduler scheduler){
+        mEvents.setListener(listener);
+        mEvents.setScheduler(scheduler);
     }
 
-    private void performAction(final int action, final Object source, final
-    String message){
-        if(listener != null){
-            listener.onActionPerformed(new ActionEvent(action, source,
-                    message));
-        }
+    /**
+     * Delivers the waiting actions to the listener, to be called from the
+     * thread of the listener.
+     */
+    public void drainActions(){
+        mEvents.drain();
+    }
+
+    private void performAction(final int action, final int value){
+        mEvents.post(action, value);
     }
 
     /**
@@ -880,9 +703,12 @@ public class GameManager
 
         mSensorListener.unregisterListener();
 
-        // Pause game
+        // Pause game, the game loop saves it on its own thread before it
+        // parks, without the UI thread waiting for it
         if(gameLoop != null){
             synchronized (gameLoop){
+                mSnapshotPending = !mKioskMode && mSnapshotFile != null
+                        && gameLoop.isAlive();
                 paused = true;
             }
         }
@@ -899,7 +725,7 @@ public class GameManager
         if(paused && gameLoop != null){
             synchronized (gameLoop){
                 paused = false;
-                gameLoop.notify();
+                gameLoop.notifyAll();
             }
         }
 
@@ -924,8 +750,9 @@ public class GameManager
             synchronized (gameLoop){
                 running = false;
                 paused = false;
-                gameLoop.notify();
+                gameLoop.notifyAll();
             }
+            wakeGameLoop();
 
             // If it isn't the game gameLoop thread, wait for it to end
             if ( !Thread.currentThread().equals(gameLoop) ){
@@ -944,13 +771,12 @@ public class GameManager
     @Override
     public void writeToParcel(Parcel dest, int flags) {
 
-        // Save the list of dots
-        dest.writeParcelableArray(drawList.toArray(new Parcelable[drawList.size()]),
-                flags);
-
-        dest.writeInt(score);
-        dest.writeParcelable(mPlayerDot, flags);
-        dest.writeParcelable(mPointDot, flags);
+        // The world is in the snapshot file, saved when the game paused
+        // or about to be. A save that didn't finish fails its checksum
+        // and is not restored.
+        boolean saved = (mSnapshotSaved || mSnapshotPending)
+                && gameState == STATE_PAUSED;
+        dest.writeInt(saved ? 1 : 0);
         dest.writeInt(paused ? 1 : 0);
         dest.writeInt(gameState);
 
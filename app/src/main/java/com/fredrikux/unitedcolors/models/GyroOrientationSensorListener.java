@@ -6,63 +6,43 @@ import android.hardware.SensorEventListener;
 import android.hardware.SensorManager;
 
 /**
- * A senors listener which utilizes the gyro.
+ * A senors listener which utilizes the gyro. The gyro only measures how fast
+ * the device turns, so the turn rates are integrated in to an orientation.
+ * To keep the integration from drifting the orientation slowly leaks back
+ * towards a level device, a complementary filter with level as the
+ * absolute reference.
  */
 public class GyroOrientationSensorListener implements IOrientationSensorListener {
 
     // Create a constant to convert nanoseconds to seconds.
     private static final float NS2S = 1.0f / 1000000000.0f;
-    private static final float EPSILON = 1.0f;
 
-    private final float[] deltaRotationVector = new float[4];
-    private float timestamp;
+    // How long, in seconds, it takes to forget most of a turn
+    private static final float LEVEL_TIME_CONSTANT = 2.0f;
 
+    // Only touched on the sensor thread
+    private long timestamp = 0l;
+    private float mRoll = 0.0f;
+    private float mPitch = 0.0f;
 
     private SensorEventListener eventListener = new SensorEventListener() {
         @Override
         public void onSensorChanged(SensorEvent event) {
 
-            // This timestep's delta rotation to be multiplied by the current rotation
-            // after computing it from the gyro sample data.
-            if (timestamp != 0) {
+            if (timestamp != 0l) {
                 final float dT = (event.timestamp - timestamp) * NS2S;
-                // Axis of the rotation sample, not normalized yet.
-                float axisX = event.values[0];
-                float axisY = event.values[1];
-                float axisZ = event.values[2];
-
-                // Calculate the angular velocity of the sample
-                double omegaMagnitude = Math.sqrt(axisX * axisX + axisY *
-                        axisY + axisZ * axisZ);
-
-                // Normalize the rotation vector if it's big enough to get the axis
-                // (that is, EPSILON should represent your maximum allowable margin of error)
-                if (omegaMagnitude > EPSILON) {
-                    axisX /= omegaMagnitude;
-                    axisY /= omegaMagnitude;
-                    axisZ /= omegaMagnitude;
-                }
-
-                // Integrate around this axis with the angular velocity by the timestep
-                // in order to get a delta rotation from this sample over the timestep
-                // We will convert this axis-angle representation of the delta rotation
-                // into a quaternion before turning it into the rotation matrix.
-                float thetaOverTwo = (float) omegaMagnitude * dT / 2.0f;
-                float sinThetaOverTwo = (float) Math.sin(thetaOverTwo);
-                float cosThetaOverTwo = (float) Math.cos(thetaOverTwo);
-                deltaRotationVector[0] = sinThetaOverTwo * axisX;
-                deltaRotationVector[1] = sinThetaOverTwo * axisY;
-                deltaRotationVector[2] = sinThetaOverTwo * axisZ;
-                deltaRotationVector[3] = cosThetaOverTwo;
+
+                // Weight of the integrated gyro versus the level reference
+                final float keep = LEVEL_TIME_CONSTANT
+                        / (LEVEL_TIME_CONSTANT + dT);
+
+                // Integrate the turn rates around the x- and y-axis
+                mPitch = keep * (mPitch + event.values[0] * dT);
+                mRoll = keep * (mRoll + event.values[1] * dT);
             }
             timestamp = event.timestamp;
-            float[] deltaRotationMatrix = new float[9];
-            SensorManager.getRotationMatrixFromVector(deltaRotationMatrix, deltaRotationVector);
 
-            // User code should concatenate the delta rotation we computed with the current rotation
-            // in order to get the updated rotation.
-            // rotationCurrent = rotationCurrent * deltaRotationMatrix;
-            listener.onUpdate(deltaRotationMatrix[0], deltaRotationMatrix[1]);
+            listener.onUpdate(event.timestamp, mRoll, mPitch);
         }
 
 
@@ -82,7 +62,7 @@ public class GyroOrientationSensorListener implements IOrientationSensorListener
 
         // If the sensor can't be fetched, throw run time exception
         if(sensor == null) throw new RuntimeException("Exception geting " +
-                "sensor TYPE_ROTATION_VECTOR");
+                "sensor TYPE_GYROSCOPE");
     }
 
     @Override
@@ -93,8 +73,14 @@ public class GyroOrientationSensorListener implements IOrientationSensorListener
     @Override
     public void registerListener() {
 
+        // Start over from a level device
+        timestamp = 0l;
+        mRoll = 0.0f;
+        mPitch = 0.0f;
+
         manager.registerListener(eventListener, sensor,
-                SensorManager.SENSOR_DELAY_GAME);
+                SensorManager.SENSOR_DELAY_GAME,
+                GameRules.SENSOR_MAX_REPORT_LATENCY_US);
     }
 
     @Override
@@ -4,6 +4,6 @@ package com.fredrikux.unitedcolors.models;
  * A listener for the change in orientaion
  */
 public interface IOrientationChangeListener {
-    void onUpdate(float x, float y);
+    void onUpdate(long timestamp, float x, float y);
     void onAccuraryChanged(int accuracy);
 }
@@ -21,7 +21,8 @@ public class RotationOrientationSensorListener implements IOrientationSensorList
                     .values);
             SensorManager.getOrientation(mRotationMatrix, mOrientationValues);
 
-            listener.onUpdate(mOrientationValues[2], -mOrientationValues[1]);
+            listener.onUpdate(event.timestamp, mOrientationValues[2],
+                    -mOrientationValues[1]);
         }
 
         @Override
@@ -57,13 +58,16 @@ public class RotationOrientationSensorListener implements IOrientationSensorList
     }
 
     /**
-     * Register this listener with the sensor manager.
+     * Register this listener with the sensor manager. Events may be batched
+     * by the hardware, they are timestamped so the game loop can still
+     * spread them over time.
      */
     @Override
     public void registerListener() {
 
         manager.registerListener(eventListener, sensor,
-                SensorManager.SENSOR_DELAY_GAME);
+                SensorManager.SENSOR_DELAY_GAME,
+                GameRules.SENSOR_MAX_REPORT_LATENCY_US);
     }
 
     /**
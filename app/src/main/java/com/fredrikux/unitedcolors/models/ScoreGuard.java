@@ -2,28 +2,115 @@ package com.fredrikux.unitedcolors.models;
 
 import android.content.Context;
 import android.content.SharedPreferences;
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.Process;
+import android.util.Log;
 
 import com.fredrikux.unitedcolors.R;
 
+import java.io.File;
+import java.io.IOException;
 import java.math.BigInteger;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * This class keeps the score safe, it uses hidden keys and primes
  * for creating safe way of storing score local on the device for later
  * use when internet connection becomes available. This class implements
  * the Singleton-pattern.
+ *
+ * The score is decoded once and kept in memory. Saving only updates the
+ * memory and schedules a write on a background thread, where several
+ * saves made before it runs are written as one, so the UI thread never
+ * waits for the disk.
+ *
+ * Every game played is also appended to a {@link ScoreLog} on the same
+ * thread, from which the games not yet on the leaderboard are uploaded.
+ * An upload that fails is tried again on that thread once the backoff of
+ * its {@link LeaderboardSync} is over.
  */
 public class ScoreGuard {
 
+    /*
+     * STATIC FINAL FIELDS
+     */
+    private static final String TAG = "ScoreGuard";
+    private static final String LOG_FILE = "scores.log";
+    private static final String DAMAGED_LOG_FILE = "scores.log.damaged";
+    private static final int TOP_COUNT = 10;
+    public static final int UPLOAD_BATCH = 50;
+
+    // MessageDigest isn't thread safe, so every thread gets its own
+    private static final ThreadLocal<MessageDigest> DIGEST
+            = new ThreadLocal<MessageDigest>() {
+        @Override
+        protected MessageDigest initialValue() {
+            try {
+                return MessageDigest.getInstance("MD5");
+            } catch (NoSuchAlgorithmException e) {
+                throw new RuntimeException("Some thing went wrong with MD5.");
+            }
+        }
+    };
+
     private static ScoreGuard mGuard = new ScoreGuard();
 
+    /*
+     * FINAL FIELDS
+     */
+    // The highest score known, saved or not
+    private final AtomicInteger mScore = new AtomicInteger(0);
+    private final AtomicBoolean mWritePending = new AtomicBoolean(false);
+
+    private final Runnable mLoad = new Runnable() {
+        @Override
+        public void run() {
+            loadScore();
+        }
+    };
+
+    private final Runnable mWrite = new Runnable() {
+        @Override
+        public void run() {
+            writeScore();
+        }
+    };
+
+    private final Runnable mRetryUpload = new Runnable() {
+        @Override
+        public void run() {
+            upload(mRetryUploader);
+        }
+    };
+
+    private final Runnable mCancelRetry = new Runnable() {
+        @Override
+        public void run() {
+            mHandler.removeCallbacks(mRetryUpload);
+            mRetryUploader = null;
+        }
+    };
+
+    /*
+     * OTHER FIELDS
+     */
     private long mBigPrime;
     private SharedPreferences.Editor mEditor;
     private String mScoreKey;
     private SharedPreferences mSharedPref;
     private String mSavedScoreKey;
+    private volatile Handler mHandler;
+    private volatile ScoreLog mLog;
+    private File mLogFile;
+    private File mDamagedLogFile;
+
+    // Only touched by the background thread
+    private int mWrittenScore = 0;
+    private LeaderboardSync mRetryUploader;
 
 
     // Private constructor for singelton-pattern.
@@ -36,13 +123,13 @@ public class ScoreGuard {
 
     /**
      * Initiate the score guard, can only be run once. Throws exception
-     * otherwise.
+     * otherwise. The saved score is loaded in the background.
      *
      * @param context a context to use for saving the score locally.
      * @throws Exception if the score guard is all ready initiated.
      */
     public void init(final Context context) throws Exception {
-        if(mEditor != null)
+        if(mHandler != null)
             throw new Exception("Is already initiated.");
         mSharedPref = context.getSharedPreferences(
                 context.getString(R.string.preference_file_key), Context
@@ -52,17 +139,63 @@ public class ScoreGuard {
         mBigPrime = Long.parseLong(context.getString(R.string.big_prime));
         mEditor = mSharedPref.edit();
         mScoreKey = context.getString(R.string.score_key);
+        mLogFile = new File(context.getFilesDir(), LOG_FILE);
+        mDamagedLogFile = new File(context.getFilesDir(), DAMAGED_LOG_FILE);
+
+        HandlerThread thread = new HandlerThread("Score Guard",
+                Process.THREAD_PRIORITY_BACKGROUND);
+        thread.start();
 
+        // The load runs before any write, the handler runs them in order
+        Handler handler = new Handler(thread.getLooper());
+        handler.post(mLoad);
+        mHandler = handler;
     }
 
     /**
-     * Saves the score localy on the deveice.
+     * Saves the score localy on the deveice, if it is higher than the
+     * saved one. Returns at once, the score is written in the background.
      *
-     * @param score
+     * @param score the score to save.
+     * @return true if the score is a new high score.
      */
-    public void saveScore(final int score){
+    public boolean saveHighScore(final int score){
         isInit();
 
+        if(!raiseScore(score)){
+            return false;
+        }
+
+        // A write that is already pending will write this score too
+        if(mWritePending.compareAndSet(false, true)){
+            mHandler.post(mWrite);
+        }
+
+        return true;
+    }
+
+    private boolean raiseScore(final int score){
+        int current;
+        do {
+            current = mScore.get();
+            if(score <= current){
+                return false;
+            }
+        } while(!mScore.compareAndSet(current, score));
+
+        return true;
+    }
+
+    private void writeScore(){
+
+        // Let saves from now on schedule a new write
+        mWritePending.set(false);
+
+        final int score = mScore.get();
+        if(score == mWrittenScore){
+            return;
+        }
+
         final long bNumber = score * mBigPrime;
         final String hexString = Long.toHexString(bNumber);
         final String value = mScoreKey + hexString;
@@ -71,7 +204,11 @@ public class ScoreGuard {
         final String val = checksum + ":" + value;
 
         mEditor.putString(mSavedScoreKey, val);
-        mEditor.commit();
+        if(mEditor.commit()){
+            mWrittenScore = score;
+        } else {
+            Log.e(TAG, "Could not save the score");
+        }
     }
 
     /**
@@ -81,25 +218,166 @@ public class ScoreGuard {
      * @return the checksum as string.
      */
     private String calculateChecksum(final String str){
-        MessageDigest mdEnc = null;
+        MessageDigest mdEnc = DIGEST.get();
+        mdEnc.reset();
+        mdEnc.update(str.getBytes(), 0, str.length());
+        return new BigInteger(1, mdEnc.digest()).toString(16);
+    }
+
+    private void loadScore(){
+
+        int saved;
         try {
-            mdEnc = MessageDigest.getInstance("MD5");
-        } catch (NoSuchAlgorithmException e) {
-            throw new RuntimeException("Some thing went wrong with MD5.");
+            saved = readScore();
+        } catch (RuntimeException e) {
+            Log.e(TAG, "Saved score is damaged, it is ignored", e);
+            saved = 0;
+        }
+
+        mWrittenScore = saved;
+
+        // Scores saved while loading were only kept if higher, so write
+        // them now
+        if(!raiseScore(saved) && mScore.get() != saved){
+            mWrite.run();
+        }
+
+        openLog(saved);
+    }
+
+    private void openLog(final int savedScore){
+
+        ScoreLog log;
+        try {
+            log = new ScoreLog(mLogFile, TOP_COUNT);
+        } catch (IOException e) {
+
+            // Kept aside rather than deleted, the games not yet uploaded
+            // can still be recovered from it
+            Log.e(TAG, "Score log is damaged, moved to " + DAMAGED_LOG_FILE
+                    + " and starting a new one", e);
+            mDamagedLogFile.delete();
+            if(!mLogFile.renameTo(mDamagedLogFile)){
+                return;
+            }
+            try {
+                log = new ScoreLog(mLogFile, TOP_COUNT);
+            } catch (IOException again) {
+                Log.e(TAG, "Could not open the score log", again);
+                return;
+            }
+        }
+
+        // The high score from before the log, it may never have been
+        // uploaded
+        if(log.getCount() == 0 && savedScore > 0){
+            appendGame(log, 0l, savedScore, 0, 0l);
+        }
+
+        mLog = log;
+    }
+
+    private static void appendGame(final ScoreLog log, final long timestamp,
+                                   final int score, final int duration,
+                                   final long seed){
+        try {
+            log.append(timestamp, score, duration, seed);
+        } catch (IOException e) {
+            Log.e(TAG, "Could not log the game", e);
         }
-        mdEnc.update(str.getBytes(), 0, str.length());
-        String s = new BigInteger(1, mdEnc.digest()).toString(16);
-        String.format("%05d", 2);
-        return s;
     }
 
     /**
-     * Loads the score saved locally on the device.
-     * @return
+     * Logs a played game. Returns at once, the game is logged in the
+     * background.
+     *
+     * @param score the score of the game.
+     * @param duration the length of the game in ticks.
+     * @param seed the seed the game was started from.
      */
-    public int getScore() {
+    public void recordGame(final int score, final int duration,
+                           final long seed){
         isInit();
 
+        final long timestamp = System.currentTimeMillis();
+        mHandler.post(new Runnable() {
+            @Override
+            public void run() {
+                if(mLog != null){
+                    appendGame(mLog, timestamp, score, duration, seed);
+                }
+            }
+        });
+    }
+
+    /**
+     * Uploads the logged games that haven't been uploaded yet, in the
+     * background. Games that fail are tried again once the backoff of the
+     * uploader is over, or on the next call if that is sooner.
+     *
+     * @param uploader the uploader to upload with.
+     */
+    public void uploadPending(final LeaderboardSync uploader){
+        isInit();
+
+        mHandler.post(new Runnable() {
+            @Override
+            public void run() {
+                upload(uploader);
+            }
+        });
+    }
+
+    /**
+     * Stops trying a failed upload again, so the uploader can be let go.
+     */
+    public void cancelRetry(){
+        isInit();
+
+        mHandler.post(mCancelRetry);
+    }
+
+    private void upload(final LeaderboardSync uploader){
+
+        // This upload takes the place of a retry that is waiting
+        mCancelRetry.run();
+
+        if(mLog == null){
+            return;
+        }
+
+        try {
+            mLog.uploadPending(uploader, UPLOAD_BATCH);
+        } catch (IOException e) {
+            Log.w(TAG, "Upload stopped, " + mLog.getPendingCount()
+                    + " games left", e);
+
+            // Nothing else may come along to upload them, like a game or
+            // a new connection, so the retry is scheduled here
+            final long delay = uploader.getBackoff().getReadyTime()
+                    - System.currentTimeMillis();
+            if(delay > 0){
+                mRetryUploader = uploader;
+                mHandler.postDelayed(mRetryUpload, delay);
+            }
+        }
+    }
+
+    /**
+     * Gets the log of the games played, for ranks and percentiles.
+     *
+     * @return the log, or null until it is loaded.
+     */
+    public ScoreLog getScoreLog(){
+        return mLog;
+    }
+
+    /**
+     * Reads and decodes the score saved locally on the device.
+     * @return the saved score, 0 if there is none.
+     */
+    private int readScore() {
+
         String defualt = "default";
 
         String saved = mSharedPref.getString(mSavedScoreKey, defualt);
@@ -132,11 +410,23 @@ public class ScoreGuard {
         return score;
     }
 
+    /**
+     * Gets the highest score, without touching the disk. Until the saved
+     * score is loaded, only scores saved since are known.
+     *
+     * @return the high score.
+     */
+    public int getScore() {
+        isInit();
+
+        return mScore.get();
+    }
+
     /**
      * Checks to see if the guard already has been initiated.
      */
     private void isInit(){
-        if(mEditor == null){
+        if(mHandler == null){
             throw new RuntimeException("Need to run init(Context) first");
         }
     }
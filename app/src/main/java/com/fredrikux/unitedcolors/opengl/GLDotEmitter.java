@@ -4,30 +4,46 @@ import android.opengl.GLES20;
 import android.opengl.GLU;
 import android.util.Log;
 
-import java.nio.ByteBuffer;
-import java.nio.ByteOrder;
-import java.nio.FloatBuffer;
+import com.fredrikux.unitedcolors.models.RenderFrame;
+import com.fredrikux.unitedcolors.models.VertexPacker;
 
 /**
  * The main class for drawing dots, using Open GL ES 2.0
+ *
+ * The dots are moved by the vertex shader, from the motion of every dot,
+ * the same way {@link com.fredrikux.unitedcolors.models.LinearMotion}
+ * moves them: along the velocity from the origin, folded in between the
+ * walls of the world for the dots that bounce.
  */
 public class GLDotEmitter {
 
-    private static final int SIZE_OF_COORD = 2;
-    private static final int SIZE_OF_COLOR = 3;
-
     private final String TAG = "GLDotEmitter";
 
     private final String vertexShaderCode =
         "uniform mat4 u_MVPMatrix;" +
-        "attribute vec4 a_Position;" +
+        "uniform float u_Step;" +
+        "uniform float u_Interpolation;" +
+        "uniform vec2 u_WorldSize;" +
+        "attribute vec2 a_Origin;" +
+        "attribute vec2 a_Velocity;" +
+        "attribute vec2 a_Motion;" +
         "attribute vec4 a_Color;" +
         "attribute float a_Size;" +
         "varying vec4 v_Color;" +
         "void main() {" +
         "  v_Color = a_Color;" +
-        "  gl_Position = u_MVPMatrix * a_Position;" +
-        "  gl_PointSize = a_Size;" +
+        "  float size = a_Size * " + (1.0f / VertexPacker.SIZE_SCALE)
+                + ";" +
+        "  float elapsed = (u_Step - a_Motion.x) + u_Interpolation;" +
+        "  vec2 position = a_Origin + a_Velocity * elapsed;" +
+        // Fold in between the walls, a triangle wave
+        "  float radius = size * 0.5;" +
+        "  vec2 period = max(2.0 * (u_WorldSize - size), 0.0001);" +
+        "  vec2 distance = mod(position - radius, period);" +
+        "  vec2 folded = radius + min(distance, period - distance);" +
+        "  position = mix(position, folded, a_Motion.y);" +
+        "  gl_Position = u_MVPMatrix * vec4(position, 0.0, 1.0);" +
+        "  gl_PointSize = size;" +
         "}";
 
     private final String fragmentShaderCode =
@@ -44,21 +60,31 @@ public class GLDotEmitter {
 
     // Attribute handles
     private final int a_Color;
-    private final int a_Position;
+    private final int a_Origin;
+    private final int a_Velocity;
+    private final int a_Motion;
     private final int a_Size;
 
     // Uniform handles
     private final int u_MVPMatrix;
+    private final int u_Step;
+    private final int u_Interpolation;
+    private final int u_WorldSize;
     private final int u_Texture;
     private final int u_GlareTexture;
     private int mTextureData;
     private int mGlareTextureData;
 
-    private FloatBuffer mPositionBuffer;
-    private FloatBuffer mColorBuffer;
-    private FloatBuffer mSizeBuffer;
+    private VertexPacker mPacker;
+    private int mMotionHandle;
+    private int mAttributeHandle;
     private int mDotCount;
 
+    // The time step and the size of the world of the last updated frame
+    private float mStep;
+    private float mWorldWidth;
+    private float mWorldHeight;
+
 
     public GLDotEmitter(final int textureIndex, final int glareTextureIndex) {
 
@@ -70,11 +96,17 @@ public class GLDotEmitter {
 
         // Attributes
         a_Color = GLES20.glGetAttribLocation(mProgram, "a_Color");
-        a_Position = GLES20.glGetAttribLocation(mProgram, "a_Position");
+        a_Origin = GLES20.glGetAttribLocation(mProgram, "a_Origin");
+        a_Velocity = GLES20.glGetAttribLocation(mProgram, "a_Velocity");
+        a_Motion = GLES20.glGetAttribLocation(mProgram, "a_Motion");
         a_Size = GLES20.glGetAttribLocation(mProgram, "a_Size");
 
         // Uniforms
         u_MVPMatrix = GLES20.glGetUniformLocation(mProgram, "u_MVPMatrix");
+        u_Step = GLES20.glGetUniformLocation(mProgram, "u_Step");
+        u_Interpolation = GLES20.glGetUniformLocation(mProgram,
+                "u_Interpolation");
+        u_WorldSize = GLES20.glGetUniformLocation(mProgram, "u_WorldSize");
         u_Texture = GLES20.glGetUniformLocation(mProgram, "u_Texture");
         u_GlareTexture = GLES20.glGetUniformLocation(mProgram, "u_GlareTexture");
 
@@ -129,65 +161,85 @@ public class GLDotEmitter {
 
     }
 
-    float[] mFloatPositions;
-    float[] mFloatColors;
-    float[] mFloatSizes;
-
     /**
-     * Initialize this after all dots has been created.
+     * Allocates the vertex buffers, large enough to hold provided number of
+     * dots. Must be called on the GL thread.
+     *
+     * @param capacity the maximum number of dots to draw.
      */
-    public void prepareBuffers( float[] positions, float[] colors,
-                                float[] sizes ){
+    public void prepareBuffers(int capacity){
 
-        mFloatPositions = positions;
-        mFloatColors = colors;
-        mFloatSizes = sizes;
+        mPacker = new VertexPacker(capacity);
 
-        ByteBuffer byteBuffer = ByteBuffer.allocateDirect(positions.length * 4);
-        byteBuffer.order(ByteOrder.nativeOrder());
-        FloatBuffer positionBuffer = byteBuffer.asFloatBuffer();
+        // One buffer for the motions and one for the colors and sizes
+        int[] handles = new int[2];
+        GLES20.glGenBuffers(2, handles, 0);
+        mMotionHandle = handles[0];
+        mAttributeHandle = handles[1];
 
-        byteBuffer = ByteBuffer.allocateDirect(colors.length * 4);
-        byteBuffer.order(ByteOrder.nativeOrder());
-        FloatBuffer colorBuffer = byteBuffer.asFloatBuffer();
+        // Start out with the same, zeroed, content as the packer
+        GLES20.glBindBuffer(GLES20.GL_ARRAY_BUFFER, mMotionHandle);
+        GLES20.glBufferData(GLES20.GL_ARRAY_BUFFER,
+                capacity * VertexPacker.MOTION_STRIDE,
+                mPacker.getMotionBuffer(), GLES20.GL_DYNAMIC_DRAW);
 
-        byteBuffer = ByteBuffer.allocateDirect(sizes.length * 4);
-        byteBuffer.order(ByteOrder.nativeOrder());
-        FloatBuffer sizeBuffer = byteBuffer.asFloatBuffer();
+        GLES20.glBindBuffer(GLES20.GL_ARRAY_BUFFER, mAttributeHandle);
+        GLES20.glBufferData(GLES20.GL_ARRAY_BUFFER,
+                capacity * VertexPacker.ATTRIBUTE_STRIDE,
+                mPacker.getAttributeBuffer(), GLES20.GL_DYNAMIC_DRAW);
 
-        positionBuffer.position(0);
-        colorBuffer.position(0);
-        sizeBuffer.position(0);
-
-        mPositionBuffer = positionBuffer;
-        mColorBuffer = colorBuffer;
-        mSizeBuffer = sizeBuffer;
+        GLES20.glBindBuffer(GLES20.GL_ARRAY_BUFFER, 0);
 
     }
 
     /**
-     * Update the buffers for later use.
-     * @param count
+     * Packs the dots of provided frame and uploads the ranges of dots that
+     * changed since the last frame. Must be called on the GL thread.
+     *
+     * @param frame the frame to draw.
      */
-    public void updateBuffers(int count){
-
-        mDotCount = count;
-
-        mPositionBuffer.position(0);
-        mPositionBuffer.put(mFloatPositions);
-        mPositionBuffer.position(0);
+    public void updateBuffers(RenderFrame frame){
+
+        final VertexPacker packer = mPacker;
+        packer.pack(frame);
+
+        mDotCount = packer.getCount();
+        mStep = frame.getMotionStep();
+        mWorldWidth = frame.width;
+        mWorldHeight = frame.height;
+
+        int dirty = packer.getDirtyMotionCount();
+        if(dirty > 0){
+            GLES20.glBindBuffer(GLES20.GL_ARRAY_BUFFER, mMotionHandle);
+            GLES20.glBufferSubData(GLES20.GL_ARRAY_BUFFER,
+                    packer.getFirstDirtyMotion()
+                            * VertexPacker.MOTION_STRIDE,
+                    dirty * VertexPacker.MOTION_STRIDE,
+                    packer.getMotionBuffer());
+        }
 
-        mColorBuffer.position(0);
-        mColorBuffer.put(mFloatColors);
-        mColorBuffer.position(0);
+        dirty = packer.getDirtyAttributeCount();
+        if(dirty > 0){
+            GLES20.glBindBuffer(GLES20.GL_ARRAY_BUFFER, mAttributeHandle);
+            GLES20.glBufferSubData(GLES20.GL_ARRAY_BUFFER,
+                    packer.getFirstDirtyAttribute()
+                            * VertexPacker.ATTRIBUTE_STRIDE,
+                    dirty * VertexPacker.ATTRIBUTE_STRIDE,
+                    packer.getAttributeBuffer());
+        }
 
-        mSizeBuffer.position(0);
-        mSizeBuffer.put(mFloatSizes);
-        mSizeBuffer.position(0);
+        GLES20.glBindBuffer(GLES20.GL_ARRAY_BUFFER, 0);
 
     }
 
-    public void draw(float[] mMVPMatrix){
+    /**
+     * Draws the dots of the last updated frame.
+     *
+     * @param mMVPMatrix the model view projection matrix.
+     * @param interpolation how far in to the time step of the frame to move
+     *                      the dots, from 0 to 1.
+     */
+    public void draw(float[] mMVPMatrix, float interpolation){
 
         GLES20.glUseProgram(mProgram);
 
@@ -196,37 +248,62 @@ public class GLDotEmitter {
         //GLES20.glBlendFunc(GLES20.GL_SRC_ALPHA, GLES20
         // .GL_ONE_MINUS_SRC_ALPHA);
 
-        GLES20.glEnableVertexAttribArray(a_Position);
+        GLES20.glBindBuffer(GLES20.GL_ARRAY_BUFFER, mMotionHandle);
+
+        GLES20.glEnableVertexAttribArray(a_Origin);
         GLES20.glVertexAttribPointer(
-                a_Position,
-                SIZE_OF_COORD,
+                a_Origin,
+                2,
                 GLES20.GL_FLOAT,
                 false,
-                0,
-                mPositionBuffer
+                VertexPacker.MOTION_STRIDE,
+                RenderFrame.MOTION_ORIGIN_X * 4
         );
 
-        GLES20.glEnableVertexAttribArray(a_Color);
+        GLES20.glEnableVertexAttribArray(a_Velocity);
         GLES20.glVertexAttribPointer(
-                a_Color,
-                SIZE_OF_COLOR,
+                a_Velocity,
+                2,
                 GLES20.GL_FLOAT,
                 false,
-                0,
-                mColorBuffer
+                VertexPacker.MOTION_STRIDE,
+                RenderFrame.MOTION_VELOCITY_X * 4
         );
 
-        GLES20.glEnableVertexAttribArray(a_Size);
+        // The time step and the bouncing
+        GLES20.glEnableVertexAttribArray(a_Motion);
         GLES20.glVertexAttribPointer(
-                a_Size,
-                1,
+                a_Motion,
+                2,
                 GLES20.GL_FLOAT,
                 false,
-                0,
-                mSizeBuffer
+                VertexPacker.MOTION_STRIDE,
+                RenderFrame.MOTION_STEP * 4
+        );
+
+        GLES20.glBindBuffer(GLES20.GL_ARRAY_BUFFER, mAttributeHandle);
+
+        GLES20.glEnableVertexAttribArray(a_Color);
+        GLES20.glVertexAttribPointer(
+                a_Color,
+                4,
+                GLES20.GL_UNSIGNED_BYTE,
+                true,
+                VertexPacker.ATTRIBUTE_STRIDE,
+                VertexPacker.OFFSET_COLOR
         );
 
+        GLES20.glEnableVertexAttribArray(a_Size);
+        GLES20.glVertexAttribPointer(
+                a_Size,
+                RenderFrame.SIZE_OF_DOT_SIZE,
+                GLES20.GL_UNSIGNED_SHORT,
+                false,
+                VertexPacker.ATTRIBUTE_STRIDE,
+                VertexPacker.OFFSET_SIZE
+        );
 
+        GLES20.glBindBuffer(GLES20.GL_ARRAY_BUFFER, 0);
 
         GLES20.glUniform1i(u_Texture, 0);
         GLES20.glActiveTexture(GLES20.GL_TEXTURE0);
@@ -237,17 +314,21 @@ public class GLDotEmitter {
         GLES20.glBindTexture(GLES20.GL_TEXTURE_2D, mGlareTextureData);
 
         GLES20.glUniformMatrix4fv(u_MVPMatrix, 1, false, mMVPMatrix, 0);
+        GLES20.glUniform1f(u_Step, mStep);
+        GLES20.glUniform1f(u_Interpolation, interpolation);
+        GLES20.glUniform2f(u_WorldSize, mWorldWidth, mWorldHeight);
         GLES20.glDrawArrays(GLES20.GL_POINTS, 0, mDotCount);
 
         // Disable vertex array
-        GLES20.glDisableVertexAttribArray(a_Position);
+        GLES20.glDisableVertexAttribArray(a_Origin);
+        GLES20.glDisableVertexAttribArray(a_Velocity);
+        GLES20.glDisableVertexAttribArray(a_Motion);
         GLES20.glDisableVertexAttribArray(a_Color);
         GLES20.glDisableVertexAttribArray(a_Size);
     }
 
     public void finish() {
-        mPositionBuffer.clear();
-        mColorBuffer.clear();
-        mSizeBuffer.clear();
+        mPacker.getMotionBuffer().clear();
+        mPacker.getAttributeBuffer().clear();
     }
 }
@@ -12,6 +12,8 @@ import android.os.Parcelable;
 import android.util.Log;
 
 import com.fredrikux.unitedcolors.models.GameManager;
+import com.fredrikux.unitedcolors.models.RenderFrame;
+import com.fredrikux.unitedcolors.utils.FrameStats;
 
 import javax.microedition.khronos.egl.EGLConfig;
 import javax.microedition.khronos.opengles.GL10;
@@ -23,6 +25,17 @@ public class GLRenderer
 
     private static final String TAG = "GLRenderer";
 
+    private static final long FRAME_BUDGET = 1000000000l / 60l;
+    private static final long STATS_LOG_INTERVAL = 5000000000l;
+
+    // The metrics of the renderer, see getStats()
+    public static final int STAT_ACQUIRE = 0;
+    public static final int STAT_UPLOAD = 1;
+    public static final int STAT_DRAW = 2;
+    public static final int STAT_FRAME = 3;
+    public static final int STAT_FRAME_INTERVAL = 4;
+    public static final int STAT_DOT_COUNT = 5;
+
     private final float[] mMVPMatrix = new float[16];
     private final float[] mProjectionMatrix = new float[16];
     private final float[] mViewMatrix = new float[16];
@@ -35,6 +48,13 @@ public class GLRenderer
     private final Bitmap mBitmap;
     private final Bitmap mGlare;
 
+    // Recorded to by the render thread only
+    private final FrameStats mStats = createStats();
+    private final StringBuilder mStatsLog = new StringBuilder();
+    private volatile boolean mStatsLogging = false;
+    private long mLastFrameTime = 0l;
+    private long mLastStatsLog = 0l;
+
     public GLRenderer(Bitmap bitmap, Bitmap glare){
         mBitmap = bitmap;
         mGlare = glare;
@@ -45,6 +65,29 @@ public class GLRenderer
         mGlare = in.readParcelable(Bitmap.class.getClassLoader());
     }
 
+    private static FrameStats createStats(){
+
+        final FrameStats stats = new FrameStats("Renderer, times in us",
+                STAT_DOT_COUNT + 1);
+
+        final long second = 1000000000l;
+        stats.define(STAT_ACQUIRE, "acquire", second,
+                FrameStats.NANOS_PER_MICRO, 0l);
+        stats.define(STAT_UPLOAD, "upload", second,
+                FrameStats.NANOS_PER_MICRO, 0l);
+        stats.define(STAT_DRAW, "draw", second, FrameStats.NANOS_PER_MICRO,
+                0l);
+        stats.define(STAT_FRAME, "frame", second, FrameStats.NANOS_PER_MICRO,
+                FRAME_BUDGET);
+
+        // A frame more than half a frame late has most likely missed vsync
+        stats.define(STAT_FRAME_INTERVAL, "frame interval", second,
+                FrameStats.NANOS_PER_MICRO, FRAME_BUDGET * 3 / 2);
+        stats.define(STAT_DOT_COUNT, "dots", 1 << 16, 1l, 0l);
+
+        return stats;
+    }
+
     public static final Creator<GLRenderer> CREATOR = new Creator<GLRenderer>() {
         @Override
         public GLRenderer createFromParcel(Parcel in) {
@@ -70,11 +113,7 @@ public class GLRenderer
         int glareTextureIndex = loadTexture(mGlare);
         mDotEmitter = new GLDotEmitter(dotTextureIndex, glareTextureIndex);
 
-        mDotEmitter.prepareBuffers(
-            mGameManager.getPositions(),
-            mGameManager.getColors(),
-            mGameManager.getSizes()
-        );
+        mDotEmitter.prepareBuffers(mGameManager.getDotLimit());
 
         // The camera is located at (0,0,-3),
         // it's looking toward (0,0,0)
@@ -88,6 +127,7 @@ public class GLRenderer
         // Save the width and height for later use.
         screenW = width;
         screenH = height;
+        mGameManager.setWorldSize(width, height);
 
         // Set up the MVPMatrix
         setUpModelViewProjectionMatrix();
@@ -102,19 +142,49 @@ public class GLRenderer
     @Override
     public void onDrawFrame(GL10 gl) {
 
+        final long start = System.nanoTime();
+
         // CLear the screen
         GLES20.glClear(GLES20.GL_COLOR_BUFFER_BIT
                 | GLES20.GL_DEPTH_BUFFER_BIT);
 
-        // Update the buffer to draw
-        mDotEmitter.updateBuffers(mGameManager.getDotCount());
+        // Update the buffer with the newest frame from the game loop
+        RenderFrame frame = mGameManager.acquireFrame();
+        final long acquired = System.nanoTime();
+        mDotEmitter.updateBuffers(frame);
+        final long uploaded = System.nanoTime();
+
+        // Draw dots, blended between the last two time steps
+        mDotEmitter.draw(mMVPMatrix, frame.getInterpolation(uploaded));
+        final long end = System.nanoTime();
+
+        recordFrame(start, acquired, uploaded, end, frame.count);
+    }
 
-        // Draw dots
-        mDotEmitter.draw(mMVPMatrix);
+    private void recordFrame(final long start, final long acquired,
+                             final long uploaded, final long end,
+                             final int count){
 
-        synchronized (mGameManager.lock){
-            mGameManager.condition = true;
-            mGameManager.lock.notify();
+        mStats.record(STAT_ACQUIRE, acquired - start);
+        mStats.record(STAT_UPLOAD, uploaded - acquired);
+        mStats.record(STAT_DRAW, end - uploaded);
+        mStats.record(STAT_FRAME, end - start);
+        mStats.record(STAT_DOT_COUNT, count);
+
+        if(mLastFrameTime != 0l){
+            mStats.record(STAT_FRAME_INTERVAL, start - mLastFrameTime);
+        }
+        mLastFrameTime = start;
+
+        // Now and then, dump what the last seconds looked like
+        if(mLastStatsLog == 0l){
+            mLastStatsLog = start;
+        } else if(mStatsLogging
+                && start - mLastStatsLog >= STATS_LOG_INTERVAL){
+            mStatsLog.setLength(0);
+            Log.d(TAG, mStats.appendTo(mStatsLog).toString());
+            mStats.reset();
+            mLastStatsLog = start;
         }
     }
 
@@ -207,6 +277,27 @@ public class GLRenderer
         dest.writeParcelable(mGlare, flags);
     }
 
+    /**
+     * Gets the statistics of the renderer, indexed by the {@code STAT}
+     * constants. They are recorded to by the render thread, so reading them
+     * from other threads gives approximate values.
+     *
+     * @return the statistics of the renderer.
+     */
+    public FrameStats getStats() {
+        return mStats;
+    }
+
+    /**
+     * Turns the periodic logging of the renderer statistics on or off. The
+     * statistics are cleared after every log line.
+     *
+     * @param logging true to log the statistics.
+     */
+    public void setStatsLogging(boolean logging) {
+        mStatsLogging = logging;
+    }
+
     public void setGameManager(GameManager gameManager) {
         this.mGameManager = gameManager;
     }
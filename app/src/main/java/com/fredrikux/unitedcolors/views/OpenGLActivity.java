@@ -7,7 +7,6 @@ import android.content.Context;
 import android.content.DialogInterface;
 import android.content.Intent;
 import android.content.IntentSender;
-import android.content.SharedPreferences;
 import android.graphics.Bitmap;
 import android.graphics.BitmapFactory;
 import android.hardware.SensorManager;
@@ -21,7 +20,9 @@ import android.net.NetworkRequest;
 import android.opengl.GLSurfaceView;
 import android.os.Build;
 import android.os.Bundle;
+import android.os.Handler;
 import android.util.DisplayMetrics;
+import android.view.Choreographer;
 import android.view.KeyEvent;
 import android.view.Menu;
 import android.view.MenuItem;
@@ -31,20 +32,29 @@ import android.widget.Button;
 import android.widget.ImageView;
 import android.widget.TextView;
 
+import com.fredrikux.unitedcolors.BuildConfig;
 import com.fredrikux.unitedcolors.R;
 import com.fredrikux.unitedcolors.models.GameManager;
 import com.fredrikux.unitedcolors.models.NoSensorException;
+import com.fredrikux.unitedcolors.models.LeaderboardSync;
 import com.fredrikux.unitedcolors.models.ScoreGuard;
 import com.fredrikux.unitedcolors.opengl.GLRenderer;
-import com.fredrikux.unitedcolors.utils.IActionListener;
+import com.fredrikux.unitedcolors.utils.Backoff;
+import com.fredrikux.unitedcolors.utils.EventBus;
+import com.fredrikux.unitedcolors.utils.LoopPolicy;
 import com.google.android.gms.common.ConnectionResult;
 import com.google.android.gms.common.GoogleApiAvailability;
 import com.google.android.gms.common.api.GoogleApiClient;
+import com.google.android.gms.common.api.Status;
 import com.google.android.gms.games.Games;
 import com.google.android.gms.games.GamesActivityResultCodes;
+import com.google.android.gms.games.leaderboard.Leaderboards;
 
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
 
 /**
  * The core activity of the application.
@@ -59,6 +69,17 @@ public class OpenGLActivity
     /* Static fields */
     public static int screenDensity;
 
+    // Google Play is retried from two seconds up to ten minutes apart
+    private static final long RETRY_DELAY = 2000l;
+    private static final long MAX_RETRY_DELAY = 600000l;
+
+    // A connection to Google Play that drops sooner counts as failed
+    private static final long MIN_CONNECTED_TIME = 30000l;
+
+    // Only the best game of every hour is submitted
+    private static final long SUBMIT_WINDOW = 3600000l;
+    private static final long SUBMIT_TIMEOUT = 30000l;
+
 
     /* Private final fields*/
     private final View.OnClickListener mNewGameHandler = new View
@@ -80,42 +101,72 @@ public class OpenGLActivity
         }
     };
 
-    private final IActionListener mGameWorldListener = new IActionListener() {
+    // Called on the UI thread, with the latest value of each action
+    private final EventBus.IListener mGameWorldListener = new EventBus
+            .IListener() {
         @Override
-        public void onActionPerformed(final ActionEvent event) {
+        public void onEvent(int code, int value) {
+            switch (code) {
+                case GameManager.ACTION_SCORE_CHANGED:
 
-        // Update the UI from the UI Thread
-        runOnUiThread(new Runnable() {
+                    mScoreView.setText(String.valueOf(value));
+                    break;
 
-            @Override
-            public void run() {
-                switch (event.action) {
-                    case GameManager.ACTION_SCORE_CHANGED:
+                case GameManager.ACTION_STATE_CHANGED:
 
-                        int score = (int) event.source;
-                        mScoreView.setText("" + score);
-                        break;
+                    updateUserInterface(mGameManager.getGameState());
+                    updateRenderMode();
+                    break;
 
-                    case GameManager.ACTION_STATE_CHANGED:
 
-                        updateUserInterface(mGameManager.getGameState());
-                        break;
+                default:
+                    break;
+            }
+        }
+    };
+
+    // Drains the actions of the game once per UI frame, when there are any
+    private final Choreographer.FrameCallback mDrainCallback = new
+            Choreographer.FrameCallback() {
+        @Override
+        public void doFrame(long frameTimeNanos) {
+            mGameManager.drainActions();
+        }
+    };
 
-                    case GameManager.ACTION_STEP:
-                        mGLView.requestRender();
-                        break;
+    // Asks for a frame on every display frame the frame period of the game
+    // has passed by, in the states that are drawn less often than that
+    private final Choreographer.FrameCallback mRenderCallback = new
+            Choreographer.FrameCallback() {
+        @Override
+        public void doFrame(long frameTimeNanos) {
 
+            long period = mGameManager.getLoopPolicy().getFramePeriod();
+            if(period <= 0l){
+                return;
+            }
 
-                    default:
-                        break;
-                }
+            // The display frames jitter, a little early is on time
+            if(frameTimeNanos - mLastRenderTime >= period - period / 4){
+                mLastRenderTime = frameTimeNanos;
+                mGLView.requestRender();
             }
-        });
+            mChoreographer.postFrameCallback(this);
+        }
+    };
+
+    private final EventBus.IDrainScheduler mDrainScheduler = new EventBus
+            .IDrainScheduler() {
+        @Override
+        public void requestDrain() {
+            mChoreographer.postFrameCallback(mDrainCallback);
         }
     };
     /* Private fields*/
     private GLSurfaceView mGLView;
     private GameManager mGameManager;
+    private Choreographer mChoreographer;
+    private long mLastRenderTime = 0l;
     private GLRenderer mRenderer;
     private ConnectivityManager mConnectivityManager;
     private TextView mScoreView;
@@ -126,7 +177,45 @@ public class OpenGLActivity
     private Button mResumeButton;
     private ImageView mHomeImage;
     private String mLeaderBoardId;
-    private boolean highScoreSynced = true;
+    private boolean mConnectionHolding = false;
+
+    // Submits the best logged game of every hour to Google Play
+    private final LeaderboardSync mLeaderBoardUploader = new LeaderboardSync(
+            new LeaderboardSync.IService() {
+                @Override
+                public void submit(long[] windowStarts, int[] scores,
+                                   int count) throws IOException {
+
+                    if(!mGoogleApiClient.isConnected()){
+                        throw new IOException("Not connected to Google Play");
+                    }
+
+                    for(int i = 0; i < count; i++){
+                        uploadScore(scores[i], windowStarts[i]);
+                    }
+                }
+            },
+            SUBMIT_WINDOW, ScoreGuard.UPLOAD_BATCH,
+            new Backoff(RETRY_DELAY, MAX_RETRY_DELAY, new Random()),
+            LeaderboardSync.SYSTEM_CLOCK);
+
+    // Keeps a flapping network from reconnecting over and over
+    private final Backoff mConnectBackoff = new Backoff(RETRY_DELAY,
+            MAX_RETRY_DELAY, new Random());
+
+    private final Handler mHandler = new Handler();
+
+    // Posted on connecting, only a connection that stays up resets the
+    // backoff
+    private final Runnable mConnectionHeld = new Runnable() {
+        @Override
+        public void run() {
+            mConnectionHolding = false;
+            if(mGoogleApiClient.isConnected()){
+                mConnectBackoff.succeeded();
+            }
+        }
+    };
 
 
     @Override
@@ -134,6 +223,9 @@ public class OpenGLActivity
         super.onCreate(savedInstanceState);
         setContentView(R.layout.activity_open_gl);
 
+        // Must be fetched on the UI thread, the game posts to it
+        mChoreographer = Choreographer.getInstance();
+
         screenDensity = getDensityDpi();
 
         mConnectivityManager = setUpConnectivityManager();
@@ -155,14 +247,6 @@ public class OpenGLActivity
             loadFromInstance(savedInstanceState);
         } else {
 
-            SharedPreferences sharedPref = getSharedPreferences(
-                    getString(R.string.preference_file_key), Context
-                            .MODE_PRIVATE);
-            highScoreSynced = sharedPref.getBoolean(
-                    getString(R.string.saved_score_sync),
-                    true
-            );
-
             mGameManager = setUpGameManager();
             mScoreView.setText("" + mGameManager.getScore());
 
@@ -181,6 +265,15 @@ public class OpenGLActivity
             mGameManager.setUpSensor(sensorManager);
         } catch (NoSensorException ignore) { }
 
+        // Record the last game in debug builds, to profile it on a desktop,
+        // and log the frame statistics every few seconds
+        if(BuildConfig.DEBUG){
+            mGameManager.setReplayFile(
+                    new File(getExternalFilesDir(null), "last.replay"));
+            mGameManager.setStatsLogging(true);
+            mRenderer.setStatsLogging(true);
+        }
+
         // Load the media player
         SoundPool soundPool = loadSoundPool();
         int blopSoundId = soundPool.load(this, R.raw.blop, 1);
@@ -188,14 +281,22 @@ public class OpenGLActivity
         mGameManager.setSoundPool(soundPool, blopSoundId, jumpSoundId);
 
         mGLView = setUpGLView();
+        updateRenderMode();
         mGoogleApiClient = setUpGoogleApiClient();
 
         setUpSystemVisibility();
 
         mLeaderBoardButton = setUpLeaderBoardButton();
 
-        // Start the game in kiosk mode
-        mGameManager.startNewGame(true);
+        // Continue a game that was saved when the process was killed, or
+        // else start the game in kiosk mode
+        mGameManager.setSnapshotFile(
+                new File(getFilesDir(), "world.snapshot"));
+        if(mGameManager.hasRestoredGame()){
+            mGameManager.continueRestoredGame();
+        } else {
+            mGameManager.startNewGame(true);
+        }
 
     }
 
@@ -230,12 +331,11 @@ public class OpenGLActivity
 
         assert mGameManager != null;
 
-        mGameManager.setListener(mGameWorldListener);
+        mGameManager.setListener(mGameWorldListener, mDrainScheduler);
 
         // Set the renderer for drawing on the OpenGLSurfaceView
         mRenderer = savedInstanceState.getParcelable("mRenderer");
 
-        highScoreSynced = savedInstanceState.getBoolean("highScoreSynced");
 
         int state = mGameManager.getGameState();
         updateUserInterface(state);
@@ -375,12 +475,39 @@ public class OpenGLActivity
         glView.setEGLContextClientVersion(2);
         glView.setPreserveEGLContextOnPause(true);
         glView.setRenderer(mRenderer);
-        glView.setRenderMode(GLSurfaceView.RENDERMODE_WHEN_DIRTY);
+        glView.setRenderMode(GLSurfaceView.RENDERMODE_CONTINUOUSLY);
         glView.setFocusable(true);
 
         return glView;
     }
 
+    /**
+     * Draws the gl view as often as the game loop currently asks for, see
+     * {@link GameManager#getLoopPolicy()}. A game that is parked is drawn
+     * once more, and then left as it is.
+     */
+    private void updateRenderMode() {
+
+        if(mGLView == null){
+            return;
+        }
+
+        long period = mGameManager.getLoopPolicy().getFramePeriod();
+        mChoreographer.removeFrameCallback(mRenderCallback);
+
+        if(period == LoopPolicy.EVERY_FRAME){
+            mGLView.setRenderMode(GLSurfaceView.RENDERMODE_CONTINUOUSLY);
+            return;
+        }
+
+        mGLView.setRenderMode(GLSurfaceView.RENDERMODE_WHEN_DIRTY);
+        mGLView.requestRender();
+
+        if(period != LoopPolicy.NO_FRAMES){
+            mChoreographer.postFrameCallback(mRenderCallback);
+        }
+    }
+
     /**
      * Loads the spund pool, uses {@code new SoundPool(int, int, int)} for
      * older version of the android API.
@@ -427,18 +554,16 @@ public class OpenGLActivity
                 mHomeImage.setVisibility(View.INVISIBLE);
 
                 int score = mGameManager.getScore();
-                int savedScore = ScoreGuard.sharedInstance().getScore();
 
-                // If the new score is bigger then the saved one
-                if(score > savedScore)
-                    ScoreGuard.sharedInstance().saveScore(score);
+                // Saved and logged in the background, if not connected
+                // the game is uploaded once connected
+                ScoreGuard guard = ScoreGuard.sharedInstance();
+                guard.saveHighScore(score);
+                guard.recordGame(score, mGameManager.getDuration(),
+                        mGameManager.getSeed());
 
                 if(mGoogleApiClient.isConnected()){
-                    uploadScore(score);
-                }else{
-
-                    // Try to upload score next time
-                    highScoreSynced = false;
+                    guard.uploadPending(mLeaderBoardUploader);
                 }
                 break;
 
@@ -485,13 +610,32 @@ public class OpenGLActivity
     }
 
     /**
-     * Uploads the players score in to Googel Play High Score.
+     * Uploads the players score in to Googel Play High Score, and waits for
+     * the answer. Must not be called on the UI thread.
      *
      * @param score the score to upload.
+     * @param windowStart the start of the hour the score was played in,
+     *                    sent as the tag of the score.
+     * @throws IOException if the score wasn't submitted.
      */
-    private void uploadScore(int score) {
-        Games.Leaderboards.submitScore(mGoogleApiClient,
-            mLeaderBoardId, score);
+    private void uploadScore(int score, long windowStart)
+            throws IOException {
+
+        Leaderboards.SubmitScoreResult result = Games.Leaderboards
+                .submitScoreImmediate(mGoogleApiClient, mLeaderBoardId,
+                        score, Long.toString(windowStart))
+                .await(SUBMIT_TIMEOUT, TimeUnit.MILLISECONDS);
+
+        try {
+            Status status = result.getStatus();
+            if(!status.isSuccess()){
+                throw new IOException("Score not submitted, status "
+                        + status.getStatusCode() + ": "
+                        + status.getStatusMessage());
+            }
+        } finally {
+            result.release();
+        }
     }
 
     /**
@@ -520,7 +664,7 @@ public class OpenGLActivity
 
         GameManager gameManager = new GameManager();
 
-        gameManager.setListener(mGameWorldListener);
+        gameManager.setListener(mGameWorldListener, mDrainScheduler);
 
         return gameManager;
     }
@@ -543,7 +687,8 @@ public class OpenGLActivity
      */
     private void connectGooglePlay() {
 
-        if(hasInternetConnection() && hasPlayServices()
+        if(mConnectBackoff.isReady(System.currentTimeMillis())
+            && hasInternetConnection() && hasPlayServices()
             && !(mGoogleApiClient.isConnected()
                 || mGoogleApiClient.isConnecting())){
             // Connect
@@ -575,29 +720,17 @@ public class OpenGLActivity
         super.onPause();
     }
 
-    /**
-     *  Stop the game.
-     */
-    @Override
-    protected void onStop() {
-        // Save status of high score synced
-        SharedPreferences sharedPref = getSharedPreferences(
-                getString(R.string.preference_file_key), Context
-                        .MODE_PRIVATE);
-        SharedPreferences.Editor editor = sharedPref.edit();
-        editor.putBoolean(getString(R.string.saved_score_sync),
-                highScoreSynced);
-        editor.commit();
-
-        super.onStop();
-    }
-
     /**
      * Destroy this Game Manager.
      */
     @Override
     protected void onDestroy() {
         mGameManager.destroy();
+        mGameManager.setListener(null, null);
+        mChoreographer.removeFrameCallback(mDrainCallback);
+        mChoreographer.removeFrameCallback(mRenderCallback);
+        mHandler.removeCallbacks(mConnectionHeld);
+        ScoreGuard.sharedInstance().cancelRetry();
         super.onDestroy();
     }
 
@@ -615,6 +748,8 @@ public class OpenGLActivity
 
     @Override
     public void onConnectionFailed(ConnectionResult result) {
+        mConnectBackoff.failed(System.currentTimeMillis());
+
         if (mResolvingError) {
             // Already attempting to resolve an error.
             return;
@@ -692,7 +827,6 @@ public class OpenGLActivity
         outState.putBoolean(STATE_RESOLVING_ERROR, mResolvingError);
         outState.putParcelable("mGameManager", mGameManager);
         outState.putParcelable("mRenderer", mRenderer);
-        outState.putBoolean("highScoreSynced", highScoreSynced);
         super.onSaveInstanceState(outState);
     }
 
@@ -700,15 +834,25 @@ public class OpenGLActivity
     @Override
     public void onConnected(Bundle bundle) {
 
-        if(!highScoreSynced){
-            uploadScore(ScoreGuard.sharedInstance().getScore());
-            highScoreSynced = true;
-        }
+        mHandler.removeCallbacks(mConnectionHeld);
+        mHandler.postDelayed(mConnectionHeld, MIN_CONNECTED_TIME);
+        mConnectionHolding = true;
+
+        // Upload the games played while offline
+        ScoreGuard.sharedInstance().uploadPending(mLeaderBoardUploader);
     }
 
 
     @Override
-    public void onConnectionSuspended(int ignore) {}
+    public void onConnectionSuspended(int ignore) {
+
+        // Dropped before it held, as good as failed
+        if(mConnectionHolding){
+            mConnectionHolding = false;
+            mHandler.removeCallbacks(mConnectionHeld);
+            mConnectBackoff.failed(System.currentTimeMillis());
+        }
+    }
 
     @Override
     public boolean onKeyDown(int keyCode, KeyEvent event) {
@@ -0,0 +1,59 @@
+package com.fredrikux.unitedcolors.benchmarks;
+
+import com.fredrikux.unitedcolors.models.GameRules;
+import com.fredrikux.unitedcolors.utils.Timeline;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks updating one size and one pulse tween per dot on a timeline,
+ * as the point dots do every tick.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class AnimationBenchmark {
+
+    @Param({"50", "1000", "10000", "100000"})
+    public int dotCount;
+
+    private Timeline mTimeline;
+    private long mTimeStep;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        mTimeline = new Timeline(dotCount * 2);
+
+        for (int i = 0; i < dotCount; i++) {
+
+            // Long enough to never complete while benchmarking
+            mTimeline.start(i, 0, 0l, Long.MAX_VALUE / 2, 0.0f, 60.0f,
+                    Timeline.EASE_LINEAR);
+            mTimeline.start(i, 1, 0l, 2 * GameRules.POINT_DOT_PULSE_SPEED,
+                    60.0f, 51.0f, Timeline.EASE_PULSE);
+        }
+    }
+
+    @Benchmark
+    public float updateAnimations() {
+        mTimeline.update(mTimeStep++);
+
+        return mTimeline.getValue(0) + mTimeline.getValue(1);
+    }
+}
@@ -0,0 +1,200 @@
+package com.fredrikux.unitedcolors.benchmarks;
+
+import com.fredrikux.unitedcolors.models.CollisionScheduler;
+import com.fredrikux.unitedcolors.models.DotWorld;
+import com.fredrikux.unitedcolors.models.GameRules;
+import com.fredrikux.unitedcolors.models.Simulation;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the collisions of the player dot, as scheduled ticks of a
+ * game being played and as the schedule on its own, the collision checks
+ * of a single pair of dots run over every dot in the world, and the bounds
+ * check run over every dot in the world.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CollisionBenchmark {
+
+    private static final float WIDTH = WorldState.WIDTH;
+    private static final float HEIGHT = WorldState.HEIGHT;
+
+    /**
+     * A world with a player dot, which is steered around and collects the
+     * dots it runs in to.
+     */
+    @State(Scope.Thread)
+    public static class PlayingState extends WorldState {
+
+        @Override
+        protected boolean isKioskMode() {
+            return false;
+        }
+    }
+
+    /**
+     * A schedule of {@code dotCount} entries, due at random gaps like the
+     * dots of a world.
+     */
+    @State(Scope.Thread)
+    public static class SchedulerState {
+
+        // The travel the player and the dots cover in a tick, and the
+        // gaps up to about a screen apart, in sixteenths of a pixel
+        public static final long TRAVEL_PER_TICK = 16 * 20;
+        public static final int MAX_GAP = 16 * 2000;
+
+        @Param({"50", "1000", "10000", "100000"})
+        public int dotCount;
+
+        public CollisionScheduler scheduler;
+        public Random random;
+        public long travel;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            scheduler = new CollisionScheduler(dotCount);
+            random = new Random(WorldState.SEED);
+            travel = 0l;
+
+            for (int id = 0; id < dotCount; id++) {
+                scheduler.schedule(id, random.nextInt(MAX_GAP));
+            }
+        }
+    }
+
+    /**
+     * Gets the x-coordinate of a player dot steered around the world, at
+     * provided time step.
+     */
+    private static float playerX(long step) {
+        return WorldState.WIDTH * (0.5f + (float) Math.sin(step * 0.05) / 3);
+    }
+
+    /**
+     * Gets the y-coordinate of a player dot steered around the world, at
+     * provided time step.
+     */
+    private static float playerY(long step) {
+        return WorldState.HEIGHT * (0.5f + (float) Math.cos(step * 0.03) / 3);
+    }
+
+    @Benchmark
+    public int isPointOnDot(WorldState state) {
+        DotWorld world = state.simulation.getWorld();
+        long step = state.step++;
+        float size = GameRules.PLAYER_DOT_SIZE_RATIO * WorldState.DENSITY;
+        float x = playerX(step);
+        float y = playerY(step);
+
+        // Every dot where it is at the end of the tick, the way a tick
+        // checked them before the collisions were scheduled
+        int hits = 0;
+        for (int i = 0; i < world.size(); i++) {
+            if (Simulation.isPointOnDot(x, y, size,
+                    world.getX(i, step, WIDTH), world.getY(i, step, HEIGHT),
+                    world.size[i])) {
+                hits++;
+            }
+        }
+
+        return hits;
+    }
+
+    @Benchmark
+    public int didTouch(WorldState state) {
+        DotWorld world = state.simulation.getWorld();
+        long from = state.step++;
+        long to = from + 1;
+        float size = GameRules.PLAYER_DOT_SIZE_RATIO * WorldState.DENSITY;
+        float fromX = playerX(from);
+        float fromY = playerY(from);
+        float toX = playerX(to);
+        float toY = playerY(to);
+
+        // Every dot swept over the tick, the check a due dot gets
+        int hits = 0;
+        for (int i = 0; i < world.size(); i++) {
+            if (Simulation.didTouch(fromX, fromY, toX, toY, size,
+                    world.getX(i, from, WIDTH), world.getY(i, from, HEIGHT),
+                    world.getX(i, to, WIDTH), world.getY(i, to, HEIGHT),
+                    world.size[i])) {
+                hits++;
+            }
+        }
+
+        return hits;
+    }
+
+    @Benchmark
+    public int getOutOfScreenEdges(WorldState state) {
+        Simulation simulation = state.simulation;
+        DotWorld world = simulation.getWorld();
+        long step = state.step++;
+
+        int edges = 0;
+        for (int i = 0; i < world.size(); i++) {
+            edges |= Simulation.getOutOfScreenEdges(
+                    world.getX(i, step, WIDTH), world.getY(i, step, HEIGHT),
+                    world.size[i], simulation.getConfig());
+        }
+
+        return edges;
+    }
+
+    @Benchmark
+    public int playingTick(PlayingState state) {
+        Simulation simulation = state.simulation;
+        long tick = simulation.getTimeStep();
+
+        // Steered around, so the travel of the schedule grows like in a
+        // real game
+        simulation.step((float) Math.sin(tick * 0.05) * 0.5f,
+                (float) Math.cos(tick * 0.03) * 0.5f);
+        int checks = simulation.getCollisionCheckCount();
+
+        // Replace the collected dots, or the world would run empty
+        while (simulation.getDotCount() < state.dotCount) {
+            simulation.createRandomDot(state.dotSize, WorldState.WIDTH,
+                    WorldState.HEIGHT);
+        }
+
+        return checks;
+    }
+
+    @Benchmark
+    public int rescheduleDue(SchedulerState state) {
+        CollisionScheduler scheduler = state.scheduler;
+        state.travel += SchedulerState.TRAVEL_PER_TICK;
+        long travel = state.travel;
+
+        // Every due entry is found apart and checked again later
+        int polled = 0;
+        int id;
+        while ((id = scheduler.pollDue(travel)) != CollisionScheduler.NONE) {
+            scheduler.schedule(id, travel + 1
+                    + state.random.nextInt(SchedulerState.MAX_GAP));
+            polled++;
+        }
+
+        return polled;
+    }
+}
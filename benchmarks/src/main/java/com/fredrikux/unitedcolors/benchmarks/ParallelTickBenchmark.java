@@ -0,0 +1,71 @@
+package com.fredrikux.unitedcolors.benchmarks;
+
+import com.fredrikux.unitedcolors.models.RenderFrame;
+import com.fredrikux.unitedcolors.utils.ChunkExecutor;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the ticks that give every plain dot a new origin, on one or
+ * more threads. Those are the ticks where the step base of the frames
+ * moves, once every {@code RenderFrame.STEP_BASE_INTERVAL} time steps, and
+ * the ones where the world changes size. Worlds smaller than two chunks
+ * are always rebased on the calling thread.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ParallelTickBenchmark {
+
+    /**
+     * A world rebased by {@code threads} threads.
+     */
+    @State(Scope.Thread)
+    public static class ParallelState extends WorldState {
+
+        @Param({"1", "2", "4"})
+        public int threads;
+
+        public ChunkExecutor executor;
+
+        @Setup(Level.Trial)
+        public void setUpExecutor() {
+            if (threads > 1) {
+                executor = new ChunkExecutor(threads, "Benchmark worker");
+                simulation.setExecutor(executor);
+            }
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDownExecutor() {
+            if (executor != null) {
+                executor.shutdown();
+            }
+        }
+    }
+
+    @Benchmark
+    public void rebasingTick(ParallelState state) {
+
+        // The last step before the next step base, so the tick moves it
+        long interval = RenderFrame.STEP_BASE_INTERVAL;
+        state.step = (state.step / interval + 1) * interval - 1;
+        state.simulation.updateDots(state.step++);
+    }
+}
@@ -0,0 +1,86 @@
+package com.fredrikux.unitedcolors.benchmarks;
+
+import com.fredrikux.unitedcolors.models.Replay;
+import com.fredrikux.unitedcolors.models.Simulation;
+
+import java.io.BufferedInputStream;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+/**
+ * Plays a recorded game headless, as fast as possible, and prints the
+ * distribution of the tick times. Run it with:
+ * ./gradlew :benchmarks:replay -Preplay=path/to/last.replay
+ */
+public class ReplayRunner {
+
+    private static final int DEFAULT_RUNS = 5;
+
+    public static void main(String[] args) throws IOException {
+
+        if (args.length < 1) {
+            System.err.println("Usage: ReplayRunner <replay file> [runs]");
+            System.exit(1);
+        }
+
+        Replay replay;
+        InputStream in = new BufferedInputStream(new FileInputStream(args[0]));
+        try {
+            replay = Replay.read(in);
+        } finally {
+            in.close();
+        }
+
+        int runs = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_RUNS;
+        int ticks = replay.getTickCount();
+        long[] times = new long[ticks];
+
+        System.out.printf("%d ticks, %dx%d, density %.1f, seed %d%n", ticks,
+                replay.width, replay.height, replay.density, replay.seed);
+
+        // The first runs warm up the JIT, the last one is reported
+        for (int run = 0; run < runs; run++) {
+            Simulation simulation = replay.createSimulation();
+
+            for (int tick = 0; tick < ticks; tick++) {
+                long start = System.nanoTime();
+                replay.playTick(simulation, tick);
+                times[tick] = System.nanoTime() - start;
+            }
+
+            System.out.printf("run %d: score %d, %d dots left%n", run,
+                    simulation.getScore(), simulation.getDotCount());
+        }
+
+        printDistribution(times);
+    }
+
+    private static void printDistribution(long[] times) {
+
+        if (times.length == 0) {
+            return;
+        }
+
+        long[] sorted = Arrays.copyOf(times, times.length);
+        Arrays.sort(sorted);
+
+        long total = 0l;
+        for (long time : sorted) {
+            total += time;
+        }
+
+        System.out.printf("tick us: mean %.2f, p50 %.2f, p90 %.2f, "
+                        + "p99 %.2f, p99.9 %.2f, max %.2f%n",
+                total / 1000.0 / sorted.length,
+                percentile(sorted, 0.5), percentile(sorted, 0.9),
+                percentile(sorted, 0.99), percentile(sorted, 0.999),
+                sorted[sorted.length - 1] / 1000.0);
+    }
+
+    private static double percentile(long[] sorted, double fraction) {
+        int index = (int) Math.ceil(fraction * sorted.length) - 1;
+        return sorted[Math.max(0, index)] / 1000.0;
+    }
+}
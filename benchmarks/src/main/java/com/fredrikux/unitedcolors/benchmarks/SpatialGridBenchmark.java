@@ -0,0 +1,159 @@
+package com.fredrikux.unitedcolors.benchmarks;
+
+import com.fredrikux.unitedcolors.models.DotWorld;
+import com.fredrikux.unitedcolors.models.GameRules;
+import com.fredrikux.unitedcolors.models.Simulation;
+import com.fredrikux.unitedcolors.models.SpatialGrid;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the spatial grid against a linear scan of the same dots, both
+ * for the radius query of a player dot and for finding every pair of
+ * overlapping dots, and what it costs to bring the grid up to date with
+ * the moving dots before it is queried.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SpatialGridBenchmark {
+
+    /**
+     * A world of {@code dotCount} small dots at random spots, with their
+     * positions in a grid and in plain arrays for the scan.
+     */
+    @State(Scope.Thread)
+    public static class GridState {
+
+        public static final float PLAYER_SIZE
+                = GameRules.PLAYER_DOT_SIZE_RATIO * WorldState.DENSITY;
+
+        @Param({"200", "2000", "20000"})
+        public int dotCount;
+
+        public DotWorld world;
+        public SpatialGrid grid;
+        public float[] x;
+        public float[] y;
+        public int[] found;
+        public Random random;
+        public long step;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            world = new DotWorld(dotCount);
+            grid = new SpatialGrid(dotCount, PLAYER_SIZE);
+            grid.resize(WorldState.WIDTH, WorldState.HEIGHT);
+            x = new float[dotCount];
+            y = new float[dotCount];
+            found = new int[dotCount];
+            random = new Random(WorldState.SEED);
+            step = 0l;
+
+            float size = GameRules.SMALL_DOT_SIZE_RATIO * WorldState.DENSITY;
+            float speed = GameRules.SMALL_DOT_SPEED_RATIO * WorldState.DENSITY;
+            for (int i = 0; i < dotCount; i++) {
+                double angle = random.nextDouble() * 2.0 * Math.PI;
+                world.add(DotWorld.KIND_SMALL,
+                        random.nextFloat() * WorldState.WIDTH,
+                        random.nextFloat() * WorldState.HEIGHT,
+                        (float) Math.cos(angle), (float) Math.sin(angle),
+                        speed, size, 0, 0l);
+
+                x[i] = world.originX[i];
+                y[i] = world.originY[i];
+                grid.insert(i, x[i], y[i], size / 2.0f);
+            }
+        }
+    }
+
+    @Benchmark
+    public int queryGrid(GridState state) {
+        float x = state.random.nextFloat() * WorldState.WIDTH;
+        float y = state.random.nextFloat() * WorldState.HEIGHT;
+
+        return state.grid.queryRadius(x, y, GridState.PLAYER_SIZE / 2.0f,
+                state.found);
+    }
+
+    @Benchmark
+    public int queryScan(GridState state) {
+        float x = state.random.nextFloat() * WorldState.WIDTH;
+        float y = state.random.nextFloat() * WorldState.HEIGHT;
+        DotWorld world = state.world;
+
+        int found = 0;
+        for (int i = 0; i < world.size(); i++) {
+            if (Simulation.isPointOnDot(x, y, GridState.PLAYER_SIZE,
+                    state.x[i], state.y[i], world.size[i])) {
+                state.found[found++] = i;
+            }
+        }
+
+        return found;
+    }
+
+    @Benchmark
+    public int overlapGrid(GridState state) {
+        final int[] pairs = new int[1];
+        state.grid.forEachOverlap(new SpatialGrid.IOverlapListener() {
+            @Override
+            public void onOverlap(int a, int b) {
+                pairs[0]++;
+            }
+        });
+
+        return pairs[0];
+    }
+
+    @Benchmark
+    public int overlapScan(GridState state) {
+        DotWorld world = state.world;
+        float[] x = state.x;
+        float[] y = state.y;
+
+        int pairs = 0;
+        for (int a = 0; a < world.size(); a++) {
+            for (int b = a + 1; b < world.size(); b++) {
+                if (Simulation.isPointOnDot(x[a], y[a], world.size[a],
+                        x[b], y[b], world.size[b])) {
+                    pairs++;
+                }
+            }
+        }
+
+        return pairs;
+    }
+
+    @Benchmark
+    public SpatialGrid refreshGrid(GridState state) {
+        DotWorld world = state.world;
+        SpatialGrid grid = state.grid;
+        long step = ++state.step;
+
+        // What the simulation does once for a tick the grid is asked in
+        for (int i = 0; i < world.size(); i++) {
+            grid.update(i, world.getX(i, step, WorldState.WIDTH),
+                    world.getY(i, step, WorldState.HEIGHT),
+                    world.size[i] / 2.0f);
+        }
+
+        return grid;
+    }
+}
@@ -0,0 +1,36 @@
+package com.fredrikux.unitedcolors.benchmarks;
+
+import com.fredrikux.unitedcolors.models.Simulation;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks spawning a small dot. The dot is removed again right away to
+ * keep the world at the same size.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SpawnBenchmark {
+
+    @Benchmark
+    public int createRandomDot(WorldState state) {
+        Simulation simulation = state.simulation;
+
+        simulation.removeDot(simulation.getDotCount() - 1);
+        simulation.createRandomDot(state.dotSize, WorldState.WIDTH,
+                WorldState.HEIGHT);
+
+        return simulation.getDotCount();
+    }
+}
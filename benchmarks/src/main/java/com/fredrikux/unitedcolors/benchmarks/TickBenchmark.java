@@ -0,0 +1,40 @@
+package com.fredrikux.unitedcolors.benchmarks;
+
+import com.fredrikux.unitedcolors.models.RenderFrame;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of a whole game tick and of its phases.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TickBenchmark {
+
+    @Benchmark
+    public void updateGame(WorldState state) {
+        state.simulation.step();
+    }
+
+    @Benchmark
+    public void updateDots(WorldState state) {
+        state.simulation.updateDots(state.step++);
+    }
+
+    @Benchmark
+    public RenderFrame packRenderArrays(WorldState state) {
+        state.simulation.packRenderArrays(state.frame);
+        return state.frame;
+    }
+}
@@ -0,0 +1,65 @@
+package com.fredrikux.unitedcolors.benchmarks;
+
+import com.fredrikux.unitedcolors.models.GameRules;
+import com.fredrikux.unitedcolors.models.RenderFrame;
+import com.fredrikux.unitedcolors.models.Simulation;
+import com.fredrikux.unitedcolors.models.WorldConfig;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * A simulation filled with {@code dotCount} small dots. By default it runs
+ * in kiosk mode, which doesn't spawn any more dots once the world is
+ * populated, so the number of dots stays the same while benchmarking.
+ */
+@State(Scope.Thread)
+public class WorldState {
+
+    public static final int WIDTH = 1080;
+    public static final int HEIGHT = 1920;
+    public static final float DENSITY = 480.0f;
+    public static final long SEED = 4711l;
+
+    @Param({"50", "1000", "10000", "100000"})
+    public int dotCount;
+
+    public Simulation simulation;
+    public RenderFrame frame;
+    public float dotSize;
+
+    // The time step the next benchmarked call moves the world to
+    public long step;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        simulation = new Simulation(
+                new WorldConfig(WIDTH, HEIGHT, DENSITY, dotCount), SEED);
+        simulation.reset(isKioskMode());
+        frame = new RenderFrame(dotCount);
+
+        dotSize = GameRules.SMALL_DOT_SIZE_RATIO * DENSITY;
+        while (simulation.getDotCount() < dotCount) {
+            simulation.createRandomDot(dotSize, WIDTH, HEIGHT);
+        }
+
+        // Spread the dots over the world
+        for (int i = 0; i < 100; i++) {
+            simulation.step();
+        }
+        step = simulation.getTimeStep();
+    }
+
+    /**
+     * Checks to see if the simulation should run in kiosk mode, without a
+     * player dot.
+     *
+     * @return true for kiosk mode.
+     */
+    protected boolean isKioskMode() {
+        return true;
+    }
+}
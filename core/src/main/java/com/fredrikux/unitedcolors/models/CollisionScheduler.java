@@ -0,0 +1,278 @@
+package com.fredrikux.unitedcolors.models;
+
+/**
+ * Schedules when each dot next has to be checked against the player dot.
+ * The gap between a dot and the player dot can't close faster than the dot
+ * and the player dot move, so the schedule runs on travel instead of time:
+ * the speed of the fastest dot plus the distance the player dot moved,
+ * summed up over the time steps. A dot that is checked and found apart is
+ * not checked again until the travel has grown by the gap, which is when
+ * the two first could have met. Travel is kept in fixed point, rounded
+ * towards checking early.
+ *
+ * The dots are kept in a binary min-heap ordered by the travel they are
+ * due at, with every entry identified by the index of the dot in the
+ * {@link DotWorld}, so each time step only the dots that are due are
+ * visited. Like the {@link DotWorld} the heap is kept in primitive
+ * arrays, and it follows the swap-removal of the world.
+ */
+public class CollisionScheduler {
+
+    /*
+     * STATIC FINAL FIELDS
+     */
+    // Returned when no entry is due
+    public static final int NONE = -1;
+
+    // Travel is counted in sixteenths of a pixel
+    public static final float TRAVEL_SCALE = 16.0f;
+
+    // Taken off every gap, more than the rounding of the positions
+    public static final float GAP_TOLERANCE = 0.5f;
+
+    /*
+     * FINAL FIELDS
+     */
+    private final int[] mHeap;
+    private final int[] mPosition;
+    private final long[] mDue;
+
+    /*
+     * OTHER FIELDS
+     */
+    private int mCount = 0;
+
+    /**
+     * Creates a CollisionScheduler-object.
+     *
+     * @param capacity the highest id plus one that can be scheduled.
+     */
+    public CollisionScheduler(final int capacity){
+        mHeap = new int[capacity];
+        mPosition = new int[capacity];
+        mDue = new long[capacity];
+
+        for(int id = 0; id < capacity; id++){
+            mPosition[id] = NONE;
+        }
+    }
+
+    /**
+     * Gets how much travel the gap between two circles is sure to stay open
+     * for, rounded down.
+     *
+     * @param distance the distance between the centers.
+     * @param reach the sum of the radii.
+     * @return the travel, 0 if the circles touch or almost do.
+     */
+    public static long getGapTravel(final float distance, final float reach){
+
+        final float gap = distance - reach - GAP_TOLERANCE;
+        if(gap <= 0.0f){
+            return 0l;
+        }
+
+        return (long) Math.floor(gap * TRAVEL_SCALE);
+    }
+
+    /**
+     * Gets the travel of a distance moved, rounded up.
+     *
+     * @param distance the distance moved.
+     * @return the travel.
+     */
+    public static long getMovedTravel(final float distance){
+        return (long) Math.ceil(distance * TRAVEL_SCALE) + 1l;
+    }
+
+    /**
+     * Schedules an entry, or reschedules it if it is already scheduled.
+     *
+     * @param id the id of the entry.
+     * @param due the travel to check the entry at.
+     */
+    public void schedule(final int id, final long due){
+
+        if(mPosition[id] == NONE){
+            mPosition[id] = mCount;
+            mHeap[mCount++] = id;
+            mDue[id] = due;
+            siftUp(mPosition[id]);
+            return;
+        }
+
+        final long old = mDue[id];
+        mDue[id] = due;
+        if(due < old){
+            siftUp(mPosition[id]);
+        } else {
+            siftDown(mPosition[id]);
+        }
+    }
+
+    /**
+     * Takes the next entry that is due at or before provided travel off the
+     * schedule.
+     *
+     * @param travel the current travel.
+     * @return the id of the entry, or {@code NONE} if no entry is due.
+     */
+    public int pollDue(final long travel){
+
+        if(mCount == 0 || mDue[mHeap[0]] > travel){
+            return NONE;
+        }
+
+        final int id = mHeap[0];
+        remove(id);
+        return id;
+    }
+
+    /**
+     * Takes an entry off the schedule, if it is scheduled.
+     *
+     * @param id the id of the entry.
+     */
+    public void remove(final int id){
+
+        final int position = mPosition[id];
+        if(position == NONE){
+            return;
+        }
+
+        mPosition[id] = NONE;
+        final int last = mHeap[--mCount];
+        if(position == mCount){
+            return;
+        }
+
+        // The last entry takes the place of the removed one
+        mHeap[position] = last;
+        mPosition[last] = position;
+        siftUp(position);
+        siftDown(mPosition[last]);
+    }
+
+    /**
+     * Gives an entry a new id, used together with the swap-removal of the
+     * {@link DotWorld}. The new id must not be in use.
+     *
+     * @param from the current id of the entry.
+     * @param to the new id of the entry.
+     */
+    public void move(final int from, final int to){
+
+        final int position = mPosition[from];
+        if(from == to || position == NONE){
+            return;
+        }
+
+        mPosition[from] = NONE;
+        mPosition[to] = position;
+        mHeap[position] = to;
+        mDue[to] = mDue[from];
+    }
+
+    /**
+     * Makes every scheduled entry due at provided travel, for when the
+     * schedule can no longer be trusted.
+     *
+     * @param travel the travel to check all entries at.
+     */
+    public void scheduleAll(final long travel){
+
+        // All entries are equal, which is a heap in any order
+        for(int i = 0; i < mCount; i++){
+            mDue[mHeap[i]] = travel;
+        }
+    }
+
+    /**
+     * Takes every entry off the schedule.
+     */
+    public void clear(){
+        for(int i = 0; i < mCount; i++){
+            mPosition[mHeap[i]] = NONE;
+        }
+        mCount = 0;
+    }
+
+    /**
+     * Checks to see if an entry is scheduled.
+     *
+     * @param id the id of the entry.
+     * @return true if the entry is scheduled.
+     */
+    public boolean isScheduled(final int id){
+        return mPosition[id] != NONE;
+    }
+
+    /**
+     * Gets the travel an entry is due at.
+     *
+     * @param id the id of a scheduled entry.
+     * @return the travel.
+     */
+    public long getDue(final int id){
+        return mDue[id];
+    }
+
+    /**
+     * Gets the number of scheduled entries.
+     * @return the number of entries.
+     */
+    public int size(){
+        return mCount;
+    }
+
+    private void siftUp(int position){
+
+        final int id = mHeap[position];
+        final long due = mDue[id];
+
+        while(position > 0){
+            final int parent = (position - 1) >> 1;
+            final int above = mHeap[parent];
+            if(mDue[above] <= due){
+                break;
+            }
+
+            mHeap[position] = above;
+            mPosition[above] = position;
+            position = parent;
+        }
+
+        mHeap[position] = id;
+        mPosition[id] = position;
+    }
+
+    private void siftDown(int position){
+
+        final int id = mHeap[position];
+        final long due = mDue[id];
+
+        while(true){
+            int child = 2 * position + 1;
+            if(child >= mCount){
+                break;
+            }
+
+            if(child + 1 < mCount && mDue[mHeap[child + 1]]
+                    < mDue[mHeap[child]]){
+                child++;
+            }
+
+            final int below = mHeap[child];
+            if(mDue[below] >= due){
+                break;
+            }
+
+            mHeap[position] = below;
+            mPosition[below] = position;
+            position = child;
+        }
+
+        mHeap[position] = id;
+        mPosition[id] = position;
+    }
+}
@@ -0,0 +1,152 @@
+package com.fredrikux.unitedcolors.models;
+
+import java.nio.ByteBuffer;
+
+/**
+ * A class representing a single dot, the dot contains information about its
+ * position, size, velocity and direction.
+ */
+public class Dot {
+
+    private static int ID = 0;
+
+    public final int id = ID++;
+    public float x;
+    public float y;
+    public float vx = .0f;
+    public float vy = .0f;
+    public int color;
+    private float size;
+    public float velocity;
+    private boolean remove = false;
+
+    /**
+     * Create a dot int preferred size, with a set direction, color, size and
+     * velocity.
+     *
+     * @param x the x-coordinate of this Dot-object.
+     * @param y the y-coordinate of this Dot-object.
+     * @param vx the x-part of the direction this dot will move.
+     * @param vy the y-part of the direction this dot will move.
+     * @param color what color the dot should have.
+     * @param size the size of the dot.
+     * @param velocity the speed of the dot.
+     */
+    public Dot(final float x, final float y, final float vx, final float vy,
+               final int color, final float size, final float velocity){
+        this.x = x;
+        this.y = y;
+        this.vx = vx;
+        this.vy = vy;
+        this.color = color;
+        this.size = size;
+        this.velocity = velocity;
+    }
+
+    /**
+     * Resets the dot to the state of a newly created dot, so it can be
+     * reused instead of creating a new one.
+     *
+     * @param x the x-coordinate of this Dot-object.
+     * @param y the y-coordinate of this Dot-object.
+     * @param vx the x-part of the direction this dot will move.
+     * @param vy the y-part of the direction this dot will move.
+     * @param color what color the dot should have.
+     * @param size the size of the dot.
+     * @param velocity the speed of the dot.
+     */
+    protected void reset(final float x, final float y, final float vx,
+                         final float vy, final int color, final float size,
+                         final float velocity){
+        this.x = x;
+        this.y = y;
+        this.vx = vx;
+        this.vy = vy;
+        this.color = color;
+        this.size = size;
+        this.velocity = velocity;
+        this.remove = false;
+    }
+
+    /**
+     * Writes the state of the dot to provided buffer, to be restored by
+     * {@code readState(ByteBuffer)}.
+     *
+     * @param out the buffer to write to.
+     */
+    public void writeState(ByteBuffer out){
+        out.putFloat(x);
+        out.putFloat(y);
+        out.putFloat(vx);
+        out.putFloat(vy);
+        out.putInt(color);
+        out.putFloat(size);
+        out.putFloat(velocity);
+        out.put((byte) (remove ? 1 : 0));
+    }
+
+    /**
+     * Restores the state written by {@code writeState(ByteBuffer)}.
+     *
+     * @param in the buffer to read from.
+     */
+    public void readState(ByteBuffer in){
+        x = in.getFloat();
+        y = in.getFloat();
+        vx = in.getFloat();
+        vy = in.getFloat();
+        color = in.getInt();
+        size = in.getFloat();
+        velocity = in.getFloat();
+        remove = in.get() != 0;
+    }
+
+    /**
+     * Update the dot with its new position.
+     *
+     * @param timeStep the current time step of the game loop.
+     */
+    public void update(long timeStep){
+
+        this.x += vx * velocity;
+        this.y += vy * velocity;
+
+    }
+
+    /**
+     * Sets the size of the dot.
+     *
+     * @param size the size to set the dot to.
+     */
+    public void setSize(float size){
+
+        this.size = size;
+    }
+
+    /**
+     * Fetches the curretn size of this dot.
+     *
+     * @return the dots size.
+     */
+    public float getSize(){
+        return size;
+    }
+
+    /**
+     * Flags this dot for removal, so the game loop know when to remove this
+     * dot.
+     * @param timeStep the current game loop time step
+     */
+    public void flagForRemoval(long timeStep){
+        remove = true;
+    }
+
+    /**
+     * Checks to see if the dot it ready to be removed.
+     *
+     * @return true if the element is ready to be removed, false otherwise.
+     */
+    public boolean isFlaggedForRemoval(){
+        return remove;
+    }
+}
@@ -0,0 +1,336 @@
+package com.fredrikux.unitedcolors.models;
+
+import java.nio.ByteBuffer;
+
+/**
+ * A structure of arrays holding every dot in the game world. Each property
+ * of a dot is stored in its own primitive column and a dot is identified by
+ * its index in the columns. Removing a dot moves the last dot in to the
+ * removed index, so the columns are always packed from index zero to
+ * {@code size() - 1}.
+ *
+ * Every dot moves from the origin it had at its origin time step along its
+ * direction at that time, so no position is stored: the position at any
+ * time step is computed from the motion when it is asked for. The plain
+ * dots bounce off the walls by {@link LinearMotion}, the others are given
+ * a new motion whenever they change course.
+ */
+public class DotWorld {
+
+    /*
+     * STATIC FINAL FIELDS
+     */
+    public static final int KIND_SMALL = 0;
+    public static final int KIND_POINT = 1;
+    public static final int KIND_PLAYER = 2;
+
+    public static final int FLAG_REMOVE = 1;
+
+    // The bytes one dot takes in a saved state, one per column
+    public static final int BYTES_PER_DOT = 9 * 4 + 8;
+
+    /*
+     * FINAL FIELDS
+     */
+    public final float[] vx;
+    public final float[] vy;
+    public final float[] velocity;
+    public final float[] size;
+    public final int[] color;
+    public final int[] flags;
+    public final int[] kind;
+    public final float[] originX;
+    public final float[] originY;
+    public final long[] originStep;
+
+    private final int capacity;
+
+    /*
+     * OTHER FIELDS
+     */
+    private int count = 0;
+
+    /**
+     * Creates a DotWorld-object which can hold up to {@code capacity} dots.
+     *
+     * @param capacity the maximum number of dots in this world.
+     */
+    public DotWorld(final int capacity){
+        this.capacity = capacity;
+
+        vx = new float[capacity];
+        vy = new float[capacity];
+        velocity = new float[capacity];
+        size = new float[capacity];
+        color = new int[capacity];
+        flags = new int[capacity];
+        kind = new int[capacity];
+        originX = new float[capacity];
+        originY = new float[capacity];
+        originStep = new long[capacity];
+    }
+
+    /**
+     * Adds a dot to the end of the world.
+     *
+     * @param kind what kind of dot, one of the KIND_-constants.
+     * @param x the x-coordinate of the origin of the dot.
+     * @param y the y-coordinate of the origin of the dot.
+     * @param vx the x-part of the direction of the dot.
+     * @param vy the y-part of the direction of the dot.
+     * @param velocity the speed of the dot.
+     * @param size the size of the dot.
+     * @param color the color of the dot.
+     * @param step the time step the dot is at the position, its origin.
+     * @return the index of the new dot, or -1 if the world is full.
+     */
+    public int add(final int kind, final float x, final float y,
+                   final float vx, final float vy, final float velocity,
+                   final float size, final int color, final long step){
+
+        // If the world is full, don't add any more.
+        if(count >= capacity){
+            return -1;
+        }
+
+        final int i = count++;
+
+        this.vx[i] = vx;
+        this.vy[i] = vy;
+        this.velocity[i] = velocity;
+        this.size[i] = size;
+        this.color[i] = color;
+        this.flags[i] = 0;
+        this.kind[i] = kind;
+        this.originX[i] = x;
+        this.originY[i] = y;
+        this.originStep[i] = step;
+
+        return i;
+    }
+
+    /**
+     * Removes the dot at provided index by moving the last dot in to its
+     * place.
+     *
+     * @param index the index of the dot to remove.
+     * @return the index the moved dot had before the removal, which equals
+     * {@code index} if the removed dot was the last one.
+     */
+    public int remove(final int index){
+
+        final int last = --count;
+
+        // Move the last dot in to the hole
+        if(index != last){
+            vx[index] = vx[last];
+            vy[index] = vy[last];
+            velocity[index] = velocity[last];
+            size[index] = size[last];
+            color[index] = color[last];
+            flags[index] = flags[last];
+            kind[index] = kind[last];
+            originX[index] = originX[last];
+            originY[index] = originY[last];
+            originStep[index] = originStep[last];
+        }
+
+        return last;
+    }
+
+    /**
+     * Gets the x-coordinate of the dot at provided index at provided time
+     * step.
+     *
+     * @param index the index of the dot.
+     * @param step the time step.
+     * @param width the width of the world the dot moves in.
+     * @return the x-coordinate.
+     */
+    public float getX(final int index, final long step, final float width){
+        return getPosition(index, originX[index], vx[index], step, width);
+    }
+
+    /**
+     * Gets the y-coordinate of the dot at provided index at provided time
+     * step.
+     *
+     * @param index the index of the dot.
+     * @param step the time step.
+     * @param height the height of the world the dot moves in.
+     * @return the y-coordinate.
+     */
+    public float getY(final int index, final long step, final float height){
+        return getPosition(index, originY[index], vy[index], step, height);
+    }
+
+    private float getPosition(final int index, final float origin,
+                              final float direction, final long step,
+                              final float span){
+
+        final long elapsed = step - originStep[index];
+        final float speed = direction * velocity[index];
+
+        // Only the plain dots bounce off the walls
+        if(kind[index] != KIND_SMALL){
+            return origin + speed * (float) elapsed;
+        }
+
+        final float half = size[index] / 2.0f;
+        return LinearMotion.position(origin, speed, elapsed, half,
+                span - half);
+    }
+
+    /**
+     * Gives the dot at provided index a new motion, from provided origin
+     * along provided direction.
+     *
+     * @param index the index of the dot.
+     * @param x the x-coordinate of the origin.
+     * @param y the y-coordinate of the origin.
+     * @param vx the x-part of the direction.
+     * @param vy the y-part of the direction.
+     * @param step the time step the dot is at the origin.
+     */
+    public void setMotion(final int index, final float x, final float y,
+                          final float vx, final float vy, final long step){
+        originX[index] = x;
+        originY[index] = y;
+        this.vx[index] = vx;
+        this.vy[index] = vy;
+        originStep[index] = step;
+    }
+
+    /**
+     * Makes the position of the plain dot at provided index at provided
+     * time step its origin, with the direction it moves in at that time,
+     * so it goes on the same in a world of another size and the time since
+     * its origin stays small.
+     *
+     * @param index the index of the dot.
+     * @param step the time step of the new origin.
+     * @param width the width of the world the dot moved in.
+     * @param height the height of the world the dot moved in.
+     */
+    public void rebase(final int index, final long step, final float width,
+                       final float height){
+
+        final float x = getX(index, step, width);
+        final float y = getY(index, step, height);
+        final long elapsed = step - originStep[index];
+        final float half = size[index] / 2.0f;
+        final float speed = velocity[index];
+
+        vx[index] *= LinearMotion.slope(originX[index]
+                + vx[index] * speed * (float) elapsed, half, width - half);
+        vy[index] *= LinearMotion.slope(originY[index]
+                + vy[index] * speed * (float) elapsed, half, height - half);
+
+        originX[index] = x;
+        originY[index] = y;
+        originStep[index] = step;
+    }
+
+    /**
+     * Writes every dot to provided buffer, column by column, to be restored
+     * by {@code readState(ByteBuffer)}.
+     *
+     * @param out the buffer to write to.
+     */
+    public void writeState(final ByteBuffer out){
+
+        out.putInt(count);
+
+        putFloats(out, vx);
+        putFloats(out, vy);
+        putFloats(out, velocity);
+        putFloats(out, size);
+        putInts(out, color);
+        putInts(out, flags);
+        putInts(out, kind);
+        putFloats(out, originX);
+        putFloats(out, originY);
+        for(int i = 0; i < count; i++){
+            out.putLong(originStep[i]);
+        }
+    }
+
+    /**
+     * Replaces every dot with the ones written by
+     * {@code writeState(ByteBuffer)}.
+     *
+     * @param in the buffer to read from.
+     * @throws IllegalArgumentException if the dots don't fit in this world.
+     */
+    public void readState(final ByteBuffer in){
+
+        final int saved = in.getInt();
+        if(saved < 0 || saved > capacity){
+            throw new IllegalArgumentException("Can't fit " + saved
+                    + " dots in a world of " + capacity);
+        }
+        count = saved;
+
+        getFloats(in, vx);
+        getFloats(in, vy);
+        getFloats(in, velocity);
+        getFloats(in, size);
+        getInts(in, color);
+        getInts(in, flags);
+        getInts(in, kind);
+        getFloats(in, originX);
+        getFloats(in, originY);
+        for(int i = 0; i < count; i++){
+            originStep[i] = in.getLong();
+        }
+    }
+
+    private void putFloats(final ByteBuffer out, final float[] column){
+        for(int i = 0; i < count; i++){
+            out.putFloat(column[i]);
+        }
+    }
+
+    private void putInts(final ByteBuffer out, final int[] column){
+        for(int i = 0; i < count; i++){
+            out.putInt(column[i]);
+        }
+    }
+
+    private void getFloats(final ByteBuffer in, final float[] column){
+        for(int i = 0; i < count; i++){
+            column[i] = in.getFloat();
+        }
+    }
+
+    private void getInts(final ByteBuffer in, final int[] column){
+        for(int i = 0; i < count; i++){
+            column[i] = in.getInt();
+        }
+    }
+
+    /**
+     * Removes all dots from the world.
+     */
+    public void clear(){
+        count = 0;
+    }
+
+    /**
+     * Gets the number of dots currently in the world.
+     *
+     * @return the number of dots.
+     */
+    public int size(){
+        return count;
+    }
+
+    /**
+     * Gets the maximum number of dots this world can hold.
+     *
+     * @return the capacity.
+     */
+    public int capacity(){
+        return capacity;
+    }
+}
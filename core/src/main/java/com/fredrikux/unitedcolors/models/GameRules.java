@@ -14,6 +14,9 @@ public interface GameRules {
     long    POINT_DOT_TIME_BETWEEN = 300l; // Bigger equals longer
     long    POINT_DOT_FADE_TIME = 150l; // Bigger equals longer
     long    POINT_DOT_PULSE_SPEED = 12l; // Bigger equals slower
+    int     POINT_DOT_SPAWN_ATTEMPTS = 10;
+    int     POINT_DOT_POOL_SIZE = 4; // Free point dots kept for reuse
+    int     ANIMATION_CAPACITY = 8; // Tweens running at once
 
     // Rules for the player dot
     float   PLAYER_DOT_SPEED_RATIO = (float) (0.3f / (Math.PI/2.0f));
@@ -23,8 +26,13 @@ public interface GameRules {
 
     // Sensor settings
     boolean SHOULD_CALIBRATE_SENSOR = true;
+    int     SENSOR_BUFFER_SIZE = 64; // Samples buffered between two ticks
+    long    SENSOR_FILTER_TIME_CONSTANT = 50000000l; // Nanoseconds, 0 is off
+    int     SENSOR_MAX_REPORT_LATENCY_US = 20000; // Hardware batching
 
     // Other settings
     long    MAX_TIME_DIFFICULTY = 7200l;
     int     DOT_LIMIT = 200;
+    int     PARALLEL_CHUNK_SIZE = 2048; // Dots rebased per parallel chunk
+    int     RENDER_CHANGE_LOG_SIZE = 1024; // Dots repacked before a full pack
 }
@@ -0,0 +1,10 @@
+package com.fredrikux.unitedcolors.models;
+
+/**
+ * A listener receiving the side effects of a {@link Simulation}, such as
+ * sounds to play and changes of the score. The events are sent from the
+ * thread running the simulation.
+ */
+public interface ISimulationListener {
+    void onSimulationEvent(int event, int value);
+}
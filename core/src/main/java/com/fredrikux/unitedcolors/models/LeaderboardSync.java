@@ -0,0 +1,182 @@
+package com.fredrikux.unitedcolors.models;
+
+import com.fredrikux.unitedcolors.utils.Backoff;
+
+import java.io.IOException;
+
+/**
+ * Submits the games of a {@link ScoreLog} to a leaderboard service. The
+ * log is the persistent queue, this keeps it from being uploaded as is:
+ * only the best score of every time window is submitted, all of a batch
+ * in one call, and after a failed call the submissions back off so a
+ * flapping network doesn't hammer the service. A window the uploaded
+ * entries of the log end in is only submitted again when a later game in
+ * it beats them, so one that spans batches, connections or runs of the
+ * app is not submitted twice.
+ *
+ * Windows should divide the time spans of the leaderboard, an hour for
+ * daily and weekly ones, so the best score of every span is still
+ * submitted.
+ */
+public class LeaderboardSync implements ScoreLog.IUploader {
+
+    /**
+     * The leaderboard service the scores are submitted to.
+     */
+    public interface IService {
+
+        /**
+         * Submits the best score of a number of windows.
+         *
+         * @param windowStarts the start of every window, in milliseconds.
+         * @param scores the best score of every window.
+         * @param count the number of windows.
+         * @throws IOException if the scores weren't submitted.
+         */
+        void submit(long[] windowStarts, int[] scores, int count)
+                throws IOException;
+    }
+
+    /**
+     * The time the backoff is measured in.
+     */
+    public interface IClock {
+
+        /**
+         * Gets the current time.
+         * @return the time in milliseconds.
+         */
+        long currentTimeMillis();
+    }
+
+    /*
+     * STATIC FINAL FIELDS
+     */
+    public static final IClock SYSTEM_CLOCK = new IClock() {
+        @Override
+        public long currentTimeMillis() {
+            return System.currentTimeMillis();
+        }
+    };
+
+    /*
+     * FINAL FIELDS
+     */
+    private final IService mService;
+    private final long mWindow;
+    private final Backoff mBackoff;
+    private final IClock mClock;
+    private final long[] mWindowStarts;
+    private final int[] mScores;
+
+    /**
+     * Creates a LeaderboardSync-object.
+     *
+     * @param service the service to submit to.
+     * @param window the length of a window in milliseconds.
+     * @param maxBatch the most entries uploaded at once, the batch size
+     *                 given to {@code ScoreLog.uploadPending()}.
+     * @param backoff the backoff after failed submissions.
+     * @param clock the time the backoff is measured in.
+     */
+    public LeaderboardSync(final IService service, final long window,
+                           final int maxBatch, final Backoff backoff,
+                           final IClock clock){
+        mService = service;
+        mWindow = window;
+        mBackoff = backoff;
+        mClock = clock;
+        mWindowStarts = new long[maxBatch];
+        mScores = new int[maxBatch];
+    }
+
+    @Override
+    public void upload(final ScoreLog log, final int from, final int to)
+            throws IOException {
+
+        if(to - from > mScores.length){
+            throw new IllegalArgumentException("Batch of " + (to - from)
+                    + " entries, at most " + mScores.length);
+        }
+
+        // The log is in the order played, so a window's games are together
+        int count = 0;
+        for(int i = from; i < to; i++){
+            final long start = getWindowStart(log.getTimestamp(i));
+            final int score = log.getScore(i);
+
+            if(count > 0 && mWindowStarts[count - 1] == start){
+                mScores[count - 1] = Math.max(mScores[count - 1], score);
+            } else {
+                mWindowStarts[count] = start;
+                mScores[count] = score;
+                count++;
+            }
+        }
+
+        // The games before the batch in its first window were submitted by
+        // an earlier batch, maybe in an earlier run, so that window is only
+        // submitted again if the batch beat their best
+        if(count > 0 && from > 0 && mScores[0] <= getBestBefore(log, from,
+                mWindowStarts[0])){
+            count--;
+            System.arraycopy(mWindowStarts, 1, mWindowStarts, 0, count);
+            System.arraycopy(mScores, 1, mScores, 0, count);
+        }
+
+        if(count == 0){
+            return;
+        }
+
+        final long now = mClock.currentTimeMillis();
+        if(!mBackoff.isReady(now)){
+            throw new IOException("Backing off for "
+                    + (mBackoff.getReadyTime() - now) + " ms");
+        }
+
+        try {
+            mService.submit(mWindowStarts, mScores, count);
+        } catch (IOException e) {
+            mBackoff.failed(now);
+            throw e;
+        }
+
+        mBackoff.succeeded();
+    }
+
+    /**
+     * Gets the start of the window a time is in.
+     * @param timestamp the time in milliseconds.
+     * @return the start of the window.
+     */
+    private long getWindowStart(final long timestamp){
+        return timestamp / mWindow * mWindow;
+    }
+
+    /**
+     * Gets the best score of the games in a window that were uploaded
+     * before an entry.
+     *
+     * @param log the log holding the entries.
+     * @param entry the first entry that wasn't uploaded.
+     * @param windowStart the start of the window.
+     * @return the best score, or -1 if there were no such games.
+     */
+    private int getBestBefore(final ScoreLog log, final int entry,
+                              final long windowStart){
+        int best = -1;
+        for(int i = entry - 1; i >= 0
+                && getWindowStart(log.getTimestamp(i)) == windowStart; i--){
+            best = Math.max(best, log.getScore(i));
+        }
+        return best;
+    }
+
+    /**
+     * Gets the backoff after failed submissions.
+     * @return the backoff.
+     */
+    public Backoff getBackoff(){
+        return mBackoff;
+    }
+}
@@ -0,0 +1,80 @@
+package com.fredrikux.unitedcolors.models;
+
+/**
+ * The motion of the plain dots as a function of time: a straight line
+ * from an origin, reflected by the walls of the world. A reflection is a
+ * fold of the line in to the range between the walls, a triangle wave, so
+ * the position at any time step is found without stepping through the
+ * ones before it. The vertex shader does the same math, so the dots can
+ * be moved on the GPU from the origin they were uploaded with.
+ */
+public class LinearMotion {
+
+    // Only static methods
+    private LinearMotion(){}
+
+    /**
+     * Folds a position on an endless line in to a range, as if it had
+     * bounced between the ends of the range.
+     *
+     * @param position the position on the line.
+     * @param min the lower end of the range.
+     * @param max the upper end of the range.
+     * @return the folded position, from {@code min} to {@code max}.
+     */
+    public static float fold(final float position, final float min,
+                             final float max){
+
+        final float span = max - min;
+        if(span <= 0.0f){
+            return min;
+        }
+
+        // The same as mod() in GLSL, which is positive for negative values
+        final float period = 2.0f * span;
+        float distance = position - min;
+        distance -= period * (float) Math.floor(distance / period);
+
+        return min + Math.min(distance, period - distance);
+    }
+
+    /**
+     * Gets in which direction a folded position moves when the position on
+     * the line grows.
+     *
+     * @param position the position on the line.
+     * @param min the lower end of the range.
+     * @param max the upper end of the range.
+     * @return 1 if it moves the same way as on the line, -1 if reflected.
+     */
+    public static float slope(final float position, final float min,
+                              final float max){
+
+        final float span = max - min;
+        if(span <= 0.0f){
+            return 1.0f;
+        }
+
+        final float period = 2.0f * span;
+        float distance = position - min;
+        distance -= period * (float) Math.floor(distance / period);
+
+        return distance < span ? 1.0f : -1.0f;
+    }
+
+    /**
+     * Gets the position along one axis of a dot moving from an origin.
+     *
+     * @param origin the position at the origin time step.
+     * @param velocity the distance moved per time step.
+     * @param elapsed the time steps since the origin time step.
+     * @param min the lowest position, the first wall plus the radius.
+     * @param max the highest position, the second wall minus the radius.
+     * @return the position.
+     */
+    public static float position(final float origin, final float velocity,
+                                 final long elapsed, final float min,
+                                 final float max){
+        return fold(origin + velocity * (float) elapsed, min, max);
+    }
+}
@@ -0,0 +1,144 @@
+package com.fredrikux.unitedcolors.models;
+
+import com.fredrikux.unitedcolors.utils.SampleRing;
+
+/**
+ * Turns a stream of timestamped orientation samples in to one value per
+ * game tick. The sensor thread offers samples, which are kept in a
+ * preallocated ring, and once every tick the game loop drains the ring. Each
+ * sample is smoothed by a low-pass filter with a configurable time constant
+ * and the filtered orientation is integrated over the time the samples
+ * span, so the tick gets the average orientation since the previous tick
+ * no matter how many samples arrived or how unevenly they were spaced.
+ * Only sample timestamps are used, the sensor clock never has to match the
+ * clock of the game loop.
+ */
+public class OrientationFilter {
+
+    private static final long NO_SAMPLE = Long.MIN_VALUE;
+
+    private final SampleRing mRing;
+    private final double mTimeConstant;
+
+    // Only touched by the game loop
+    private long mLastTime = NO_SAMPLE;
+    private float mFilteredX;
+    private float mFilteredY;
+    private float mX;
+    private float mY;
+    private int mSampleCount;
+
+    /**
+     * Creates a OrientationFilter-object.
+     *
+     * @param capacity the number of samples buffered between two ticks.
+     * @param timeConstant the time constant of the low-pass filter in
+     *                     nanoseconds, zero to not filter at all.
+     */
+    public OrientationFilter(final int capacity, final long timeConstant){
+        mRing = new SampleRing(capacity);
+        mTimeConstant = timeConstant;
+    }
+
+    /**
+     * Adds a sample, to be called from the sensor thread only.
+     *
+     * @param time the time of the sample in nanoseconds.
+     * @param x the orientation along the x-axis.
+     * @param y the orientation along the y-axis.
+     * @return true if the sample was buffered, false if it was dropped.
+     */
+    public boolean offer(final long time, final float x, final float y){
+        return mRing.offer(time, x, y);
+    }
+
+    /**
+     * Drains the buffered samples and computes the orientation for this
+     * tick. If no new samples arrived, the last filtered orientation is
+     * kept. To be called from the game loop once every tick.
+     */
+    public void update(){
+
+        final SampleRing ring = mRing;
+        double sumX = 0.0, sumY = 0.0;
+        long span = 0l;
+        int count = 0;
+
+        while(ring.poll()){
+            final long time = ring.getPolledTime();
+            final float x = ring.getPolledX();
+            final float y = ring.getPolledY();
+            count++;
+
+            // The first sample starts the filter
+            if(mLastTime == NO_SAMPLE){
+                mFilteredX = x;
+                mFilteredY = y;
+                mLastTime = time;
+                continue;
+            }
+
+            final long dt = time - mLastTime;
+            if(dt <= 0l){
+                continue;
+            }
+
+            // Exponential smoothing, weighted by the time between samples
+            final float alpha = (float) (dt / (mTimeConstant + dt));
+            final float filteredX = mFilteredX + alpha * (x - mFilteredX);
+            final float filteredY = mFilteredY + alpha * (y - mFilteredY);
+
+            // Integrate with the trapezoidal rule
+            sumX += (mFilteredX + filteredX) * 0.5 * dt;
+            sumY += (mFilteredY + filteredY) * 0.5 * dt;
+            span += dt;
+
+            mFilteredX = filteredX;
+            mFilteredY = filteredY;
+            mLastTime = time;
+        }
+
+        if(span > 0l){
+            mX = (float) (sumX / span);
+            mY = (float) (sumY / span);
+        } else {
+            mX = mFilteredX;
+            mY = mFilteredY;
+        }
+
+        mSampleCount = count;
+    }
+
+    /**
+     * Gets the orientation along the x-axis for the current tick.
+     * @return the orientation along the x-axis.
+     */
+    public float getX(){
+        return mX;
+    }
+
+    /**
+     * Gets the orientation along the y-axis for the current tick.
+     * @return the orientation along the y-axis.
+     */
+    public float getY(){
+        return mY;
+    }
+
+    /**
+     * Gets the number of samples drained by the last update.
+     * @return the number of samples.
+     */
+    public int getSampleCount(){
+        return mSampleCount;
+    }
+
+    /**
+     * Gets the number of samples dropped because the game loop didn't keep
+     * up.
+     * @return the number of dropped samples.
+     */
+    public int getDropped(){
+        return mRing.getDropped();
+    }
+}
@@ -0,0 +1,128 @@
+package com.fredrikux.unitedcolors.models;
+
+/**
+ * This class represents the player conntroled dot.
+ */
+public class PlayerDot
+        extends
+            Dot
+        implements
+            GameRules {
+
+    // Written by the sensor thread, drained by the game loop
+    private final OrientationFilter mSensor = new OrientationFilter(
+            SENSOR_BUFFER_SIZE, SENSOR_FILTER_TIME_CONSTANT);
+    private final WorldConfig mConfig;
+
+    // The orientation used by the last update
+    private float mOrientationX, mOrientationY;
+    private boolean mInjected = false;
+
+
+    /**
+     * Returns a player dot object with provided position, coor, size and speed
+     * @param x the x-coordinate of the dot
+     * @param y the y-coordinate of the dot
+     * @param color the color of the dot
+     * @param size thw size of the dot
+     * @param speed the speed of the dot
+     * @param config the world the dot has to stay within
+     */
+    public PlayerDot(float x, float y, int color, float size, float speed,
+                     WorldConfig config) {
+        super(x, y, .0f, .0f, color, size, speed);
+        mConfig = config;
+    }
+
+    /**
+     * Update this player dot by adding the senorvalues to the x- and y-axis.
+     * Also, checks to see if the player dot is on screen and change the
+     * x and/or y to make the player dot not able to get outside the screen.
+     * @param timeStep the current time step of the game loop.
+     */
+    @Override
+    public void update(long timeStep) {
+
+        // Take the sensor data since the last tick, without waiting for the
+        // sensor thread, unless an orientation was injected
+        if(!mInjected){
+            mSensor.update();
+            mOrientationX = mSensor.getX();
+            mOrientationY = mSensor.getY();
+        }
+        mInjected = false;
+
+        float sensorX = mOrientationX * super.velocity;
+        float sensorY = mOrientationY * super.velocity;
+
+        // Will the new position be on the screen?
+        int edges = Simulation.getOutOfScreenEdges(
+                super.x + sensorX,
+                super.y + sensorY,
+                getSize(), mConfig);
+
+        // If the new position is outside in the x-axis
+        if((edges & Simulation.OUT_OF_X) != 0){
+
+            // Don't move along the x-axis
+            sensorX = 0.0f;
+        }
+
+        // If the new position is outside in the y-axis
+        if((edges & Simulation.OUT_OF_Y) != 0){
+
+            // Don't move along the y-axis
+            sensorY = 0.0f;
+        }
+
+        // Update player dot position
+        x += sensorX;
+        y += sensorY;
+    }
+
+    /**
+     * Buffers a sample of the orientation of the device, to be used in the
+     * next update. Called from the sensor thread.
+     *
+     * @param timestamp the time of the sample in nanoseconds.
+     * @param x the orientation along the x-axis.
+     * @param y the orientation along the y-axis.
+     */
+    public void updateOrientation(long timestamp, float x, float y) {
+
+        // Save the sensor data to be used in the game loop
+        mSensor.offer(timestamp, x, y);
+
+    }
+
+    /**
+     * Sets the orientation to be used by the next update instead of the
+     * sensor data, to replay a recorded game.
+     *
+     * @param x the orientation along the x-axis.
+     * @param y the orientation along the y-axis.
+     */
+    public void injectOrientation(float x, float y) {
+        mOrientationX = x;
+        mOrientationY = y;
+        mInjected = true;
+    }
+
+    /**
+     * Gets the orientation used by the last update, to be recorded.
+     * @return the orientation along the x-axis.
+     */
+    public float getOrientationX() {
+        return mOrientationX;
+    }
+
+    /**
+     * Gets the orientation used by the last update, to be recorded.
+     * @return the orientation along the y-axis.
+     */
+    public float getOrientationY() {
+        return mOrientationY;
+    }
+
+    public void updateAccuracy(int ignore) {}
+}
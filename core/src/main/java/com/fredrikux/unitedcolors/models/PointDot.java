@@ -0,0 +1,228 @@
+package com.fredrikux.unitedcolors.models;
+
+import com.fredrikux.unitedcolors.utils.Timeline;
+
+import java.nio.ByteBuffer;
+
+/**
+ * This dot extends the Dot-class and is a staic dot without the movement
+ * of the rgual Dot-class. Its size is animated by tweens on the
+ * {@link Timeline} of the simulation, the simulation tells it when one of
+ * them completes.
+ */
+public class PointDot
+        extends
+            Dot
+        implements
+            GameRules {
+
+    // The property of the point dots animated on the timeline
+    public static final int PROPERTY_SIZE = 0;
+
+    public int value;
+    private long mCreateStep;
+    private final Timeline mTimeline;
+    private final int mTarget;
+    private int mSizeTween = Timeline.NONE;
+    private int mPulseTween = Timeline.NONE;
+
+    /**
+     * Creates and returns a PointDot-object.
+     *
+     * @param timeline the timeline to animate the dot on.
+     * @param target the target of the tweens of the dot.
+     * @param timeStep the current time step of creation.
+     * @param x the x-coordinate for this dot.
+     * @param y the y-coordinate for this dot.
+     * @param color the color to use for this dot.
+     * @param size the size to set for this dot-
+     * @param value the value for players to receive for consuming one of these.
+     */
+    public PointDot(final Timeline timeline, final int target,
+                    final long timeStep, float x, float y, int color, float
+            size, int value) {
+        super(x, y, 0.0f, 0.0f, color, 0.0f, 0.0f);
+
+        mTimeline = timeline;
+        mTarget = target;
+        reset(timeStep, x, y, color, size, value);
+
+    }
+
+    /**
+     * Resets this point dot to the state of a newly created one, so it can
+     * be reused from a pool.
+     *
+     * @param timeStep the current time step of creation.
+     * @param x the x-coordinate for this dot.
+     * @param y the y-coordinate for this dot.
+     * @param color the color to use for this dot.
+     * @param size the size to set for this dot-
+     * @param value the value for players to receive for consuming one of these.
+     */
+    public void reset(final long timeStep, float x, float y, int color,
+                      float size, int value) {
+        super.reset(x, y, 0.0f, 0.0f, color, 0.0f, 0.0f);
+        this.value = value;
+
+        mCreateStep = timeStep;
+
+        // Don't let the old animations complete
+        cancelAnimations();
+
+        // Start a zoom-in-animation
+        mSizeTween = startSizeTween(mCreateStep, 0.0f, size);
+
+    }
+
+    private int startSizeTween(final long timeStep, final float from,
+                               final float to){
+
+        final int tween = mTimeline.start(mTarget, PROPERTY_SIZE, timeStep,
+                POINT_DOT_SIZE_ANIMATION_TIME, from, to, Timeline.EASE_LINEAR);
+
+        // Without room on the timeline, jump to the end
+        if(tween == Timeline.NONE){
+            setSize(to);
+        }
+
+        return tween;
+    }
+
+    /**
+     * Stops the animations of the dot, before it is handed back to the
+     * pool.
+     */
+    public void cancelAnimations() {
+        mTimeline.cancel(mSizeTween);
+        mTimeline.cancel(mPulseTween);
+        mSizeTween = Timeline.NONE;
+        mPulseTween = Timeline.NONE;
+    }
+
+    /**
+     * Called by the simulation when one of the tweens of this dot has
+     * completed. A dot that zoomed in starts to pulse.
+     *
+     * @param tween the tween that completed.
+     * @param timeStep the current time step of the game loop.
+     */
+    public void onAnimationComplete(final int tween, final long timeStep) {
+
+        if(tween != mSizeTween){
+            return;
+        }
+
+        mSizeTween = Timeline.NONE;
+        setSize(mTimeline.getValue(tween));
+
+        if(!super.isFlaggedForRemoval()){
+            mPulseTween = mTimeline.start(mTarget, PROPERTY_SIZE, timeStep,
+                    2 * POINT_DOT_PULSE_SPEED, getSize(), 0.85f * getSize(),
+                    Timeline.EASE_PULSE);
+        }
+    }
+
+    /**
+     * Writes the state of the dot and its animations to provided buffer.
+     *
+     * @param out the buffer to write to.
+     */
+    @Override
+    public void writeState(ByteBuffer out) {
+        super.writeState(out);
+        out.putInt(value);
+        out.putLong(mCreateStep);
+        out.putInt(mSizeTween);
+        out.putInt(mPulseTween);
+    }
+
+    /**
+     * Restores the state of the dot and its animations, the timeline has
+     * to be restored first.
+     *
+     * @param in the buffer to read from.
+     */
+    @Override
+    public void readState(ByteBuffer in) {
+        super.readState(in);
+        value = in.getInt();
+        mCreateStep = in.getLong();
+        mSizeTween = in.getInt();
+        mPulseTween = in.getInt();
+    }
+
+    /**
+     * Updates the point dots animations and flags it for removal is enough
+     * time has past since creation.
+     *
+     * @param timeStep the current time step of the game loop.
+     */
+    @Override
+    public void update(long timeStep) {
+
+        // Take the size from the animation, the timeline is updated
+        if(mSizeTween != Timeline.NONE){
+            setSize(mTimeline.getValue(mSizeTween));
+        }else if (mPulseTween != Timeline.NONE){
+            setSize(mTimeline.getValue(mPulseTween));
+        }
+
+        /*
+         * If five seconds has passed since created and the dot isn't flaged
+         * for removal, flag for removal. (5000000000l nano sec)
+         */
+        if(timeStep - mCreateStep >= POINT_DOT_FADE_TIME && !isFlaggedForRemoval()){
+
+            // Flag dot for removal
+            flagForRemoval((long) timeStep);
+        }
+    }
+
+    /**
+     * Flags this point dot for removal and start it's zoom-out animation.
+     * @param timeStep the current game loop time step
+     */
+    @Override
+    public void flagForRemoval(long timeStep) {
+
+        mTimeline.cancel(mPulseTween);
+        mPulseTween = Timeline.NONE;
+
+        // If the dot isn't already animating
+        if(mSizeTween == Timeline.NONE) {
+
+            // Start zoom-out-animation
+            mSizeTween = startSizeTween(timeStep, getSize(), 0.0f);
+        }
+
+        super.flagForRemoval(timeStep);
+    }
+
+    /**
+     * Flags this point dot for instant removal, without animations as in
+     * {@code flagForRemoval(long)}
+     * @param timeStep the time step of removal.
+     */
+    public void flagForForceRemoval(long timeStep) {
+
+        // Flag for removal
+        super.flagForRemoval(timeStep);
+    }
+
+    /**
+     * Checks to see if this player dot is flaged for removal.
+     *
+     * @return tru if this player dot is flaged for removal false otherwise.
+     */
+    @Override
+    public boolean isFlaggedForRemoval() {
+
+        /*
+         * If the point dot is animating or isn't set for removal,
+         * don't flagForRemoval.
+         */
+        return !(mSizeTween != Timeline.NONE
+                || !super.isFlaggedForRemoval());
+    }
+}
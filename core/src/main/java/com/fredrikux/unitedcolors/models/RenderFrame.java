@@ -0,0 +1,97 @@
+package com.fredrikux.unitedcolors.models;
+
+/**
+ * A snapshot of everything needed to draw one frame: the motion, color
+ * and size of every dot. Colors are kept as ARGB ints, the way the dots
+ * store them. Written by the game loop and read by the renderer.
+ *
+ * The vertex shader moves the dots by itself from their motion: an
+ * origin, a velocity per time step, the time step of the origin and if the
+ * dot bounces off the walls. The plain dots keep the same motion for as
+ * long as they live, the player dot and the point dot go from where they
+ * were to where they are in one tick. So the renderer can draw the dots
+ * anywhere in between when the display runs faster than the game loop.
+ */
+public class RenderFrame {
+
+    public static final int SIZE_OF_DOT_SIZE = 1;
+    public static final int SIZE_OF_MOTION = 6;
+
+    // The offsets in to the motion of a dot
+    public static final int MOTION_ORIGIN_X = 0;
+    public static final int MOTION_ORIGIN_Y = 1;
+    public static final int MOTION_VELOCITY_X = 2;
+    public static final int MOTION_VELOCITY_Y = 3;
+    public static final int MOTION_STEP = 4;
+    public static final int MOTION_BOUNCE = 5;
+
+    // The time steps of the motions are kept relative to a base that is a
+    // multiple of this, so they fit the precision of a float
+    public static final long STEP_BASE_INTERVAL = 1l << 16;
+
+    public final float[] motions;
+    public final int[] colors;
+    public final float[] sizes;
+
+    public int count = 0;
+    public long timeStep = 0l;
+    public long stepBase = 0l;
+
+    // The size of the world the dots bounce in
+    public int width = 0;
+    public int height = 0;
+
+    // When the tick was due and how long a time step lasts, in nanoseconds
+    public long time = 0l;
+    public long duration = 1l;
+
+    // The time steps the tick advanced
+    public int steps = 1;
+
+    // The simulation that packed the frame last and the count of its
+    // changes at the time, so only the dots changed since are packed again
+    Simulation packedBy = null;
+    long packedChange = 0l;
+
+    /**
+     * Creates a RenderFrame-object which holds up to {@code capacity} dots.
+     *
+     * @param capacity the maximum number of dots.
+     */
+    public RenderFrame(final int capacity){
+        motions = new float[capacity * SIZE_OF_MOTION];
+        colors = new int[capacity];
+        sizes = new float[capacity * SIZE_OF_DOT_SIZE];
+    }
+
+    /**
+     * Gets the time step the tick started at, relative to the step base,
+     * which is what the motions are moved from.
+     *
+     * @return the time step.
+     */
+    public float getMotionStep(){
+        return (float) (timeStep - steps - stepBase);
+    }
+
+    /**
+     * Gets how far the dots have moved from where they were when the tick
+     * started at provided time. The frame is shown one tick late, so where
+     * the tick left them is reached when the next tick is due,
+     * {@code steps} time steps after this one.
+     *
+     * @param now the time to draw the frame at, in nanoseconds.
+     * @return a value between 0 for where the tick started and
+     * {@code steps} for where it ended.
+     */
+    public float getInterpolation(final long now){
+
+        float interpolation = (float) (now - time) / (float) duration;
+
+        if(interpolation < 0.0f){
+            return 0.0f;
+        }
+
+        return interpolation > steps ? steps : interpolation;
+    }
+}
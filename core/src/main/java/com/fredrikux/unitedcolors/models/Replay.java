@@ -0,0 +1,225 @@
+package com.fredrikux.unitedcolors.models;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+/**
+ * A recorded game which can be played again, headless and as fast as the
+ * machine allows. All values are big endian. A replay starts with a header:
+ * <pre>
+ *     int     magic, "UCRP"
+ *     short   version
+ *     long    seed
+ *     int     width
+ *     int     height
+ *     float   density
+ *     int     dot limit
+ *     byte    kiosk mode, 1 or 0
+ * </pre>
+ * followed by records, each starting with a tag byte:
+ * <pre>
+ *     TAG_TICK    float x, float y    the orientation of one tick
+ *     TAG_RESIZE  int w, int h        the world size from the next tick
+ *     TAG_STEPS   int steps           the time steps per tick from the
+ *                                     next tick, 1 until the first one
+ *     TAG_END                         the end of the replay
+ * </pre>
+ * Version 1 replays have no steps records, and are read as well.
+ */
+public class Replay {
+
+    /*
+     * STATIC FINAL FIELDS
+     */
+    public static final int MAGIC = 0x55435250;
+    public static final int VERSION = 2;
+
+    public static final int TAG_END = 0;
+    public static final int TAG_TICK = 1;
+    public static final int TAG_RESIZE = 2;
+    public static final int TAG_STEPS = 3;
+
+    static final int HEADER_SIZE = 4 + 2 + 8 + 4 + 4 + 4 + 4 + 1;
+    static final int TICK_SIZE = 1 + 4 + 4;
+
+    /*
+     * FINAL FIELDS
+     */
+    public final long seed;
+    public final int width;
+    public final int height;
+    public final float density;
+    public final int dotLimit;
+    public final boolean kioskMode;
+
+    private final float[] mOrientations;
+    private final int mTickCount;
+
+    // Resizes as (tick, width, height), ordered by tick
+    private final int[] mResizes;
+    private final int mResizeCount;
+
+    // Steps per tick as (tick, steps), ordered by tick
+    private final int[] mSteps;
+    private final int mStepsCount;
+
+    private Replay(final long seed, final int width, final int height,
+                   final float density, final int dotLimit,
+                   final boolean kioskMode, final float[] orientations,
+                   final int tickCount, final int[] resizes,
+                   final int resizeCount, final int[] steps,
+                   final int stepsCount){
+        this.seed = seed;
+        this.width = width;
+        this.height = height;
+        this.density = density;
+        this.dotLimit = dotLimit;
+        this.kioskMode = kioskMode;
+        mOrientations = orientations;
+        mTickCount = tickCount;
+        mResizes = resizes;
+        mResizeCount = resizeCount;
+        mSteps = steps;
+        mStepsCount = stepsCount;
+    }
+
+    /**
+     * Reads a replay.
+     *
+     * @param in the stream to read from, it is not closed.
+     * @return the replay.
+     * @throws IOException if the stream fails or doesn't hold a replay.
+     */
+    public static Replay read(final InputStream in) throws IOException {
+
+        final DataInputStream data = new DataInputStream(in);
+
+        if(data.readInt() != MAGIC){
+            throw new IOException("Not a replay");
+        }
+
+        final int version = data.readShort();
+        if(version < 1 || version > VERSION){
+            throw new IOException("Unsupported replay version " + version);
+        }
+
+        final long seed = data.readLong();
+        final int width = data.readInt();
+        final int height = data.readInt();
+        final float density = data.readFloat();
+        final int dotLimit = data.readInt();
+        final boolean kioskMode = data.readByte() == 1;
+
+        float[] orientations = new float[1024];
+        int ticks = 0;
+        int[] resizes = new int[3];
+        int resizeCount = 0;
+        int[] steps = new int[2];
+        int stepsCount = 0;
+
+        for(int tag = data.readByte(); tag != TAG_END; tag = data.readByte()){
+            switch (tag){
+                case TAG_TICK:
+                    if(ticks * 2 == orientations.length){
+                        orientations = Arrays.copyOf(orientations,
+                                orientations.length * 2);
+                    }
+                    orientations[ticks * 2] = data.readFloat();
+                    orientations[ticks * 2 + 1] = data.readFloat();
+                    ticks++;
+                    break;
+
+                case TAG_RESIZE:
+                    if(resizeCount * 3 == resizes.length){
+                        resizes = Arrays.copyOf(resizes, resizes.length * 2);
+                    }
+                    resizes[resizeCount * 3] = ticks;
+                    resizes[resizeCount * 3 + 1] = data.readInt();
+                    resizes[resizeCount * 3 + 2] = data.readInt();
+                    resizeCount++;
+                    break;
+
+                case TAG_STEPS:
+                    if(stepsCount * 2 == steps.length){
+                        steps = Arrays.copyOf(steps, steps.length * 2);
+                    }
+                    steps[stepsCount * 2] = ticks;
+                    steps[stepsCount * 2 + 1] = data.readInt();
+                    stepsCount++;
+                    break;
+
+                default:
+                    throw new IOException("Unknown replay record " + tag);
+            }
+        }
+
+        return new Replay(seed, width, height, density, dotLimit, kioskMode,
+                orientations, ticks, resizes, resizeCount, steps, stepsCount);
+    }
+
+    /**
+     * Creates a simulation in the state the recorded game started in.
+     *
+     * @return a new simulation.
+     */
+    public Simulation createSimulation(){
+        final Simulation simulation = new Simulation(
+                new WorldConfig(width, height, density, dotLimit), seed);
+        simulation.reset(kioskMode, seed);
+
+        return simulation;
+    }
+
+    /**
+     * Plays one recorded tick on provided simulation, which has to be
+     * created by {@code createSimulation()} and advanced by this replay
+     * only.
+     *
+     * @param simulation the simulation to advance.
+     * @param tick the tick to play, starting at zero.
+     */
+    public void playTick(final Simulation simulation, final int tick){
+
+        // Apply the resizes recorded before this tick
+        for(int i = 0; i < mResizeCount; i++){
+            if(mResizes[i * 3] == tick){
+                simulation.getConfig().setSize(mResizes[i * 3 + 1],
+                        mResizes[i * 3 + 2]);
+            }
+        }
+
+        // The last steps per tick recorded up to this tick
+        int steps = 1;
+        for(int i = 0; i < mStepsCount && mSteps[i * 2] <= tick; i++){
+            steps = mSteps[i * 2 + 1];
+        }
+
+        simulation.step(steps, mOrientations[tick * 2],
+                mOrientations[tick * 2 + 1]);
+    }
+
+    /**
+     * Plays the whole replay on a new simulation.
+     *
+     * @return the simulation in the state the recorded game ended in.
+     */
+    public Simulation play(){
+        final Simulation simulation = createSimulation();
+
+        for(int tick = 0; tick < mTickCount; tick++){
+            playTick(simulation, tick);
+        }
+
+        return simulation;
+    }
+
+    /**
+     * Gets the number of recorded ticks.
+     * @return the number of ticks.
+     */
+    public int getTickCount(){
+        return mTickCount;
+    }
+}
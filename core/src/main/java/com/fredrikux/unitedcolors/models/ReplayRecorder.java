@@ -0,0 +1,164 @@
+package com.fredrikux.unitedcolors.models;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+
+/**
+ * Records everything needed to play a game again: the seed, the world and,
+ * for every tick, the orientation the player dot moved by. The records are
+ * kept in memory while the game runs, so the game loop never waits on a
+ * file, and written out once the game is over. See {@link Replay} for the
+ * format.
+ */
+public class ReplayRecorder {
+
+    // Ten minutes at 30 ticks per second, before the buffer has to grow
+    private static final int INITIAL_CAPACITY = 18000 * Replay.TICK_SIZE
+            + Replay.HEADER_SIZE;
+
+    private byte[] mBuffer = new byte[INITIAL_CAPACITY];
+    private int mLength = 0;
+    private int mWidth;
+    private int mHeight;
+    private int mSteps;
+    private boolean mRecording = false;
+
+    /**
+     * Starts a new recording, dropping any previous one.
+     *
+     * @param seed the seed the simulation was reset with.
+     * @param config the world of the simulation.
+     * @param kioskMode true if the game runs in kiosk mode.
+     */
+    public void begin(final long seed, final WorldConfig config,
+                      final boolean kioskMode){
+
+        mLength = 0;
+        mWidth = config.getWidth();
+        mHeight = config.getHeight();
+        mSteps = 1;
+        mRecording = true;
+
+        writeInt(Replay.MAGIC);
+        writeShort(Replay.VERSION);
+        writeLong(seed);
+        writeInt(mWidth);
+        writeInt(mHeight);
+        writeFloat(config.getDensity());
+        writeInt(config.getDotLimit());
+        writeByte(kioskMode ? 1 : 0);
+    }
+
+    /**
+     * Records the world size before a tick, only written when it changed.
+     *
+     * @param config the world of the simulation.
+     */
+    public void recordWorld(final WorldConfig config){
+
+        final int width = config.getWidth();
+        final int height = config.getHeight();
+
+        if(mRecording && (width != mWidth || height != mHeight)){
+            mWidth = width;
+            mHeight = height;
+
+            writeByte(Replay.TAG_RESIZE);
+            writeInt(width);
+            writeInt(height);
+        }
+    }
+
+    /**
+     * Records the time steps per tick before a tick, only written when it
+     * changed.
+     *
+     * @param steps the time steps the tick advances.
+     */
+    public void recordSteps(final int steps){
+
+        if(mRecording && steps != mSteps){
+            mSteps = steps;
+
+            writeByte(Replay.TAG_STEPS);
+            writeInt(steps);
+        }
+    }
+
+    /**
+     * Records one tick.
+     *
+     * @param orientationX the orientation the player moved by along the
+     *                     x-axis.
+     * @param orientationY the orientation along the y-axis.
+     */
+    public void recordTick(final float orientationX, final float orientationY){
+
+        if(mRecording){
+            writeByte(Replay.TAG_TICK);
+            writeFloat(orientationX);
+            writeFloat(orientationY);
+        }
+    }
+
+    /**
+     * Ends the recording and writes it to provided stream.
+     *
+     * @param out the stream to write to, it is not closed.
+     * @throws IOException if the stream fails.
+     */
+    public void end(final OutputStream out) throws IOException {
+
+        if(!mRecording){
+            return;
+        }
+
+        writeByte(Replay.TAG_END);
+        mRecording = false;
+
+        out.write(mBuffer, 0, mLength);
+    }
+
+    /**
+     * Checks to see if a recording is in progress.
+     * @return true while recording.
+     */
+    public boolean isRecording(){
+        return mRecording;
+    }
+
+    private void ensure(final int bytes){
+        if(mLength + bytes > mBuffer.length){
+            mBuffer = Arrays.copyOf(mBuffer, mBuffer.length * 2);
+        }
+    }
+
+    private void writeByte(final int value){
+        ensure(1);
+        mBuffer[mLength++] = (byte) value;
+    }
+
+    private void writeShort(final int value){
+        ensure(2);
+        mBuffer[mLength++] = (byte) (value >>> 8);
+        mBuffer[mLength++] = (byte) value;
+    }
+
+    private void writeInt(final int value){
+        ensure(4);
+        mBuffer[mLength++] = (byte) (value >>> 24);
+        mBuffer[mLength++] = (byte) (value >>> 16);
+        mBuffer[mLength++] = (byte) (value >>> 8);
+        mBuffer[mLength++] = (byte) value;
+    }
+
+    private void writeLong(final long value){
+        writeInt((int) (value >>> 32));
+        writeInt((int) value);
+    }
+
+    private void writeFloat(final float value){
+        writeInt(Float.floatToIntBits(value));
+    }
+}
@@ -0,0 +1,529 @@
+package com.fredrikux.unitedcolors.models;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * An append-only log of every game played on the device, kept in a
+ * compact binary file:
+ * <pre>
+ *     header, 16 bytes
+ *         int   magic, "UCSL"
+ *         int   version
+ *         int   number of entries uploaded
+ *         int   reserved
+ *     entry, 24 bytes each
+ *         long  timestamp, in milliseconds
+ *         int   score
+ *         int   duration, in ticks
+ *         long  seed
+ * </pre>
+ * The entries are kept in memory as well, with an index of the scores so
+ * ranks and percentiles are answered in O(log n) and the best scores at
+ * once. The index only holds the distinct scores that were played, so it
+ * takes space by the number of entries rather than by how high the scores
+ * go. Entries are uploaded in the order they were played, in batches,
+ * and the number uploaded is saved in the header so nothing is uploaded
+ * twice. An entry torn by the process dying mid-append is dropped when
+ * the log is opened, and so is a damaged entry together with the ones
+ * after it, which keeps the entries before it.
+ */
+public class ScoreLog {
+
+    /*
+     * STATIC FINAL FIELDS
+     */
+    public static final int MAGIC = 0x5543534C;
+    public static final int VERSION = 1;
+    public static final int HEADER_SIZE = 16;
+    public static final int ENTRY_SIZE = 24;
+
+    // Anything higher is taken for a damaged entry
+    public static final int MAX_SCORE = (1 << 24) - 1;
+
+    private static final int UPLOADED_OFFSET = 8;
+    private static final int INITIAL_CAPACITY = 64;
+
+    /**
+     * Uploads entries of the log, for instance to a leaderboard service.
+     */
+    public interface IUploader {
+
+        /**
+         * Uploads a batch of entries, read through the getters of the log.
+         *
+         * @param log the log holding the entries.
+         * @param from the index of the first entry to upload.
+         * @param to the index after the last entry to upload.
+         * @throws IOException if the batch wasn't uploaded, it is tried
+         * again on the next upload.
+         */
+        void upload(ScoreLog log, int from, int to) throws IOException;
+    }
+
+    /*
+     * FINAL FIELDS
+     */
+    private final RandomAccessFile mFile;
+    private final byte[] mEntryBytes = new byte[ENTRY_SIZE];
+    private final ByteBuffer mEntry = ByteBuffer.wrap(mEntryBytes);
+
+    // The indices of the best entries, best first
+    private final int[] mTop;
+
+    /*
+     * OTHER FIELDS
+     */
+    private long[] mTimestamps = new long[INITIAL_CAPACITY];
+    private int[] mScores = new int[INITIAL_CAPACITY];
+    private int[] mDurations = new int[INITIAL_CAPACITY];
+    private long[] mSeeds = new long[INITIAL_CAPACITY];
+    private int mCount = 0;
+    private int mUploaded = 0;
+    private int mTopCount = 0;
+
+    // The distinct scores of the entries in order, the number of entries
+    // of each of them and a Fenwick tree over those numbers
+    private int[] mKeys = new int[INITIAL_CAPACITY];
+    private int[] mKeyEntries = new int[INITIAL_CAPACITY];
+    private int mKeyCount = 0;
+    private int[] mIndex = new int[INITIAL_CAPACITY];
+
+    /**
+     * Opens a ScoreLog-object on provided file, creating the file if it
+     * doesn't exist.
+     *
+     * @param file the file of the log.
+     * @param topCount the number of best entries to keep at hand.
+     * @throws IOException if the file can't be read or doesn't start with
+     * the header of a score log.
+     */
+    public ScoreLog(final File file, final int topCount) throws IOException {
+
+        mTop = new int[topCount];
+        mFile = new RandomAccessFile(file, "rw");
+
+        try {
+            if(mFile.length() < HEADER_SIZE){
+                writeHeader();
+            } else {
+                load();
+            }
+        } catch (IOException e) {
+            mFile.close();
+            throw e;
+        }
+    }
+
+    private void writeHeader() throws IOException {
+        mFile.setLength(0);
+        mFile.writeInt(MAGIC);
+        mFile.writeInt(VERSION);
+        mFile.writeInt(0);
+        mFile.writeInt(0);
+    }
+
+    private void load() throws IOException {
+
+        final byte[] bytes = new byte[(int) mFile.length()];
+        mFile.seek(0);
+        mFile.readFully(bytes);
+
+        final ByteBuffer in = ByteBuffer.wrap(bytes);
+        if(in.getInt() != MAGIC){
+            throw new IOException("Not a score log");
+        }
+
+        final int version = in.getInt();
+        if(version != VERSION){
+            throw new IOException("Unsupported score log version: " + version);
+        }
+
+        final int uploaded = in.getInt();
+        in.getInt();
+
+        final int count = (bytes.length - HEADER_SIZE) / ENTRY_SIZE;
+        for(int i = 0; i < count; i++){
+            final long timestamp = in.getLong();
+            final int score = in.getInt();
+            final int duration = in.getInt();
+            final long seed = in.getLong();
+
+            // Nothing after a damaged entry can be trusted
+            if(score < 0 || score > MAX_SCORE){
+                break;
+            }
+
+            store(timestamp, score, duration, seed);
+        }
+        buildKeys();
+
+        // Drop a torn or damaged entry and what follows it
+        final long length = HEADER_SIZE + (long) mCount * ENTRY_SIZE;
+        if(bytes.length != length){
+            mFile.setLength(length);
+        }
+
+        mUploaded = Math.max(0, Math.min(uploaded, mCount));
+    }
+
+    /**
+     * Appends a game to the log.
+     *
+     * @param timestamp when the game ended, in milliseconds.
+     * @param score the score of the game.
+     * @param duration the length of the game in ticks.
+     * @param seed the seed the game was started from.
+     * @throws IOException if the entry couldn't be written, then it isn't
+     * added.
+     * @throws IllegalArgumentException if the score is negative or higher
+     * than {@code MAX_SCORE}.
+     */
+    public synchronized void append(final long timestamp, final int score,
+                                    final int duration, final long seed)
+            throws IOException {
+
+        if(score < 0 || score > MAX_SCORE){
+            throw new IllegalArgumentException("Invalid score: " + score);
+        }
+
+        mEntry.clear();
+        mEntry.putLong(timestamp);
+        mEntry.putInt(score);
+        mEntry.putInt(duration);
+        mEntry.putLong(seed);
+
+        mFile.seek(HEADER_SIZE + (long) mCount * ENTRY_SIZE);
+        mFile.write(mEntryBytes);
+
+        add(timestamp, score, duration, seed);
+    }
+
+    private void add(final long timestamp, final int score,
+                     final int duration, final long seed){
+
+        final int entry = store(timestamp, score, duration, seed);
+
+        final int key = Arrays.binarySearch(mKeys, 0, mKeyCount, score);
+        if(key >= 0){
+            addToIndex(key);
+        } else {
+            addKey(-key - 1, score);
+        }
+    }
+
+    /**
+     * Stores an entry and ranks it among the best, without indexing its
+     * score.
+     *
+     * @return the index of the entry.
+     */
+    private int store(final long timestamp, final int score,
+                      final int duration, final long seed){
+
+        if(mCount == mScores.length){
+            final int capacity = mCount * 2;
+            mTimestamps = Arrays.copyOf(mTimestamps, capacity);
+            mScores = Arrays.copyOf(mScores, capacity);
+            mDurations = Arrays.copyOf(mDurations, capacity);
+            mSeeds = Arrays.copyOf(mSeeds, capacity);
+        }
+
+        final int entry = mCount++;
+        mTimestamps[entry] = timestamp;
+        mScores[entry] = score;
+        mDurations[entry] = duration;
+        mSeeds[entry] = seed;
+
+        addToTop(entry);
+
+        return entry;
+    }
+
+    /**
+     * Inserts a score that no entry had before in to the keys, and builds
+     * the tree again. New scores get rare as the log grows, most are
+     * played before.
+     */
+    private void addKey(final int at, final int score){
+
+        if(mKeyCount == mKeys.length){
+            mKeys = Arrays.copyOf(mKeys, mKeyCount * 2);
+            mKeyEntries = Arrays.copyOf(mKeyEntries, mKeyCount * 2);
+        }
+
+        System.arraycopy(mKeys, at, mKeys, at + 1, mKeyCount - at);
+        System.arraycopy(mKeyEntries, at, mKeyEntries, at + 1,
+                mKeyCount - at);
+        mKeys[at] = score;
+        mKeyEntries[at] = 1;
+        mKeyCount++;
+
+        buildIndex();
+    }
+
+    /**
+     * Finds the distinct scores of all entries and builds the tree over
+     * them.
+     */
+    private void buildKeys(){
+
+        final int[] sorted = Arrays.copyOf(mScores, mCount);
+        Arrays.sort(sorted);
+
+        final int capacity = Math.max(INITIAL_CAPACITY, mCount);
+        mKeys = new int[capacity];
+        mKeyEntries = new int[capacity];
+        mKeyCount = 0;
+        for(int i = 0; i < sorted.length; i++){
+            if(mKeyCount == 0 || mKeys[mKeyCount - 1] != sorted[i]){
+                mKeys[mKeyCount++] = sorted[i];
+            }
+            mKeyEntries[mKeyCount - 1]++;
+        }
+
+        buildIndex();
+    }
+
+    private void buildIndex(){
+
+        if(mIndex.length < mKeys.length){
+            mIndex = new int[mKeys.length];
+        }
+        System.arraycopy(mKeyEntries, 0, mIndex, 0, mKeyCount);
+
+        // The numbers are turned in to the tree in one pass
+        for(int i = 1; i <= mKeyCount; i++){
+            final int parent = i + (i & -i);
+            if(parent <= mKeyCount){
+                mIndex[parent - 1] += mIndex[i - 1];
+            }
+        }
+    }
+
+    private void addToIndex(final int key){
+
+        mKeyEntries[key]++;
+        for(int i = key + 1; i <= mKeyCount; i += i & -i){
+            mIndex[i - 1]++;
+        }
+    }
+
+    private void addToTop(final int entry){
+
+        final int score = mScores[entry];
+
+        // Equal scores keep the order they were played in
+        int at = mTopCount;
+        while(at > 0 && mScores[mTop[at - 1]] < score){
+            at--;
+        }
+
+        if(at == mTop.length){
+            return;
+        }
+
+        final int last = Math.min(mTopCount, mTop.length - 1);
+        System.arraycopy(mTop, at, mTop, at + 1, last - at);
+        mTop[at] = entry;
+        mTopCount = Math.min(mTopCount + 1, mTop.length);
+    }
+
+    /**
+     * Counts the entries with a score of at most provided one.
+     *
+     * @param score the score.
+     * @return the number of entries.
+     */
+    public synchronized int countAtOrBelow(final int score){
+
+        // The number of keys at or below the score
+        final int key = Arrays.binarySearch(mKeys, 0, mKeyCount, score);
+        final int keys = key >= 0 ? key + 1 : -key - 1;
+
+        int count = 0;
+        for(int i = keys; i > 0; i -= i & -i){
+            count += mIndex[i - 1];
+        }
+
+        return count;
+    }
+
+    /**
+     * Gets the rank a score would have among the logged games, 1 for a new
+     * best score.
+     *
+     * @param score the score.
+     * @return the rank.
+     */
+    public synchronized int getRank(final int score){
+        return mCount - countAtOrBelow(score) + 1;
+    }
+
+    /**
+     * Gets the percentage of the logged games with at most provided
+     * score.
+     *
+     * @param score the score.
+     * @return the percentile, 0 if the log is empty.
+     */
+    public synchronized double getPercentileOf(final int score){
+        return mCount == 0 ? 0.0 : 100.0 * countAtOrBelow(score) / mCount;
+    }
+
+    /**
+     * Gets the lowest score that at least provided percentage of the logged
+     * games are at or below.
+     *
+     * @param percentile the percentile, from 0 to 100.
+     * @return the score, 0 if the log is empty.
+     */
+    public synchronized int getScoreAtPercentile(final double percentile){
+
+        if(mCount == 0){
+            return 0;
+        }
+
+        final double clamped = Math.max(0.0, Math.min(100.0, percentile));
+        final int wanted = Math.max(1,
+                (int) Math.ceil(clamped / 100.0 * mCount));
+
+        // Walk down the tree to the last key with fewer entries below it
+        int position = 0;
+        int remaining = wanted;
+        for(int step = Integer.highestOneBit(mKeyCount); step > 0;
+            step >>= 1){
+
+            final int next = position + step;
+            if(next <= mKeyCount && mIndex[next - 1] < remaining){
+                position = next;
+                remaining -= mIndex[next - 1];
+            }
+        }
+
+        return mKeys[position];
+    }
+
+    /**
+     * Gets the number of best entries at hand, at most the top count of
+     * the log.
+     *
+     * @return the number of best entries.
+     */
+    public synchronized int getTopCount(){
+        return mTopCount;
+    }
+
+    /**
+     * Gets one of the best entries.
+     *
+     * @param rank the rank of the entry, from 0 for the best.
+     * @return the index of the entry.
+     */
+    public synchronized int getTop(final int rank){
+        if(rank < 0 || rank >= mTopCount){
+            throw new IndexOutOfBoundsException("No entry of rank " + rank);
+        }
+        return mTop[rank];
+    }
+
+    /**
+     * Uploads the entries that haven't been uploaded, in batches. Stops at
+     * the first batch that fails.
+     *
+     * @param uploader the uploader to upload with.
+     * @param batchSize the most entries to upload at once.
+     * @return the number of entries uploaded.
+     * @throws IOException if a batch failed, the batches before it are
+     * still uploaded.
+     */
+    public synchronized int uploadPending(final IUploader uploader,
+                                          final int batchSize)
+            throws IOException {
+
+        final int start = mUploaded;
+        while(mUploaded < mCount){
+            final int to = Math.min(mCount, mUploaded + batchSize);
+            uploader.upload(this, mUploaded, to);
+
+            mUploaded = to;
+            mFile.seek(UPLOADED_OFFSET);
+            mFile.writeInt(mUploaded);
+        }
+
+        return mUploaded - start;
+    }
+
+    /**
+     * Gets the number of entries that haven't been uploaded.
+     * @return the number of entries.
+     */
+    public synchronized int getPendingCount(){
+        return mCount - mUploaded;
+    }
+
+    /**
+     * Gets the number of entries.
+     * @return the number of entries.
+     */
+    public synchronized int getCount(){
+        return mCount;
+    }
+
+    /**
+     * Gets when the game of an entry ended.
+     * @param entry the index of the entry.
+     * @return the timestamp in milliseconds.
+     */
+    public synchronized long getTimestamp(final int entry){
+        checkEntry(entry);
+        return mTimestamps[entry];
+    }
+
+    /**
+     * Gets the score of an entry.
+     * @param entry the index of the entry.
+     * @return the score.
+     */
+    public synchronized int getScore(final int entry){
+        checkEntry(entry);
+        return mScores[entry];
+    }
+
+    /**
+     * Gets the length of the game of an entry.
+     * @param entry the index of the entry.
+     * @return the length in ticks.
+     */
+    public synchronized int getDuration(final int entry){
+        checkEntry(entry);
+        return mDurations[entry];
+    }
+
+    /**
+     * Gets the seed the game of an entry was started from.
+     * @param entry the index of the entry.
+     * @return the seed.
+     */
+    public synchronized long getSeed(final int entry){
+        checkEntry(entry);
+        return mSeeds[entry];
+    }
+
+    private void checkEntry(final int entry){
+        if(entry < 0 || entry >= mCount){
+            throw new IndexOutOfBoundsException("No entry " + entry);
+        }
+    }
+
+    /**
+     * Closes the file of the log.
+     * @throws IOException if the file couldn't be closed.
+     */
+    public synchronized void close() throws IOException {
+        mFile.close();
+    }
+}
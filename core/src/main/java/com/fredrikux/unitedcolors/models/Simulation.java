@@ -0,0 +1,1515 @@
+package com.fredrikux.unitedcolors.models;
+
+import com.fredrikux.unitedcolors.utils.ChunkExecutor;
+import com.fredrikux.unitedcolors.utils.ObjectPool;
+import com.fredrikux.unitedcolors.utils.SeededRandom;
+import com.fredrikux.unitedcolors.utils.Timeline;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * The core of the game, it contains all game logic and the state of every
+ * dot. The simulation is plain Java and has no knowledge of the platform it
+ * runs on: the size of the world is injected through a {@link WorldConfig},
+ * all randomness comes from a seeded generator and every side effect, such
+ * as sounds and score changes, is sent to an {@link ISimulationListener}.
+ * Two simulations created with the same seed and config and fed with the
+ * same input will therefore always end up in the same state.
+ */
+public class Simulation
+        implements
+            GameRules {
+
+    /*
+     * STATIC FINAL FIELDS
+     */
+    public static final int[] colorAlt = {
+            0xFFE91E63,
+            0xFF2196F3,
+            0xFF8BC34A
+    };
+
+    public static final int EVENT_SCORE_CHANGED = 1;
+    public static final int EVENT_GAME_OVER = 2;
+    public static final int EVENT_SOUND_BLOP = 3;
+    public static final int EVENT_SOUND_JUMP = 4;
+
+    public static final int OUT_OF_LEFT = 1;
+    public static final int OUT_OF_TOP = 1 << 1;
+    public static final int OUT_OF_RIGHT = 1 << 2;
+    public static final int OUT_OF_BOTTOM = 1 << 3;
+    public static final int OUT_OF_X = OUT_OF_LEFT | OUT_OF_RIGHT;
+    public static final int OUT_OF_Y = OUT_OF_TOP | OUT_OF_BOTTOM;
+
+    // The most bytes the state takes besides the columns of the world
+    private static final int STATE_FIXED_SIZE = 256;
+
+    // The targets of the tweens on the timeline
+    private static final int TARGET_POINT_DOT = 0;
+
+    /*
+     * FINAL FIELDS
+     */
+    private final WorldConfig mConfig;
+    private final SeededRandom RANDOM;
+
+    private final DotWorld mWorld;
+    private final SpatialGrid mGrid;
+    private final int[] mNearby;
+    private final int[] mRemovals;
+    private final int[] mChanges = new int[RENDER_CHANGE_LOG_SIZE];
+    private final CollisionScheduler mScheduler;
+    private final ObjectPool<PointDot> mPointDotPool;
+    private final Timeline mTimeline = new Timeline(ANIMATION_CAPACITY);
+
+    // Rebases one chunk of dots, run on the threads of the executor
+    private final ChunkExecutor.IChunkTask mRebaseTask
+            = new ChunkExecutor.IChunkTask() {
+        @Override
+        public void runChunk(final int chunk) {
+            final int from = chunk * PARALLEL_CHUNK_SIZE;
+            rebaseDots(from, Math.min(from + PARALLEL_CHUNK_SIZE,
+                    mWorld.size()));
+        }
+    };
+
+    /*
+     * OTHER FIELDS
+     */
+    private ISimulationListener mListener;
+    private ChunkExecutor mExecutor;
+    private PlayerDot mPlayerDot;
+    private PointDot mPointDot;
+    private boolean mKioskMode = false;
+    private boolean mGameOver = false;
+    private double mPointStep = 0.0;
+    private long mDotCreateStep = 0l;
+    private long mTimeStep = 0l;
+    private long mSeed;
+
+    // The time step the world has been advanced to, the steps the last
+    // tick advanced and the size of the world the plain dots bounce in
+    private long mWorldStep = 0l;
+    private int mTickSteps = 1;
+    private int mMotionWidth;
+    private int mMotionHeight;
+    private int score = 0;
+    private int mColorCounter;
+    private int mPlayerIndex = -1;
+    private int mPointIndex = -1;
+
+    // Time spent in each phase of the last step, in nanoseconds
+    private boolean mTimed = false;
+    private long mSpawnTime = 0l;
+    private long mUpdateTime = 0l;
+    private long mCollisionTime = 0l;
+
+    // The travel the collisions are scheduled by, the speed of the fastest
+    // plain dot and the size of the player dot the collisions were
+    // scheduled for
+    private long mTravel = 0l;
+    private float mMaxDotSpeed = 0.0f;
+    private float mScheduledPlayerSize = 0.0f;
+
+    // The dots checked against the player dot in the last step
+    private int mCollisionChecks = 0;
+
+    // The dots flagged for removal, which are removed in the next tick
+    private int mRemovalCount = 0;
+
+    // The time step the positions in the grid are at, -1 if they are not
+    // at any
+    private long mGridStep = -1l;
+
+    // The number of changes to the dots packed in to frames, the last
+    // RENDER_CHANGE_LOG_SIZE of them are kept in a ring, and the change
+    // that made every dot change, frames packed before have to be packed
+    // whole
+    private long mChangeCount = 0l;
+    private long mPackAllChange = 0l;
+
+    /**
+     * Creates a Simulation-object.
+     *
+     * @param config the size and density of the world.
+     * @param seed the seed of the random generator.
+     */
+    public Simulation(final WorldConfig config, final long seed){
+
+        mConfig = config;
+        RANDOM = new SeededRandom(seed);
+        mSeed = seed;
+
+        final int limit = config.getDotLimit();
+        mWorld = new DotWorld(limit);
+        mGrid = new SpatialGrid(limit,
+                PLAYER_DOT_SIZE_RATIO * config.getDensity());
+        mNearby = new int[limit];
+        mRemovals = new int[limit];
+        mScheduler = new CollisionScheduler(limit);
+
+        // Point dots come and go during the whole game, reuse them
+        mPointDotPool = new ObjectPool<PointDot>(
+                Math.min(limit, POINT_DOT_POOL_SIZE),
+                new ObjectPool.IFactory<PointDot>() {
+                    @Override
+                    public PointDot create() {
+                        return new PointDot(mTimeline, TARGET_POINT_DOT,
+                                0l, 0.0f, 0.0f, 0, 0.0f, 0);
+                    }
+                });
+
+        mColorCounter = RANDOM.nextInt(colorAlt.length);
+
+        // Create the player dot.
+        mPlayerDot = spawnPlayerDot(config.getWidth() / 2.0f,
+                config.getHeight() / 2.0f,
+                PLAYER_DOT_SIZE_RATIO * config.getDensity());
+    }
+
+    /**
+     * Resets the world for a new game and reseeds the random generator, so
+     * the game can be played again from the seed. Can be started in kiosk
+     * mode for view purpuses only.
+     *
+     * @param kioskMode true for kiosk mode.
+     * @param seed the seed of the random generator.
+     */
+    public void reset(final boolean kioskMode, final long seed){
+
+        RANDOM.setSeed(seed);
+        mSeed = seed;
+        mColorCounter = RANDOM.nextInt(colorAlt.length);
+        mPlayerDot.color = colorAlt[RANDOM.nextInt(colorAlt.length)];
+
+        reset(kioskMode);
+    }
+
+    /**
+     * Resets the world for a new game. Can be started in kiosk mode for view
+     * purpuses only.
+     *
+     * @param kioskMode true for kiosk mode.
+     */
+    public void reset(final boolean kioskMode){
+
+        mKioskMode = kioskMode;
+        mGameOver = false;
+
+        // Always clear the dot world for a new game
+        mWorld.clear();
+        mGrid.clear();
+        mGridStep = -1l;
+        mScheduler.clear();
+        mRemovalCount = 0;
+        markAllChanged();
+        mTravel = 0l;
+        mMaxDotSpeed = 0.0f;
+        mPlayerIndex = -1;
+        mPointIndex = -1;
+
+        // If the game shouldn't start in kiosk mode
+        if(!kioskMode) {
+
+            // Reset player dot
+            mPlayerDot.x = mConfig.getWidth() / 2.0f;
+            mPlayerDot.y = mConfig.getHeight() / 2.0f;
+            mPlayerDot.setSize(PLAYER_DOT_SIZE_RATIO * mConfig.getDensity());
+
+            // Re add the player dot
+            mPlayerIndex = addDotToWorld(DotWorld.KIND_PLAYER, mPlayerDot);
+        }
+
+        // Clear the point dot and any animation left
+        recyclePointDot();
+        mTimeline.clear();
+
+        mWorldStep = 0l;
+        mTickSteps = 1;
+        mMotionWidth = mConfig.getWidth();
+        mMotionHeight = mConfig.getHeight();
+
+        // Reset the score and time
+        score = 0;
+        mTimeStep = 0l;
+        mDotCreateStep = 0l;
+        mPointStep = 0.0;
+    }
+
+    /**
+     * Advances the world one time step.
+     */
+    public void step(){
+        step(1);
+    }
+
+    /**
+     * Advances the world provided number of time steps in one tick. The
+     * plain dots are never moved, their motion is known ahead. New dots
+     * are spawned and the player is collided with once per tick, so ticks
+     * longer than a step are for a world that only is looked at, like in
+     * kiosk mode.
+     *
+     * @param steps the time steps to advance, at least 1.
+     */
+    public void step(final int steps){
+        updateGame(mTimeStep, steps);
+        mTimeStep += steps;
+    }
+
+    /**
+     * Advances the world one time step, moving the player dot by provided
+     * orientation instead of the sensor data. Used to replay a recorded
+     * game.
+     *
+     * @param orientationX the orientation along the x-axis for this step.
+     * @param orientationY the orientation along the y-axis for this step.
+     */
+    public void step(final float orientationX, final float orientationY){
+        step(1, orientationX, orientationY);
+    }
+
+    /**
+     * Advances the world provided number of time steps in one tick, see
+     * {@code step(int)}, moving the player dot by provided orientation
+     * instead of the sensor data. Used to replay a recorded game.
+     *
+     * @param steps the time steps to advance, at least 1.
+     * @param orientationX the orientation along the x-axis for this tick.
+     * @param orientationY the orientation along the y-axis for this tick.
+     */
+    public void step(final int steps, final float orientationX,
+                     final float orientationY){
+        mPlayerDot.injectOrientation(orientationX, orientationY);
+        step(steps);
+    }
+
+    /**
+     * Writes the whole state of the game to provided buffer: the timers, the
+     * score, the state of the random generator, every dot and the objects
+     * of the player dot and the point dot with their animations. The
+     * buffer has to hold {@code getStateSize()} bytes.
+     *
+     * @param out the buffer to write to.
+     */
+    public void writeState(final ByteBuffer out){
+
+        out.putLong(mTimeStep);
+        out.putLong(mDotCreateStep);
+        out.putDouble(mPointStep);
+        out.putLong(RANDOM.getState());
+        out.putLong(mSeed);
+        out.putInt(score);
+        out.putInt(mColorCounter);
+        out.put((byte) (mKioskMode ? 1 : 0));
+        out.put((byte) (mGameOver ? 1 : 0));
+        out.putInt(mPlayerIndex);
+        out.putInt(mPointIndex);
+        out.putInt(mMotionWidth);
+        out.putInt(mMotionHeight);
+        out.putInt(mTickSteps);
+
+        mPlayerDot.writeState(out);
+        mTimeline.writeState(out);
+
+        // The point dot lives on for a while after it left the world
+        out.put((byte) (mPointDot != null ? 1 : 0));
+        if(mPointDot != null){
+            mPointDot.writeState(out);
+        }
+
+        mWorld.writeState(out);
+    }
+
+    /**
+     * Replaces the state of the game with one written by
+     * {@code writeState(ByteBuffer)}. Continuing from the restored state
+     * gives the same game as continuing from the saved one.
+     *
+     * @param in the buffer to read from.
+     * @throws IllegalArgumentException if the state doesn't fit in this
+     * world.
+     */
+    public void readState(final ByteBuffer in){
+
+        mTimeStep = in.getLong();
+        mDotCreateStep = in.getLong();
+        mPointStep = in.getDouble();
+        RANDOM.setState(in.getLong());
+        mSeed = in.getLong();
+        score = in.getInt();
+        mColorCounter = in.getInt();
+        mKioskMode = in.get() != 0;
+        mGameOver = in.get() != 0;
+        final int playerIndex = in.getInt();
+        final int pointIndex = in.getInt();
+        mMotionWidth = in.getInt();
+        mMotionHeight = in.getInt();
+        mTickSteps = in.getInt();
+        mWorldStep = mTimeStep;
+
+        mPlayerDot.readState(in);
+
+        recyclePointDot();
+        mTimeline.readState(in);
+        if(in.get() != 0){
+            mPointDot = mPointDotPool.obtain();
+            mPointDot.readState(in);
+        }
+
+        mWorld.readState(in);
+        if(playerIndex >= mWorld.size() || pointIndex >= mWorld.size()){
+            throw new IllegalArgumentException("Dot index out of the world");
+        }
+        mPlayerIndex = playerIndex;
+        mPointIndex = pointIndex;
+
+        // The schedule is not saved, every plain dot is checked in the next
+        // time step, and the ones that were flagged are removed in it
+        mScheduler.clear();
+        mTravel = 0l;
+        mMaxDotSpeed = 0.0f;
+        mRemovalCount = 0;
+        mGrid.clear();
+        mGridStep = -1l;
+        for(int i = 0; i < mWorld.size(); i++){
+            mGrid.insert(i, mWorld.originX[i], mWorld.originY[i],
+                    mWorld.size[i] / 2.0f);
+
+            if((mWorld.flags[i] & DotWorld.FLAG_REMOVE) != 0){
+                mRemovals[mRemovalCount++] = i;
+            } else if(mWorld.kind[i] == DotWorld.KIND_SMALL){
+                scheduleDot(i);
+            }
+        }
+        markAllChanged();
+        mScheduledPlayerSize = mPlayerDot.getSize();
+    }
+
+    /**
+     * Gets the most bytes {@code writeState(ByteBuffer)} writes for this
+     * world.
+     * @return the size in bytes.
+     */
+    public int getStateSize(){
+        return STATE_FIXED_SIZE + mTimeline.getStateSize()
+                + mWorld.capacity() * DotWorld.BYTES_PER_DOT;
+    }
+
+    /**
+     * Spawns a static point dot with provided size and with value.
+     *
+     * @param timeStep in which time step the game loop is in.
+     * @param size the size of the small dot.
+     * @param value the worth value which the player receives for consuming
+     *              the dot.
+     * @return a PointDot-object, or null if no free spot was found.
+     */
+    public PointDot spawnPointDot(final long timeStep, final float size,
+                                  final int value){
+
+        // The previous point dot is no longer tracked, let it be removed
+        if(mPointIndex != -1){
+            flagForRemoval(mPointIndex);
+            mPointIndex = -1;
+        }
+        recyclePointDot();
+
+        float x, y;
+        int attempt = 0;
+
+        // Find a spot where the point dot doesn't spawn on any other dot
+        do {
+            if(attempt++ == POINT_DOT_SPAWN_ATTEMPTS){
+                return null;
+            }
+
+            x = RANDOM.nextInt(mConfig.getWidth() - (int) size*2) + size;
+            y = RANDOM.nextInt(mConfig.getHeight() - (int) size*2) + size;
+
+        } while (isOccupied(x, y, size));
+
+        PointDot pDot = mPointDotPool.obtain();
+        pDot.reset(timeStep, x, y, mPlayerDot.color, size, value);
+        sendEvent(EVENT_SOUND_JUMP, 0);
+
+        // Add the dot to the world
+        mPointIndex = addDotToWorld(DotWorld.KIND_POINT, pDot);
+
+        return pDot;
+    }
+
+    /**
+     * Checks to see if a circle overlaps any dot in the world, where the
+     * dots are at the time step the world has been advanced to.
+     *
+     * @param x the x-coordinate of the center.
+     * @param y the y-coordinate of the center.
+     * @param radius the radius of the circle.
+     * @return true if the circle overlaps a dot.
+     */
+    private boolean isOccupied(final float x, final float y,
+                               final float radius){
+        refreshGrid();
+        return mGrid.isOccupied(x, y, radius);
+    }
+
+    /**
+     * Finds the dots which overlap provided circle, where the dots are at
+     * the time step the world has been advanced to.
+     *
+     * @param x the x-coordinate of the center.
+     * @param y the y-coordinate of the center.
+     * @param radius the radius of the circle.
+     * @param out an array to put the indices of the found dots in, dots
+     *            not fitting in the array are counted but not stored.
+     * @return the number of dots found.
+     */
+    public int findDots(final float x, final float y, final float radius,
+                        final int[] out){
+        refreshGrid();
+        return mGrid.queryRadius(x, y, radius, out);
+    }
+
+    /**
+     * Reports every pair of dots which overlap each other, where they are
+     * at the time step the world has been advanced to, once with the lower
+     * index first. Lets the dots collide with each other without checking
+     * every pair.
+     *
+     * @param listener the listener to receive the pairs of indices.
+     */
+    public void forEachOverlap(final SpatialGrid.IOverlapListener listener){
+        refreshGrid();
+        mGrid.forEachOverlap(listener);
+    }
+
+    /**
+     * Brings the grid up to where the dots are at the time step the world
+     * has been advanced to. The dots join and leave the grid with the
+     * world, but their positions are only computed when the grid is asked,
+     * at most once for every tick, rather than every time step.
+     */
+    private void refreshGrid(){
+
+        final long step = mWorldStep;
+        if(step == mGridStep){
+            return;
+        }
+
+        final DotWorld world = mWorld;
+        final float width = mMotionWidth;
+        final float height = mMotionHeight;
+
+        mGrid.resize(mMotionWidth, mMotionHeight);
+        for(int i = 0; i < world.size(); i++){
+            mGrid.update(i, world.getX(i, step, width),
+                    world.getY(i, step, height), world.size[i] / 2.0f);
+        }
+        mGridStep = step;
+    }
+
+    /**
+     * Hands the current point dot back to the pool, it must no longer be in
+     * the world.
+     */
+    private void recyclePointDot(){
+        if(mPointDot != null){
+            mPointDot.cancelAnimations();
+            mPointDotPool.recycle(mPointDot);
+            mPointDot = null;
+        }
+    }
+
+    /**
+     * Spawn the player dot, can only be one.
+     *
+     * @param x the x-coordinate of the player dot.
+     * @param y the y-coordinate of the player dot.
+     * @param size the size of the player dot
+     * @return a PlayerDot-object.
+     */
+    public PlayerDot spawnPlayerDot(final float x, final float y,
+                                    final float size){
+
+        // Get a random color
+        int index = RANDOM.nextInt(colorAlt.length);
+
+        // Create a PlayerDot-object
+        PlayerDot playerDot = new PlayerDot(x, y, colorAlt[index], size,
+                PLAYER_DOT_SPEED_RATIO * mConfig.getDensity(), mConfig);
+
+        // Add the dot to the world
+        mPlayerIndex = addDotToWorld(DotWorld.KIND_PLAYER, playerDot);
+
+        return playerDot;
+
+    }
+
+    /**
+     * Create a point dot which spawn at the edge of the screen, moving in to
+     * the screen.
+     *
+     * @param timeStep the game loops time step.
+     */
+    private void spawnRandomDot(long timeStep) {
+
+        // Get the spawn time step
+        double dif = getSpawnWaitTime(timeStep);
+
+        /*
+         * If there has passed enough time steps from last random dot spawn and
+         * we are eater not in kiosk mode or there exists no more than 10
+         * random dots.
+         */
+
+        if(timeStep - mDotCreateStep > dif
+                && (!mKioskMode || mWorld.size() < 10)){
+
+            // Save current time step
+            mDotCreateStep = timeStep;
+
+            // Create a random dot.
+            createRandomDot(SMALL_DOT_SIZE_RATIO * mConfig.getDensity(),
+                    mConfig.getWidth(),
+                    mConfig.getHeight());
+
+        }
+    }
+
+    /**
+     * Creates the random dot usin som math sp calculate start position and
+     * direction of the dot.
+     *
+     * @param size the size of the dot to create.
+     * @param width the maximum with in where the dot can sapwn.
+     * @param height the maximum height in where the dot can spaw.
+     */
+    public void createRandomDot(final float size,
+                                final int width, final int height){
+
+        // Default values for position and direction
+        float maxX = width - size;
+        float maxY = height - size;
+        float y, x = y =  (float) Math.ceil(size/2.0);
+        float k, vy, vx = vy = 1.0f;
+        float halfY = maxY/2.0f + size/2.0f;
+        float halfX = maxX/2.0f + size/2.0f;
+
+        // Four sides, switch 0-3
+        switch (RANDOM.nextInt(4)){
+
+            // Left
+            case 0:
+                y = RANDOM.nextFloat() * maxY + size;
+                k = y/halfY - 1.0f;
+                vx = Math.abs(k);
+                vy = RANDOM.nextFloat() - k;
+                break;
+
+            // Right
+            case 1:
+                x = (float) Math.floor(maxX + size/2.0f);
+                y = RANDOM.nextFloat() * maxY + size;
+                k = y/halfY - 1.0f;
+                vx = - Math.abs(k);
+                vy = RANDOM.nextFloat() - k;
+                break;
+
+            // Top
+            case 2:
+                x = RANDOM.nextFloat() * maxX + size;
+                k = x/halfX - 1.0f;
+                vx = RANDOM.nextFloat() - k;
+                vy = Math.abs(k);
+                break;
+
+            // Bottom
+            case 3:
+                x = RANDOM.nextFloat() * maxX + size;
+                y = (float) Math.floor(maxY + size/2.0f);
+                k = x/halfX - 1.0f;
+                vx = RANDOM.nextFloat() - k;
+                vy = - Math.abs(k);
+                break;
+        }
+
+        // Keep the dot inside of the range its motion is folded in to, or
+        // the first fold would make it jump
+        final float half = size / 2.0f;
+        x = Math.max(half, Math.min(x, width - half));
+        y = Math.max(half, Math.min(y, height - half));
+
+        // Normalize the vector
+        double normal = Math.sqrt(vx * vx + vy * vy);
+
+        // Get next color in line
+        int color = colorAlt[mColorCounter++ % colorAlt.length];
+
+        // Add it to the world of dots to be drawn on to the screen
+        addDot(DotWorld.KIND_SMALL, x, y,
+                vx/(float)normal, vy/(float)normal,
+                SMALL_DOT_SPEED_RATIO * mConfig.getDensity(),
+                size, color);
+
+    }
+
+    private void spawnBigPoint(long timeStep) {
+
+        long interval = RANDOM.nextInt( (int) POINT_DOT_TIME_BETWEEN);
+        long halfInterval = POINT_DOT_TIME_BETWEEN /2;
+        long randomNanoTime = (interval + halfInterval);
+
+        // If we have an existing dot point
+        if (mPointDot != null) {
+
+            // Se if it is to be removed
+            if(mPointDot.isFlaggedForRemoval()){
+
+                // Check to see that enough time has pasted since it got removed
+                if (timeStep - mPointStep > randomNanoTime) {
+
+                    // Create a new point dot
+                    mPointDot = spawnPointDot(
+                            timeStep,
+                            POINT_DOT_SIZE_RATIO * mConfig.getDensity(),
+                            POINT_DOT_VALUE
+                    );
+                    mPointStep = timeStep;
+                }
+            }
+
+            // Else push the point timer forward
+            else {
+                mPointStep = timeStep;
+            }
+
+        }
+
+        // Else if enough time has past since game start
+        else if (timeStep > randomNanoTime) {
+
+            // Create a mew point dot
+            mPointDot = spawnPointDot(timeStep,
+                    POINT_DOT_SIZE_RATIO * mConfig.getDensity(),
+                    POINT_DOT_VALUE);
+            mPointStep = timeStep;
+        }
+
+    }
+
+    /**
+     * Checks to see if a specific point has collided with a coordinate.
+     *
+     * @param d1 the dot to check.
+     * @param x the x-coordinate of the point to see if the dot has collided
+     *          with.
+     * @param y the y-coordinate of the point.
+     * @param size the diameter around the point in which to return
+     *             true for collision.
+     * @return tru of the dot touches the point, false otherwise
+     */
+    public boolean isPointOnDot(Dot d1, float x, float y, float size){
+        return isPointOnDot(d1.x, d1.y, d1.getSize(), x, y, size);
+    }
+
+    /**
+     * Checks to see if two circles touch each other.
+     *
+     * @param x1 the x-coordinate of the first circle.
+     * @param y1 the y-coordinate of the first circle.
+     * @param size1 the diameter of the first circle.
+     * @param x2 the x-coordinate of the second circle.
+     * @param y2 the y-coordinate of the second circle.
+     * @param size2 the diameter of the second circle.
+     * @return true if the circles touch, false otherwise.
+     */
+    public static boolean isPointOnDot(float x1, float y1, float size1,
+                                       float x2, float y2, float size2){
+
+        float px = x1 - x2;
+        float py = y1 - y2;
+        float reach = (size1 + size2) / 2.0f;
+
+        /* Without using coustfull squar root functions, check to see if the
+         * distance between the point and the dot is smaller the or equal to
+         * the sum of their radii.
+         */
+        return px * px + py * py <= reach * reach;
+    }
+
+    private void updateGame(final long timeStep, final int steps){
+
+        // Dots spawned in this tick start from where they are now
+        mWorldStep = timeStep;
+        mTickSteps = steps;
+
+        // The phases are only timed when asked for, it costs a few calls
+        final boolean timed = mTimed;
+        long start = timed ? System.nanoTime() : 0l;
+
+        spawnRandomDot(timeStep);
+        spawnBigPoint(timeStep);
+
+        if(timed){
+            final long now = System.nanoTime();
+            mSpawnTime = now - start;
+            start = now;
+        }
+
+        updateDots(timeStep);
+
+        if(timed){
+            final long now = System.nanoTime();
+            mUpdateTime = now - start;
+            start = now;
+        }
+
+        collidePlayer(timeStep + steps - 1l);
+
+        if(timed){
+            mCollisionTime = System.nanoTime() - start;
+        }
+    }
+
+    /**
+     * Removes the dots flagged for removal and advances the world the time
+     * steps of the tick. The plain dots are not moved, where they are is
+     * computed from their motion when it is asked for. This is done in
+     * three phases:
+     * <ol>
+     *     <li>the flagged dots are removed, from the highest index down,
+     *     so the dots moved in to their places are never flagged.</li>
+     *     <li>if the world changed size, and once every
+     *     {@code RenderFrame.STEP_BASE_INTERVAL} time steps, every plain
+     *     dot is given a new origin where it is, in chunks of contiguous
+     *     indices that are run in parallel if an executor is set. A chunk
+     *     only touches its own indices.</li>
+     *     <li>the player dot and the point dot are updated through their
+     *     objects, the player dot once for every step, and given the motion
+     *     from where they were to where they are.</li>
+     * </ol>
+     * The world therefore ends up the same with or without an executor.
+     *
+     * @param timeStep the first time step of the tick.
+     */
+    public void updateDots(final long timeStep){
+
+        final DotWorld world = mWorld;
+
+        // The point dot decides by itself when it is done
+        if(mPointIndex != -1 && mPointDot.isFlaggedForRemoval()){
+            mRemovals[mRemovalCount++] = mPointIndex;
+        }
+
+        Arrays.sort(mRemovals, 0, mRemovalCount);
+        while(mRemovalCount > 0){
+            removeDot(mRemovals[--mRemovalCount]);
+        }
+
+        mWorldStep = timeStep;
+        final int steps = mTickSteps;
+
+        // If the world changed size, the plain dots go on from where they
+        // are instead of from where they would be in the new world
+        final int width = mConfig.getWidth();
+        final int height = mConfig.getHeight();
+        if(width != mMotionWidth || height != mMotionHeight){
+            rebaseDots();
+            mMotionWidth = width;
+            mMotionHeight = height;
+
+            // Dots outside of the new world are moved in to it
+            mScheduler.scheduleAll(mTravel);
+        }
+
+        // Else their origins are moved along when the step base of the
+        // frames moves, so the time since stays small enough for a float
+        else if((timeStep + steps) / RenderFrame.STEP_BASE_INTERVAL
+                != timeStep / RenderFrame.STEP_BASE_INTERVAL){
+            rebaseDots();
+        }
+
+        final long lastStep = timeStep + steps - 1l;
+        mWorldStep = lastStep + 1l;
+
+        // The dots with objects are updated after their animations
+        updateAnimations(lastStep);
+        if(mPlayerIndex != -1){
+            final float x = mPlayerDot.x;
+            final float y = mPlayerDot.y;
+            for(long step = timeStep; step <= lastStep; step++){
+                mPlayerDot.update(step);
+            }
+            world.setMotion(mPlayerIndex, x, y, (mPlayerDot.x - x) / steps,
+                    (mPlayerDot.y - y) / steps, timeStep);
+            world.size[mPlayerIndex] = mPlayerDot.getSize();
+            world.color[mPlayerIndex] = mPlayerDot.color;
+            markChanged(mPlayerIndex);
+        }
+        if(mPointIndex != -1){
+            mPointDot.update(lastStep);
+            world.size[mPointIndex] = mPointDot.getSize();
+            markChanged(mPointIndex);
+        }
+    }
+
+    /**
+     * Makes where every plain dot is at the time step the world has been
+     * advanced to its origin, see {@code DotWorld.rebase}, on the threads
+     * of the executor if one is set and the world has more than a chunk of
+     * dots.
+     */
+    private void rebaseDots(){
+
+        final int count = mWorld.size();
+        final int chunks = (count + PARALLEL_CHUNK_SIZE - 1)
+                / PARALLEL_CHUNK_SIZE;
+
+        if(mExecutor != null && chunks > 1){
+            mExecutor.run(mRebaseTask, chunks);
+        } else {
+            rebaseDots(0, count);
+        }
+        markAllChanged();
+    }
+
+    /**
+     * Rebases the plain dots in provided range of indices. Touches nothing
+     * outside of the range, so ranges can be rebased in parallel.
+     *
+     * @param from the first index.
+     * @param to the index after the last.
+     */
+    private void rebaseDots(final int from, final int to){
+
+        final DotWorld world = mWorld;
+        final long step = mWorldStep;
+        final float width = mMotionWidth;
+        final float height = mMotionHeight;
+
+        for(int i = from; i < to; i++){
+            if(world.kind[i] == DotWorld.KIND_SMALL){
+                world.rebase(i, step, width, height);
+            }
+        }
+    }
+
+    /**
+     * Updates all animations in one pass, then lets the owners of the ones
+     * that completed know.
+     *
+     * @param timeStep the current time step of the game loop.
+     */
+    private void updateAnimations(final long timeStep){
+
+        mTimeline.update(timeStep);
+
+        int tween;
+        while((tween = mTimeline.pollCompleted()) != Timeline.NONE){
+            if(mTimeline.getTarget(tween) == TARGET_POINT_DOT
+                    && mPointDot != null){
+                mPointDot.onAnimationComplete(tween, timeStep);
+            }
+        }
+    }
+
+    /**
+     * Checks the dots that are due against the player for collisions and
+     * flags the ones that collided for removal. The dots that didn't collide
+     * are scheduled to be checked again when the dots and the player dot
+     * have moved far enough to close the gap. Only the dots that are
+     * checked have their positions computed. The collisions are handled in
+     * the order of the dots in the world, the same as if every dot was
+     * checked.
+     *
+     * @param timeStep the current time step of the game loop.
+     */
+    public void collidePlayer(final long timeStep){
+
+        mCollisionChecks = 0;
+        if(mPlayerIndex == -1 || mKioskMode){
+            return;
+        }
+
+        final DotWorld world = mWorld;
+        final float playerSize = mPlayerDot.getSize();
+
+        // Everything is checked from where it was when the tick started to
+        // where it is now
+        final long to = mWorldStep;
+        final long from = to - mTickSteps;
+        final float width = mMotionWidth;
+        final float height = mMotionHeight;
+        final int player = mPlayerIndex;
+        final float fromX = world.getX(player, from, width);
+        final float fromY = world.getY(player, from, height);
+        final float toX = world.getX(player, to, width);
+        final float toY = world.getY(player, to, height);
+
+        // The gaps closed by at most the fastest dot and the player dot,
+        // and by half of what the player dot grew, it reaches further
+        final float dx = toX - fromX;
+        final float dy = toY - fromY;
+        final float grown = Math.max(0.0f, playerSize - mScheduledPlayerSize);
+        mTravel += CollisionScheduler.getMovedTravel(mMaxDotSpeed * mTickSteps
+                + (float) Math.sqrt(dx * dx + dy * dy) + grown / 2.0f);
+        mScheduledPlayerSize = playerSize;
+        final long travel = mTravel;
+
+        int found = 0;
+        int i;
+        while((i = mScheduler.pollDue(travel)) != CollisionScheduler.NONE){
+            mCollisionChecks++;
+
+            final float x = world.getX(i, to, width);
+            final float y = world.getY(i, to, height);
+            if(didTouch(fromX, fromY, toX, toY, playerSize,
+                    world.getX(i, from, width), world.getY(i, from, height),
+                    x, y, world.size[i])){
+
+                // Collided dots are removed, no need to schedule them
+                mNearby[found++] = i;
+            } else {
+                final float gx = x - toX;
+                final float gy = y - toY;
+                final long gap = CollisionScheduler.getGapTravel(
+                        (float) Math.sqrt(gx * gx + gy * gy),
+                        (world.size[i] + playerSize) / 2.0f);
+                mScheduler.schedule(i, travel + Math.max(1l, gap));
+            }
+        }
+
+        // The point dot changes size, it is checked every time step
+        if(mPointIndex != -1){
+            mCollisionChecks++;
+            i = mPointIndex;
+            if(didTouch(fromX, fromY, toX, toY, playerSize,
+                    world.getX(i, from, width), world.getY(i, from, height),
+                    world.getX(i, to, width), world.getY(i, to, height),
+                    world.size[i])){
+                mNearby[found++] = i;
+            }
+        }
+
+        Arrays.sort(mNearby, 0, found);
+        for(int n = 0; n < found; n++){
+            i = mNearby[n];
+
+            // Unless the dot is already on its way out, flagForRemoval
+            if (!isFlaggedForRemoval(i)) {
+                collide(mPlayerDot, i);
+
+                if(i == mPointIndex){
+                    mPointDot.flagForForceRemoval(timeStep);
+
+                } else {
+                    flagForRemoval(i);
+                }
+            }
+        }
+    }
+
+    /**
+     * Copies the motion, color and size of every dot in to provided frame.
+     * Only the dots that changed since the frame was packed by this
+     * simulation are copied, unless too many did or every dot did.
+     *
+     * @param frame the frame to fill, must hold at least the dot limit.
+     */
+    public void packRenderArrays(final RenderFrame frame){
+
+        final DotWorld world = mWorld;
+
+        // Only moves when the game has gone on for long, which makes every
+        // motion change once
+        final long base = mTimeStep / RenderFrame.STEP_BASE_INTERVAL
+                * RenderFrame.STEP_BASE_INTERVAL;
+
+        if(frame.packedBy != this || frame.stepBase != base
+                || frame.packedChange < mPackAllChange
+                || mChangeCount - frame.packedChange
+                > RENDER_CHANGE_LOG_SIZE){
+            for(int i = 0; i < world.size(); i++){
+                packDot(frame, i, base);
+            }
+        } else {
+            for(long c = frame.packedChange; c < mChangeCount; c++){
+                final int i = mChanges[(int) (c % RENDER_CHANGE_LOG_SIZE)];
+
+                // Dots removed since are left out of the frame
+                if(i < world.size()){
+                    packDot(frame, i, base);
+                }
+            }
+        }
+
+        frame.packedBy = this;
+        frame.packedChange = mChangeCount;
+        frame.count = world.size();
+        frame.timeStep = mTimeStep;
+        frame.steps = mTickSteps;
+        frame.stepBase = base;
+        frame.width = mMotionWidth;
+        frame.height = mMotionHeight;
+    }
+
+    /**
+     * Copies the motion, color and size of the dot at provided index in to
+     * provided frame.
+     *
+     * @param frame the frame to fill.
+     * @param i the index of the dot.
+     * @param base the step base of the frame.
+     */
+    private void packDot(final RenderFrame frame, final int i,
+                         final long base){
+
+        final DotWorld world = mWorld;
+        final float[] motions = frame.motions;
+
+        // A dot that stands still keeps the same motion, even if it is
+        // given a new one every tick
+        final float speed = world.velocity[i];
+        final boolean still = world.vx[i] == 0.0f && world.vy[i] == 0.0f;
+
+        final int m = i * RenderFrame.SIZE_OF_MOTION;
+        motions[m + RenderFrame.MOTION_ORIGIN_X] = world.originX[i];
+        motions[m + RenderFrame.MOTION_ORIGIN_Y] = world.originY[i];
+        motions[m + RenderFrame.MOTION_VELOCITY_X] = world.vx[i] * speed;
+        motions[m + RenderFrame.MOTION_VELOCITY_Y] = world.vy[i] * speed;
+        motions[m + RenderFrame.MOTION_STEP]
+                = still ? 0.0f : (float) (world.originStep[i] - base);
+        motions[m + RenderFrame.MOTION_BOUNCE]
+                = world.kind[i] == DotWorld.KIND_SMALL ? 1.0f : 0.0f;
+
+        frame.colors[i] = world.color[i];
+        frame.sizes[i * RenderFrame.SIZE_OF_DOT_SIZE] = world.size[i];
+    }
+
+    /**
+     * Remembers that the dot at provided index changed, so it is packed in
+     * to the next frames.
+     *
+     * @param index the index of the dot.
+     */
+    private void markChanged(final int index){
+        mChanges[(int) (mChangeCount % RENDER_CHANGE_LOG_SIZE)] = index;
+        mChangeCount++;
+    }
+
+    /**
+     * Remembers that every dot changed, so the next frames are packed
+     * whole.
+     */
+    private void markAllChanged(){
+        mPackAllChange = ++mChangeCount;
+    }
+
+    /**
+     * Flags the dot at provided index to be removed in the next tick.
+     *
+     * @param index the index of the dot.
+     */
+    private void flagForRemoval(final int index){
+        mWorld.flags[index] |= DotWorld.FLAG_REMOVE;
+        mRemovals[mRemovalCount++] = index;
+    }
+
+    /**
+     * Checks to see if the dot at provided index is ready to be removed.
+     *
+     * @param index the index of the dot in the world.
+     * @return true if the dot is ready to be removed, false otherwise.
+     */
+    private boolean isFlaggedForRemoval(final int index){
+
+        // The point dot decides by itself, it might still be animating
+        if(index == mPointIndex){
+            return mPointDot.isFlaggedForRemoval();
+        }
+
+        return (mWorld.flags[index] & DotWorld.FLAG_REMOVE) != 0;
+    }
+
+    /**
+     * Removes a dot from the dot world.
+     * @param index the index of the dot to remove.
+     */
+    public void removeDot(final int index){
+
+        // The last dot is moved in to the removed index
+        final int moved = mWorld.remove(index);
+        mScheduler.remove(index);
+        mScheduler.move(moved, index);
+        mGrid.remove(index);
+        mGrid.move(moved, index);
+        markChanged(index);
+
+        // The flagged dots left to remove follow the moved dot
+        for(int n = mRemovalCount - 1; n >= 0; n--){
+            if(mRemovals[n] == index){
+                mRemovals[n] = mRemovals[--mRemovalCount];
+            } else if(mRemovals[n] == moved){
+                mRemovals[n] = index;
+            }
+        }
+
+        if(mPlayerIndex == index){
+            mPlayerIndex = -1;
+        } else if(mPlayerIndex == moved){
+            mPlayerIndex = index;
+        }
+
+        if(mPointIndex == index){
+            mPointIndex = -1;
+        } else if(mPointIndex == moved){
+            mPointIndex = index;
+        }
+    }
+
+    /**
+     * Checks to see if two circles touched at any time while they moved,
+     * each in a straight line from its previous to its current position.
+     * The gap between them is smallest where the motion of one relative to
+     * the other passes closest by, and the two are checked at that time.
+     *
+     * @param fromX1 the previous x-coordinate of the first circle.
+     * @param fromY1 the previous y-coordinate of the first circle.
+     * @param toX1 the current x-coordinate of the first circle.
+     * @param toY1 the current y-coordinate of the first circle.
+     * @param size1 the diameter of the first circle.
+     * @param fromX2 the previous x-coordinate of the second circle.
+     * @param fromY2 the previous y-coordinate of the second circle.
+     * @param toX2 the current x-coordinate of the second circle.
+     * @param toY2 the current y-coordinate of the second circle.
+     * @param size2 the diameter of the second circle.
+     * @return true if the circles touched, false otherwise.
+     */
+    public static boolean didTouch(float fromX1, float fromY1, float toX1,
+                                   float toY1, float size1, float fromX2,
+                                   float fromY2, float toX2, float toY2,
+                                   float size2){
+
+        // Where the second circle is relative to the first, and how that
+        // moved
+        final float rx = fromX2 - fromX1;
+        final float ry = fromY2 - fromY1;
+        final float mx = toX2 - toX1 - rx;
+        final float my = toY2 - toY1 - ry;
+
+        // The time of the closest pass, from 0 to 1
+        final float moved = mx * mx + my * my;
+        float t = moved > 0.0f ? -(rx * mx + ry * my) / moved : 1.0f;
+        t = t < 0.0f ? 0.0f : (t > 1.0f ? 1.0f : t);
+
+        return isPointOnDot(lerp(fromX1, toX1, t), lerp(fromY1, toY1, t),
+                size1, lerp(fromX2, toX2, t), lerp(fromY2, toY2, t), size2);
+    }
+
+    private static float lerp(final float from, final float to,
+                              final float t){
+        return from + (to - from) * t;
+    }
+
+    /**
+     * Scores the collision of the player dot with the dot at provided
+     * index, or ends the game if the dot had the wrong color.
+     *
+     * @param playerDot the dot controlled by the player
+     * @param index the index of the dot the player collided with.
+     */
+    private void collide(final PlayerDot playerDot, final int index){
+
+        // If the player collided with a point dot
+        if(mWorld.kind[index] == DotWorld.KIND_POINT){
+
+            // Increment the score
+            sendEvent(EVENT_SCORE_CHANGED, score += 5);
+
+            // Switch color on model
+            switchColorOnDot(playerDot);
+
+        }
+
+        // If color is equal to the color of player
+        else if(playerDot.color == mWorld.color[index]){
+            sendEvent(EVENT_SCORE_CHANGED, ++score);
+        }
+
+        // Collision occurred wrong color
+        else {
+
+            // End the game
+            mGameOver = true;
+            sendEvent(EVENT_GAME_OVER, score);
+        }
+
+        // Play a sound for collection a dot
+        sendEvent(EVENT_SOUND_BLOP, 0);
+    }
+
+
+    private void switchColorOnDot(PlayerDot pDot) {
+        int i;
+        for(i = RANDOM.nextInt(colorAlt.length);
+            pDot.color == colorAlt[i];
+            i = RANDOM.nextInt(colorAlt.length)){}
+
+        pDot.color = colorAlt[i];
+    }
+
+    /**
+     * Checks to se if provided coordinate and size is outside the world.
+     * @param x the x-coordinate of the point.
+     * @param y the y-coordinate of the point.
+     * @param size the size of the point.
+     * @param config the world to check against.
+     * @return a bit mask of the OUT_OF_-constants, one bit for each of the
+     * four sides the point is outside of. Zero if the point is on screen.
+     */
+    public static int getOutOfScreenEdges(float x, float y, float size,
+                                          WorldConfig config){
+
+        final float half = size / 2.0f;
+        int edges = 0;
+
+        if(x - half < 0) edges |= OUT_OF_LEFT;
+        if(y - half < 0) edges |= OUT_OF_TOP;
+        if(x + half > config.getWidth()) edges |= OUT_OF_RIGHT;
+        if(y + half > config.getHeight()) edges |= OUT_OF_BOTTOM;
+
+        return edges;
+    }
+
+    /**
+     * Adds a copy of provided dot to the world.
+     *
+     * @param kind what kind of dot, one of the DotWorld.KIND_-constants.
+     * @param dot the dot to copy.
+     * @return the index of the dot, or -1 if the world is full.
+     */
+    private int addDotToWorld(final int kind, final Dot dot){
+
+        // It stands still until it is updated
+        return addDot(kind, dot.x, dot.y, 0.0f, 0.0f, 1.0f, dot.getSize(),
+                dot.color);
+    }
+
+    /**
+     * Adds a dot to the world and to the collision schedule.
+     *
+     * @return the index of the dot, or -1 if the world is full.
+     */
+    public int addDot(final int kind, final float x, final float y,
+                      final float vx, final float vy, final float velocity,
+                      final float size, final int color){
+
+        final int index = mWorld.add(kind, x, y, vx, vy, velocity, size, color,
+                mWorldStep);
+
+        if(index != -1){
+            markChanged(index);
+
+            // It is at its origin until the world is advanced
+            mGrid.insert(index, x, y, size / 2.0f);
+
+            // Plain dots are checked against the player dot on schedule,
+            // starting with the time step they are spawned in
+            if(kind == DotWorld.KIND_SMALL){
+                scheduleDot(index);
+            }
+        }
+
+        return index;
+    }
+
+    private void scheduleDot(final int index){
+
+        final DotWorld world = mWorld;
+        final float speed = world.velocity[index] * (float) Math.sqrt(
+                world.vx[index] * world.vx[index]
+                        + world.vy[index] * world.vy[index]);
+
+        mMaxDotSpeed = Math.max(mMaxDotSpeed, speed);
+        mScheduler.schedule(index, mTravel);
+    }
+
+    /**
+     * Getches the time until next random small dot should spawn.
+     *
+     * @param timeStep the game loops current time stamp.
+     * @return the time to wait.
+     */
+    private double getSpawnWaitTime(long timeStep) {
+
+        if(mKioskMode){
+            return SMALL_DOT_CREATE_INTERVAL;
+        }
+
+        double percent = (double) timeStep / (double)
+                MAX_TIME_DIFFICULTY;
+
+        percent = percent > 1.0? 1.0 : percent;
+
+        double time = SMALL_DOT_CREATE_INTERVAL * (1.0 - percent );
+
+        // Cap the output to zero at minimum
+        return time;
+
+    }
+
+    /**
+     * Sets the player dots movement from the orientation of the device.
+     *
+     * @param timestamp the time of the sample in nanoseconds.
+     * @param x the orientation along the x-axis.
+     * @param y the orientation along the y-axis.
+     */
+    public void updateOrientation(final long timestamp, final float x,
+                                  final float y){
+        mPlayerDot.updateOrientation(timestamp, x, y);
+    }
+
+    /**
+     * Sets a listener to receive the side effects of the simulation.
+     * @param listener the listener to set.
+     */
+    public void setListener(final ISimulationListener listener){
+        mListener = listener;
+    }
+
+    private void sendEvent(final int event, final int value){
+        if(mListener != null){
+            mListener.onSimulationEvent(event, value);
+        }
+    }
+
+    /**
+     * Gets the dot world, to be read from the thread running the simulation.
+     * @return the dot world.
+     */
+    public DotWorld getWorld(){
+        return mWorld;
+    }
+
+    /**
+     * Gets the player dot.
+     * @return the player dot.
+     */
+    public PlayerDot getPlayerDot(){
+        return mPlayerDot;
+    }
+
+    /**
+     * Gets the number of dots currently in the world.
+     *
+     * @return the number of dots.
+     */
+    public int getDotCount(){
+        return mWorld.size();
+    }
+
+    /**
+     * Gets the current score.
+     * @return current score.
+     */
+    public int getScore(){
+        return score;
+    }
+
+    /**
+     * Gets the time step the next call to {@code step()} will simulate.
+     * @return the time step.
+     */
+    public long getTimeStep(){
+        return mTimeStep;
+    }
+
+    /**
+     * Gets the seed the game was started from.
+     * @return the seed.
+     */
+    public long getSeed(){
+        return mSeed;
+    }
+
+    /**
+     * Sets an executor to rebase the dots on in parallel, for worlds with
+     * many thousands of dots. The result is the same as without one.
+     *
+     * @param executor the executor, or null to move the dots on the calling
+     *                 thread.
+     */
+    public void setExecutor(final ChunkExecutor executor){
+        mExecutor = executor;
+    }
+
+    /**
+     * Turns the timing of the phases of each step on or off.
+     * @param timed true to time the phases.
+     */
+    public void setTimed(final boolean timed){
+        mTimed = timed;
+    }
+
+    /**
+     * Gets the number of dots checked against the player dot in the last
+     * step.
+     *
+     * @return the number of dots.
+     */
+    public int getCollisionCheckCount(){
+        return mCollisionChecks;
+    }
+
+    /**
+     * Gets the time the last step spent spawning dots, if timed.
+     * @return the time in nanoseconds.
+     */
+    public long getSpawnTime(){
+        return mSpawnTime;
+    }
+
+    /**
+     * Gets the time the last step spent moving dots, if timed.
+     * @return the time in nanoseconds.
+     */
+    public long getUpdateTime(){
+        return mUpdateTime;
+    }
+
+    /**
+     * Gets the time the last step spent colliding the player, if timed.
+     * @return the time in nanoseconds.
+     */
+    public long getCollisionTime(){
+        return mCollisionTime;
+    }
+
+    /**
+     * Checks to see if the player has collided with a dot of the wrong
+     * color since the last reset.
+     * @return true if the game is over.
+     */
+    public boolean isGameOver(){
+        return mGameOver;
+    }
+
+    /**
+     * Checks to see if the simulation is running in kiosk mode.
+     * @return true in kiosk mode.
+     */
+    public boolean isInKioskMode(){
+        return mKioskMode;
+    }
+
+    /**
+     * Gets the size and density of the world.
+     * @return the world config.
+     */
+    public WorldConfig getConfig(){
+        return mConfig;
+    }
+}
@@ -0,0 +1,142 @@
+package com.fredrikux.unitedcolors.models;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.zip.CRC32;
+
+/**
+ * Encodes the whole state of a {@link Simulation} in to a compact, versioned
+ * and checksummed binary snapshot, and restores it again. A snapshot is a
+ * 16 byte header followed by the state written by
+ * {@code Simulation.writeState(ByteBuffer)}:
+ * <pre>
+ *     int   magic, "UCSS"
+ *     int   version
+ *     int   length of the state in bytes
+ *     int   CRC32 of the state
+ * </pre>
+ * A snapshot that was torn by the process dying mid-write, or that was
+ * written by another version, is rejected as a whole instead of being half
+ * restored. The state is encoded in to a preallocated buffer, so writing
+ * and reading a snapshot doesn't allocate and costs time in proportion to
+ * the number of dots.
+ */
+public class Snapshot {
+
+    /*
+     * STATIC FINAL FIELDS
+     */
+    public static final int MAGIC = 0x55435353;
+    public static final int VERSION = 6;
+    public static final int HEADER_SIZE = 16;
+
+    /*
+     * FINAL FIELDS
+     */
+    private final byte[] mBytes;
+    private final ByteBuffer mState;
+    private final CRC32 mCrc = new CRC32();
+
+    /**
+     * Creates a Snapshot-object for the simulations of the size of provided
+     * one.
+     *
+     * @param simulation a simulation of the size to snapshot.
+     */
+    public Snapshot(final Simulation simulation){
+        mBytes = new byte[simulation.getStateSize()];
+        mState = ByteBuffer.wrap(mBytes);
+    }
+
+    /**
+     * Gets the most bytes a snapshot takes, header included.
+     * @return the size in bytes.
+     */
+    public int getMaxSize(){
+        return HEADER_SIZE + mBytes.length;
+    }
+
+    /**
+     * Writes a snapshot of provided simulation to the buffer, starting at
+     * its position.
+     *
+     * @param simulation the simulation to snapshot.
+     * @param out the buffer to write to, with room for
+     *            {@code getMaxSize()} bytes.
+     * @return the number of bytes written.
+     */
+    public int write(final Simulation simulation, final ByteBuffer out){
+
+        mState.clear();
+        simulation.writeState(mState);
+        final int length = mState.position();
+
+        mCrc.reset();
+        mCrc.update(mBytes, 0, length);
+
+        out.putInt(MAGIC);
+        out.putInt(VERSION);
+        out.putInt(length);
+        out.putInt((int) mCrc.getValue());
+        out.put(mBytes, 0, length);
+
+        return HEADER_SIZE + length;
+    }
+
+    /**
+     * Restores provided simulation from a snapshot in the buffer, starting
+     * at its position. The checksum is verified before anything is
+     * restored, so a damaged snapshot leaves the simulation as it was. A
+     * snapshot that passes but doesn't fit the simulation leaves it reset.
+     *
+     * @param simulation the simulation to restore.
+     * @param in the buffer to read from.
+     * @throws IOException if the snapshot is damaged, of another version or
+     * doesn't fit the simulation.
+     */
+    public void read(final Simulation simulation, final ByteBuffer in)
+            throws IOException {
+
+        final int length;
+        try {
+            if(in.getInt() != MAGIC){
+                throw new IOException("Not a snapshot");
+            }
+
+            final int version = in.getInt();
+            if(version != VERSION){
+                throw new IOException("Unsupported snapshot version: "
+                        + version);
+            }
+
+            length = in.getInt();
+            if(length < 0 || length > mBytes.length){
+                throw new IOException("Invalid snapshot length: " + length);
+            }
+
+            final int crc = in.getInt();
+            in.get(mBytes, 0, length);
+
+            mCrc.reset();
+            mCrc.update(mBytes, 0, length);
+            if((int) mCrc.getValue() != crc){
+                throw new IOException("Snapshot checksum mismatch");
+            }
+        } catch (BufferUnderflowException e) {
+            throw new IOException("Truncated snapshot", e);
+        }
+
+        mState.clear();
+        mState.limit(length);
+
+        try {
+            simulation.readState(mState);
+        } catch (RuntimeException e) {
+
+            // Don't leave a half restored game behind
+            simulation.reset(true);
+            throw new IOException("Snapshot doesn't fit the simulation", e);
+        }
+    }
+}
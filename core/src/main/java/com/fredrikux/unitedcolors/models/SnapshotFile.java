@@ -0,0 +1,104 @@
+package com.fredrikux.unitedcolors.models;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Keeps the {@link Snapshot} of a simulation in a memory mapped file. The
+ * file is mapped once at its full size, so saving is a copy in to memory
+ * that the operating system writes back even if the process is killed
+ * right after, and restoring reads straight from the page cache.
+ */
+public class SnapshotFile {
+
+    /*
+     * FINAL FIELDS
+     */
+    private final File mFile;
+    private final Snapshot mSnapshot;
+
+    /*
+     * OTHER FIELDS
+     */
+    private MappedByteBuffer mMapped;
+
+    /**
+     * Creates a SnapshotFile-object, the file is not touched until the first
+     * save or restore.
+     *
+     * @param file the file to keep the snapshot in.
+     * @param simulation a simulation of the size to snapshot.
+     */
+    public SnapshotFile(final File file, final Simulation simulation){
+        mFile = file;
+        mSnapshot = new Snapshot(simulation);
+    }
+
+    private MappedByteBuffer map() throws IOException {
+
+        if(mMapped == null){
+            RandomAccessFile raf = new RandomAccessFile(mFile, "rw");
+            try {
+
+                // The mapping stays valid after the file is closed
+                mMapped = raf.getChannel().map(FileChannel.MapMode.READ_WRITE,
+                        0, mSnapshot.getMaxSize());
+            } finally {
+                raf.close();
+            }
+        }
+
+        mMapped.clear();
+        return mMapped;
+    }
+
+    /**
+     * Saves a snapshot of provided simulation, replacing the previous one.
+     *
+     * @param simulation the simulation to save.
+     * @return the size of the snapshot in bytes.
+     * @throws IOException if the file can't be mapped.
+     */
+    public int save(final Simulation simulation) throws IOException {
+        return mSnapshot.write(simulation, map());
+    }
+
+    /**
+     * Restores provided simulation from the saved snapshot.
+     *
+     * @param simulation the simulation to restore.
+     * @return false if there is no saved snapshot.
+     * @throws IOException if the snapshot is damaged or of another version.
+     */
+    public boolean restore(final Simulation simulation) throws IOException {
+
+        if(!mFile.exists() || mFile.length() < Snapshot.HEADER_SIZE){
+            return false;
+        }
+
+        mSnapshot.read(simulation, map());
+        return true;
+    }
+
+    /**
+     * Forgets the saved snapshot, so the next restore finds nothing.
+     *
+     * @throws IOException if the file can't be mapped.
+     */
+    public void clear() throws IOException {
+        if(mFile.exists()){
+            map().putInt(0);
+        }
+    }
+
+    /**
+     * Gets the file the snapshot is kept in.
+     * @return the file.
+     */
+    public File getFile(){
+        return mFile;
+    }
+}
@@ -0,0 +1,365 @@
+package com.fredrikux.unitedcolors.models;
+
+/**
+ * A uniform grid used as a spatial index over circles. Every entry is
+ * identified by an integer id, in the game the id is the dots index in the
+ * {@link DotWorld}. Each cell keeps a linked list of its entries, the links
+ * are stored in primitive arrays so updating the grid never allocates. An
+ * entry is only relinked when it moves in to another cell, which makes it
+ * cheap to bring the grid up to date before it is queried.
+ */
+public class SpatialGrid {
+
+    /*
+     * STATIC FINAL FIELDS
+     */
+    private static final int NONE = -1;
+
+    /*
+     * FINAL FIELDS
+     */
+    private final float mCellSize;
+    private final int[] mNext;
+    private final int[] mPrev;
+    private final int[] mCell;
+    private final float[] mX;
+    private final float[] mY;
+    private final float[] mRadius;
+
+    /*
+     * OTHER FIELDS
+     */
+    private int[] mCellHead = new int[]{NONE};
+    private int mColumns = 1;
+    private int mRows = 1;
+    private int mWidth = 0;
+    private int mHeight = 0;
+    private float mMaxRadius = 0.0f;
+
+    /**
+     * A listener which receives each pair of overlapping entries.
+     */
+    public interface IOverlapListener {
+        void onOverlap(int a, int b);
+    }
+
+    /**
+     * Creates a SpatialGrid-object.
+     *
+     * @param capacity the highest id plus one that can be stored.
+     * @param cellSize the width and height of a cell, preferably the
+     *                 diameter of the biggest entry.
+     */
+    public SpatialGrid(final int capacity, final float cellSize){
+        mCellSize = cellSize < 1.0f ? 1.0f : cellSize;
+
+        mNext = new int[capacity];
+        mPrev = new int[capacity];
+        mCell = new int[capacity];
+        mX = new float[capacity];
+        mY = new float[capacity];
+        mRadius = new float[capacity];
+
+        for(int i = 0; i < capacity; i++){
+            mCell[i] = NONE;
+        }
+    }
+
+    /**
+     * Sets the area covered by the grid, entries outside of the area are
+     * kept in the cells along its border. All entries are relinked if the
+     * size changed.
+     *
+     * @param width the width of the area.
+     * @param height the height of the area.
+     */
+    public void resize(final int width, final int height){
+
+        if(width == mWidth && height == mHeight){
+            return;
+        }
+
+        mWidth = width;
+        mHeight = height;
+        mColumns = Math.max(1, (int) Math.ceil(width / mCellSize));
+        mRows = Math.max(1, (int) Math.ceil(height / mCellSize));
+
+        if(mCellHead.length < mColumns * mRows){
+            mCellHead = new int[mColumns * mRows];
+        }
+
+        for(int c = 0; c < mCellHead.length; c++){
+            mCellHead[c] = NONE;
+        }
+
+        // Link every entry again using the new cells
+        for(int id = 0; id < mCell.length; id++){
+            if(mCell[id] != NONE){
+                link(id, cellOf(mX[id], mY[id]));
+            }
+        }
+    }
+
+    /**
+     * Removes all entries from the grid.
+     */
+    public void clear(){
+
+        for(int c = 0; c < mCellHead.length; c++){
+            mCellHead[c] = NONE;
+        }
+
+        for(int id = 0; id < mCell.length; id++){
+            mCell[id] = NONE;
+        }
+
+        mMaxRadius = 0.0f;
+    }
+
+    /**
+     * Inserts a new entry in to the grid.
+     *
+     * @param id the id of the entry.
+     * @param x the x-coordinate of the center.
+     * @param y the y-coordinate of the center.
+     * @param radius the radius of the entry.
+     */
+    public void insert(final int id, final float x, final float y,
+                       final float radius){
+
+        mX[id] = x;
+        mY[id] = y;
+        mRadius[id] = radius;
+
+        if(radius > mMaxRadius){
+            mMaxRadius = radius;
+        }
+
+        link(id, cellOf(x, y));
+    }
+
+    /**
+     * Updates the position and radius of an entry, the entry is only
+     * relinked if it moved in to another cell.
+     *
+     * @param id the id of the entry.
+     * @param x the new x-coordinate of the center.
+     * @param y the new y-coordinate of the center.
+     * @param radius the new radius of the entry.
+     */
+    public void update(final int id, final float x, final float y,
+                       final float radius){
+
+        mX[id] = x;
+        mY[id] = y;
+        mRadius[id] = radius;
+
+        if(radius > mMaxRadius){
+            mMaxRadius = radius;
+        }
+
+        final int cell = cellOf(x, y);
+        if(cell != mCell[id]){
+            unlink(id);
+            link(id, cell);
+        }
+    }
+
+    /**
+     * Removes an entry from the grid.
+     *
+     * @param id the id of the entry.
+     */
+    public void remove(final int id){
+        if(mCell[id] != NONE){
+            unlink(id);
+        }
+    }
+
+    /**
+     * Gives an entry a new id, used together with the swap-removal of the
+     * {@link DotWorld}. The new id must not be in use.
+     *
+     * @param from the current id of the entry.
+     * @param to the new id of the entry.
+     */
+    public void move(final int from, final int to){
+
+        if(from == to || mCell[from] == NONE){
+            return;
+        }
+
+        final float x = mX[from];
+        final float y = mY[from];
+        final float radius = mRadius[from];
+
+        unlink(from);
+
+        mX[to] = x;
+        mY[to] = y;
+        mRadius[to] = radius;
+        link(to, cellOf(x, y));
+    }
+
+    /**
+     * Finds all entries which overlap provided circle.
+     *
+     * @param x the x-coordinate of the center.
+     * @param y the y-coordinate of the center.
+     * @param radius the radius of the circle.
+     * @param out an array to put the ids of the found entries in, entries
+     *            not fitting in the array are counted but not stored.
+     * @return the number of entries found.
+     */
+    public int queryRadius(final float x, final float y, final float radius,
+                           final int[] out){
+
+        final float reach = radius + mMaxRadius;
+        final int minC = column(x - reach);
+        final int maxC = column(x + reach);
+        final int minR = row(y - reach);
+        final int maxR = row(y + reach);
+
+        int found = 0;
+        for(int r = minR; r <= maxR; r++){
+            for(int c = minC; c <= maxC; c++){
+                for(int id = mCellHead[r * mColumns + c]; id != NONE;
+                    id = mNext[id]){
+
+                    if(overlaps(id, x, y, radius)){
+                        if(found < out.length){
+                            out[found] = id;
+                        }
+                        found++;
+                    }
+                }
+            }
+        }
+
+        return found;
+    }
+
+    /**
+     * Checks to see if any entry overlaps provided circle.
+     *
+     * @param x the x-coordinate of the center.
+     * @param y the y-coordinate of the center.
+     * @param radius the radius of the circle.
+     * @return true if at least one entry overlaps, false otherwise.
+     */
+    public boolean isOccupied(final float x, final float y,
+                              final float radius){
+
+        final float reach = radius + mMaxRadius;
+        final int minC = column(x - reach);
+        final int maxC = column(x + reach);
+        final int minR = row(y - reach);
+        final int maxR = row(y + reach);
+
+        for(int r = minR; r <= maxR; r++){
+            for(int c = minC; c <= maxC; c++){
+                for(int id = mCellHead[r * mColumns + c]; id != NONE;
+                    id = mNext[id]){
+
+                    if(overlaps(id, x, y, radius)){
+                        return true;
+                    }
+                }
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Reports every pair of overlapping entries once, with the lower id
+     * first.
+     *
+     * @param listener the listener to receive the pairs.
+     */
+    public void forEachOverlap(final IOverlapListener listener){
+
+        for(int a = 0; a < mCell.length; a++){
+
+            if(mCell[a] == NONE){
+                continue;
+            }
+
+            final float x = mX[a];
+            final float y = mY[a];
+            final float reach = mRadius[a] + mMaxRadius;
+            final int minC = column(x - reach);
+            final int maxC = column(x + reach);
+            final int minR = row(y - reach);
+            final int maxR = row(y + reach);
+
+            for(int r = minR; r <= maxR; r++){
+                for(int c = minC; c <= maxC; c++){
+                    for(int b = mCellHead[r * mColumns + c]; b != NONE;
+                        b = mNext[b]){
+
+                        if(b > a && overlaps(b, x, y, mRadius[a])){
+                            listener.onOverlap(a, b);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Checks if an entry overlaps a circle, without using square roots.
+     */
+    private boolean overlaps(final int id, final float x, final float y,
+                             final float radius){
+        final float dx = mX[id] - x;
+        final float dy = mY[id] - y;
+        final float reach = mRadius[id] + radius;
+
+        return dx * dx + dy * dy <= reach * reach;
+    }
+
+    private int column(final float x){
+        final int c = (int) (x / mCellSize);
+        return c < 0 ? 0 : (c >= mColumns ? mColumns - 1 : c);
+    }
+
+    private int row(final float y){
+        final int r = (int) (y / mCellSize);
+        return r < 0 ? 0 : (r >= mRows ? mRows - 1 : r);
+    }
+
+    private int cellOf(final float x, final float y){
+        return row(y) * mColumns + column(x);
+    }
+
+    private void link(final int id, final int cell){
+        final int head = mCellHead[cell];
+
+        mPrev[id] = NONE;
+        mNext[id] = head;
+        if(head != NONE){
+            mPrev[head] = id;
+        }
+
+        mCellHead[cell] = id;
+        mCell[id] = cell;
+    }
+
+    private void unlink(final int id){
+        final int prev = mPrev[id];
+        final int next = mNext[id];
+
+        if(prev != NONE){
+            mNext[prev] = next;
+        } else {
+            mCellHead[mCell[id]] = next;
+        }
+
+        if(next != NONE){
+            mPrev[next] = prev;
+        }
+
+        mCell[id] = NONE;
+    }
+}
@@ -0,0 +1,274 @@
+package com.fredrikux.unitedcolors.models;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+
+/**
+ * Packs render frames in to the compact vertex format used for drawing and
+ * keeps track of which dots changed since the last frame, so only those
+ * need to be uploaded. The vertices are split in two streams:
+ * <ul>
+ *     <li>motions, the origin, velocity, time step and bouncing of the
+ *     motion as six floats, which only change for the plain dots when they
+ *     are spawned, removed or moved to another index.</li>
+ *     <li>attributes, the color as four normalized bytes in RGBA order and
+ *     the size as an unsigned fixed point short, which rarely change.</li>
+ * </ul>
+ * The packer keeps a copy of what was last handed out, so it has to be told
+ * about every frame that is uploaded, and everything it reports as dirty
+ * has to be uploaded.
+ */
+public class VertexPacker {
+
+    /*
+     * STATIC FINAL FIELDS
+     */
+    public static final int FLOATS_PER_MOTION = RenderFrame.SIZE_OF_MOTION;
+    public static final int MOTION_STRIDE = FLOATS_PER_MOTION * 4;
+    public static final int INTS_PER_ATTRIBUTE = 2;
+    public static final int ATTRIBUTE_STRIDE = INTS_PER_ATTRIBUTE * 4;
+    public static final int OFFSET_COLOR = 0;
+    public static final int OFFSET_SIZE = 4;
+
+    // Sizes are stored in sixteenths of a pixel
+    public static final float SIZE_SCALE = 16.0f;
+
+    private static final boolean LITTLE_ENDIAN
+            = ByteOrder.nativeOrder() == ByteOrder.LITTLE_ENDIAN;
+
+    /*
+     * FINAL FIELDS
+     */
+    private final int mCapacity;
+
+    private final float[] mMotions;
+    private final int[] mAttributes;
+
+    private final ByteBuffer mMotionBytes;
+    private final FloatBuffer mMotionBuffer;
+    private final ByteBuffer mAttributeBytes;
+    private final IntBuffer mAttributeBuffer;
+
+    /*
+     * OTHER FIELDS
+     */
+    private int mCount = 0;
+    private int mFirstDirtyMotion = 0;
+    private int mLastDirtyMotion = -1;
+    private int mFirstDirtyAttribute = 0;
+    private int mLastDirtyAttribute = -1;
+
+    /**
+     * Creates a VertexPacker-object which holds up to {@code capacity} dots.
+     * Every vertex starts out zeroed.
+     *
+     * @param capacity the maximum number of dots.
+     */
+    public VertexPacker(final int capacity){
+        mCapacity = capacity;
+
+        mMotions = new float[capacity * FLOATS_PER_MOTION];
+        mAttributes = new int[capacity * INTS_PER_ATTRIBUTE];
+
+        mMotionBytes = ByteBuffer.allocateDirect(capacity * MOTION_STRIDE)
+                .order(ByteOrder.nativeOrder());
+        mMotionBuffer = mMotionBytes.asFloatBuffer();
+
+        mAttributeBytes = ByteBuffer.allocateDirect(
+                capacity * ATTRIBUTE_STRIDE).order(ByteOrder.nativeOrder());
+        mAttributeBuffer = mAttributeBytes.asIntBuffer();
+    }
+
+    /**
+     * Packs provided frame and finds the range of dots that differ from the
+     * previously packed frame, for each of the two streams.
+     *
+     * @param frame the frame to pack.
+     */
+    public void pack(final RenderFrame frame){
+
+        final int count = Math.min(frame.count, mCapacity);
+        final float[] motions = frame.motions;
+        final int[] colors = frame.colors;
+        final float[] sizes = frame.sizes;
+        final float[] packed = mMotions;
+        final int[] attributes = mAttributes;
+
+        int firstMotion = Integer.MAX_VALUE, lastMotion = -1;
+        int firstAttribute = Integer.MAX_VALUE, lastAttribute = -1;
+
+        for(int i = 0; i < count; i++){
+
+            // Motions
+            int m = i * FLOATS_PER_MOTION;
+            boolean changed = false;
+            for(int f = m; f < m + FLOATS_PER_MOTION; f++){
+                if(packed[f] != motions[f]){
+                    packed[f] = motions[f];
+                    changed = true;
+                }
+            }
+
+            if(changed){
+                if(i < firstMotion) firstMotion = i;
+                lastMotion = i;
+            }
+
+            // Color and size
+            int a = i * INTS_PER_ATTRIBUTE;
+            int color = packColor(colors[i]);
+            int size = packSize(sizes[i * RenderFrame.SIZE_OF_DOT_SIZE]);
+
+            if(attributes[a] != color || attributes[a + 1] != size){
+
+                attributes[a] = color;
+                attributes[a + 1] = size;
+
+                if(i < firstAttribute) firstAttribute = i;
+                lastAttribute = i;
+            }
+        }
+
+        mCount = count;
+        mFirstDirtyMotion = lastMotion == -1 ? 0 : firstMotion;
+        mLastDirtyMotion = lastMotion;
+        mFirstDirtyAttribute = lastAttribute == -1 ? 0 : firstAttribute;
+        mLastDirtyAttribute = lastAttribute;
+
+        // Only the dirty ranges are copied to the direct buffers
+        copyRange(mMotions, mMotionBuffer, mMotionBytes,
+                mFirstDirtyMotion, getDirtyMotionCount(),
+                FLOATS_PER_MOTION, MOTION_STRIDE);
+        copyRange(mAttributes, mAttributeBuffer, mAttributeBytes,
+                mFirstDirtyAttribute, getDirtyAttributeCount(),
+                INTS_PER_ATTRIBUTE, ATTRIBUTE_STRIDE);
+    }
+
+    private static void copyRange(final float[] source,
+                                  final FloatBuffer target,
+                                  final ByteBuffer bytes, final int first,
+                                  final int count, final int perDot,
+                                  final int stride){
+        target.position(first * perDot);
+        target.put(source, first * perDot, count * perDot);
+        bytes.position(first * stride);
+    }
+
+    private static void copyRange(final int[] source, final IntBuffer target,
+                                  final ByteBuffer bytes, final int first,
+                                  final int count, final int perDot,
+                                  final int stride){
+        target.position(first * perDot);
+        target.put(source, first * perDot, count * perDot);
+        bytes.position(first * stride);
+    }
+
+    /**
+     * Packs an ARGB color in to an int which, in native byte order, is laid
+     * out in memory as the bytes red, green, blue and alpha.
+     *
+     * @param argb the color to pack.
+     * @return the packed color.
+     */
+    public static int packColor(final int argb){
+
+        final int a = (argb >>> 24) & 0xFF;
+        final int r = (argb >> 16) & 0xFF;
+        final int g = (argb >> 8) & 0xFF;
+        final int b = argb & 0xFF;
+
+        if(LITTLE_ENDIAN){
+            return (a << 24) | (b << 16) | (g << 8) | r;
+        }
+
+        return (r << 24) | (g << 16) | (b << 8) | a;
+    }
+
+    /**
+     * Packs a size in to an int which, in native byte order, starts with the
+     * size as an unsigned short in sixteenths of a pixel. Sizes outside of
+     * what fits are clamped.
+     *
+     * @param size the size in pixels.
+     * @return the packed size.
+     */
+    public static int packSize(final float size){
+
+        int fixed = Math.round(size * SIZE_SCALE);
+
+        if(fixed < 0){
+            fixed = 0;
+        } else if(fixed > 0xFFFF){
+            fixed = 0xFFFF;
+        }
+
+        return LITTLE_ENDIAN ? fixed : fixed << 16;
+    }
+
+    /**
+     * Gets the motion stream, positioned at the first dirty dot.
+     * @return the motion stream.
+     */
+    public ByteBuffer getMotionBuffer(){
+        return mMotionBytes;
+    }
+
+    /**
+     * Gets the attribute stream, positioned at the first dirty dot.
+     * @return the attribute stream.
+     */
+    public ByteBuffer getAttributeBuffer(){
+        return mAttributeBytes;
+    }
+
+    /**
+     * Gets the index of the first dot whose motion changed.
+     * @return the index of the first dirty motion.
+     */
+    public int getFirstDirtyMotion(){
+        return mFirstDirtyMotion;
+    }
+
+    /**
+     * Gets the number of dots from the first to the last changed motion.
+     * @return the number of dirty motions, zero if none changed.
+     */
+    public int getDirtyMotionCount(){
+        return mLastDirtyMotion - mFirstDirtyMotion + 1;
+    }
+
+    /**
+     * Gets the index of the first dot whose color or size changed.
+     * @return the index of the first dirty attribute.
+     */
+    public int getFirstDirtyAttribute(){
+        return mFirstDirtyAttribute;
+    }
+
+    /**
+     * Gets the number of dots from the first to the last changed color or
+     * size.
+     * @return the number of dirty attributes, zero if none changed.
+     */
+    public int getDirtyAttributeCount(){
+        return mLastDirtyAttribute - mFirstDirtyAttribute + 1;
+    }
+
+    /**
+     * Gets the number of dots in the last packed frame.
+     * @return the number of dots.
+     */
+    public int getCount(){
+        return mCount;
+    }
+
+    /**
+     * Gets the maximum number of dots.
+     * @return the capacity.
+     */
+    public int getCapacity(){
+        return mCapacity;
+    }
+}
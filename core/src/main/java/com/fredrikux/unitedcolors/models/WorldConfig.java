@@ -0,0 +1,70 @@
+package com.fredrikux.unitedcolors.models;
+
+/**
+ * The size and density of the world a {@link Simulation} runs in. The size
+ * may change while the simulation is running, for example when the screen
+ * is rotated, and is therefore read on every tick.
+ */
+public class WorldConfig
+        implements
+            GameRules {
+
+    private final float mDensity;
+    private final int mDotLimit;
+    private volatile int mWidth;
+    private volatile int mHeight;
+
+    /**
+     * Creates a WorldConfig-object which holds up to {@code DOT_LIMIT} dots.
+     *
+     * @param width the width of the world in pixels.
+     * @param height the height of the world in pixels.
+     * @param density the screen density the dot sizes are scaled with.
+     */
+    public WorldConfig(final int width, final int height, final float density){
+        this(width, height, density, DOT_LIMIT);
+    }
+
+    /**
+     * Creates a WorldConfig-object.
+     *
+     * @param width the width of the world in pixels.
+     * @param height the height of the world in pixels.
+     * @param density the screen density the dot sizes are scaled with.
+     * @param dotLimit the maximum number of dots in the world.
+     */
+    public WorldConfig(final int width, final int height, final float density,
+                       final int dotLimit){
+        mWidth = width;
+        mHeight = height;
+        mDensity = density;
+        mDotLimit = dotLimit;
+    }
+
+    /**
+     * Sets a new size of the world.
+     *
+     * @param width the width of the world in pixels.
+     * @param height the height of the world in pixels.
+     */
+    public void setSize(final int width, final int height){
+        mWidth = width;
+        mHeight = height;
+    }
+
+    public int getWidth(){
+        return mWidth;
+    }
+
+    public int getHeight(){
+        return mHeight;
+    }
+
+    public float getDensity(){
+        return mDensity;
+    }
+
+    public int getDotLimit(){
+        return mDotLimit;
+    }
+}
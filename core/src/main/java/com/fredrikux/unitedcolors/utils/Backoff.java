@@ -0,0 +1,97 @@
+package com.fredrikux.unitedcolors.utils;
+
+import java.util.Random;
+
+/**
+ * Spaces out retries of something that keeps failing, like connecting to
+ * a service over a flaky network. Every failure doubles the delay before
+ * the next try, up to a maximum, and a success starts over. The delay is
+ * jittered between half and all of it, so many devices that lost the
+ * network together don't retry together.
+ */
+public class Backoff {
+
+    /*
+     * FINAL FIELDS
+     */
+    private final long mInitialDelay;
+    private final long mMaxDelay;
+    private final Random mRandom;
+
+    /*
+     * OTHER FIELDS
+     */
+    private int mFailures = 0;
+    private long mReadyTime = 0l;
+
+    /**
+     * Creates a Backoff-object.
+     *
+     * @param initialDelay the delay after the first failure.
+     * @param maxDelay the longest delay.
+     * @param random the source of the jitter.
+     */
+    public Backoff(final long initialDelay, final long maxDelay,
+                   final Random random){
+        mInitialDelay = initialDelay;
+        mMaxDelay = maxDelay;
+        mRandom = random;
+    }
+
+    /**
+     * Checks to see if it is time to try again.
+     *
+     * @param now the current time.
+     * @return true if the delay has passed.
+     */
+    public synchronized boolean isReady(final long now){
+        return now >= mReadyTime;
+    }
+
+    /**
+     * Reports a failed try, which delays the next one.
+     *
+     * @param now the current time.
+     * @return the delay before the next try.
+     */
+    public synchronized long failed(final long now){
+
+        long delay = mInitialDelay;
+        for(int i = 0; i < mFailures && delay < mMaxDelay; i++){
+            delay *= 2;
+        }
+        delay = Math.min(delay, mMaxDelay);
+
+        final long half = delay / 2;
+        final long jittered = half + (long) (mRandom.nextDouble() * half);
+
+        mFailures++;
+        mReadyTime = now + jittered;
+
+        return jittered;
+    }
+
+    /**
+     * Reports a successful try, the next one may follow at once.
+     */
+    public synchronized void succeeded(){
+        mFailures = 0;
+        mReadyTime = 0l;
+    }
+
+    /**
+     * Gets the number of failures in a row.
+     * @return the number of failures.
+     */
+    public synchronized int getFailures(){
+        return mFailures;
+    }
+
+    /**
+     * Gets the time of the next try.
+     * @return the time.
+     */
+    public synchronized long getReadyTime(){
+        return mReadyTime;
+    }
+}
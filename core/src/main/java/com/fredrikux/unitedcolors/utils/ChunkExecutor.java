@@ -0,0 +1,176 @@
+package com.fredrikux.unitedcolors.utils;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Runs the chunks of a task on a fixed set of worker threads and the
+ * calling thread, and returns when every chunk is done. The threads take
+ * chunks from a shared counter, so a thread that finishes early takes over
+ * chunks that would otherwise wait on a busy one.
+ *
+ * Unlike an {@code ExecutorService}, nothing is allocated per run, which
+ * keeps the game loop free of garbage. Only one thread may call
+ * {@link #run} at a time.
+ */
+public class ChunkExecutor {
+
+    /**
+     * A task split in to chunks, every chunk must be independent of the
+     * others.
+     */
+    public interface IChunkTask {
+        void runChunk(final int chunk);
+    }
+
+    /*
+     * FINAL FIELDS
+     */
+    private final Thread[] mWorkers;
+
+    // The generation of the run in the high bits, the next chunk in the low
+    private final AtomicLong mCursor = new AtomicLong();
+    private final AtomicInteger mDone = new AtomicInteger();
+
+    /*
+     * OTHER FIELDS
+     */
+    private volatile IChunkTask mTask;
+    private volatile int mChunkCount;
+    private volatile Thread mCaller;
+    private volatile Throwable mFailure;
+    private volatile boolean mShutdown = false;
+    private int mGeneration = 0;
+
+    /**
+     * Creates a ChunkExecutor-object and starts its worker threads.
+     *
+     * @param parallelism the number of threads to run chunks on, including
+     *                    the calling thread.
+     * @param name the name of the worker threads.
+     */
+    public ChunkExecutor(final int parallelism, final String name){
+
+        mWorkers = new Thread[Math.max(0, parallelism - 1)];
+
+        for(int i = 0; i < mWorkers.length; i++){
+            mWorkers[i] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    workLoop();
+                }
+            }, name + " " + i);
+
+            // The workers must not keep the application alive
+            mWorkers[i].setDaemon(true);
+            mWorkers[i].start();
+        }
+    }
+
+    private void workLoop(){
+
+        int seen = 0;
+        while(!mShutdown){
+
+            final int generation = (int) (mCursor.get() >>> 32);
+            if(generation == seen){
+                LockSupport.park(this);
+            } else {
+                seen = generation;
+                work(generation);
+            }
+        }
+    }
+
+    private void work(final int generation){
+
+        final IChunkTask task = mTask;
+        final int count = mChunkCount;
+
+        while(true){
+            final long cursor = mCursor.get();
+            final int chunk = (int) cursor;
+
+            // Stop if the run is over or was replaced by a newer one
+            if((int) (cursor >>> 32) != generation || chunk >= count){
+                return;
+            }
+            if(!mCursor.compareAndSet(cursor, cursor + 1)){
+                continue;
+            }
+
+            try {
+                task.runChunk(chunk);
+            } catch (Throwable t) {
+                mFailure = t;
+            }
+
+            if(mDone.incrementAndGet() == count){
+                LockSupport.unpark(mCaller);
+            }
+        }
+    }
+
+    /**
+     * Runs every chunk of provided task and waits for them to finish.
+     *
+     * @param task the task to run.
+     * @param chunkCount the number of chunks, numbered from zero.
+     */
+    public void run(final IChunkTask task, final int chunkCount){
+
+        if(mShutdown){
+            throw new IllegalStateException("The executor is shut down");
+        }
+
+        mGeneration++;
+        mTask = task;
+        mChunkCount = chunkCount;
+        mCaller = Thread.currentThread();
+        mFailure = null;
+        mDone.set(0);
+
+        // Publishing the new generation hands the run to the workers
+        mCursor.set((long) mGeneration << 32);
+        for(Thread worker : mWorkers){
+            LockSupport.unpark(worker);
+        }
+
+        // Take chunks like any worker, then wait for the rest
+        work(mGeneration);
+        while(mDone.get() < chunkCount){
+            LockSupport.park(this);
+        }
+
+        // Close the run, so a late worker can't take chunks of the next
+        // one before it is set up
+        mCursor.set(((long) mGeneration << 32) | Integer.MAX_VALUE);
+        mTask = null;
+
+        final Throwable failure = mFailure;
+        if(failure != null){
+            throw new RuntimeException("A chunk failed", failure);
+        }
+    }
+
+    /**
+     * Gets the number of threads chunks are run on, including the calling
+     * thread.
+     * @return the parallelism.
+     */
+    public int getParallelism(){
+        return mWorkers.length + 1;
+    }
+
+    /**
+     * Stops the worker threads once they are idle.
+     */
+    public void shutdown(){
+        mShutdown = true;
+
+        for(Thread worker : mWorkers){
+            LockSupport.unpark(worker);
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package com.fredrikux.unitedcolors.utils;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Hands events from any thread over to one consumer thread, such as the UI
+ * thread, without allocating. An event is a primitive code with an int
+ * value. Events with the same code are coalesced: only the latest value
+ * posted since the last drain is delivered, so a score that changes three
+ * times within a frame is shown once.
+ *
+ * The bus does not drain itself. When it goes from empty to pending, it
+ * asks its {@link IDrainScheduler} for a drain, for example on the next
+ * frame callback of the UI thread, so the consumer is woken at most once
+ * per drain however many events are posted.
+ */
+public class EventBus {
+
+    /*
+     * STATIC FINAL FIELDS
+     */
+    public static final int MAX_CODES = 32;
+
+    /**
+     * Receives the events when the bus is drained.
+     */
+    public interface IListener {
+        void onEvent(final int code, final int value);
+    }
+
+    /**
+     * Arranges for {@link #drain()} to be called on the consumer thread.
+     */
+    public interface IDrainScheduler {
+        void requestDrain();
+    }
+
+    /*
+     * FINAL FIELDS
+     */
+    // The latest value of each code and a bit per code with a pending value
+    private final AtomicIntegerArray mValues;
+    private final AtomicInteger mPending = new AtomicInteger();
+
+    /*
+     * OTHER FIELDS
+     */
+    private volatile IListener mListener;
+    private volatile IDrainScheduler mScheduler;
+
+    /**
+     * Creates an empty EventBus-object.
+     *
+     * @param codeCount the number of event codes, the codes go from zero up
+     *                  to but not including this, at most
+     *                  {@link #MAX_CODES}.
+     */
+    public EventBus(final int codeCount){
+
+        if(codeCount < 1 || codeCount > MAX_CODES){
+            throw new IllegalArgumentException("Invalid number of codes: "
+                    + codeCount);
+        }
+
+        mValues = new AtomicIntegerArray(codeCount);
+    }
+
+    /**
+     * Posts an event, replacing any value of the same code that is not yet
+     * delivered. Can be called from any thread.
+     *
+     * @param code the code of the event.
+     * @param value the value of the event.
+     */
+    public void post(final int code, final int value){
+
+        // The value has to be in place before the bit is seen
+        mValues.set(code, value);
+
+        final int bit = 1 << code;
+        int pending;
+        do {
+            pending = mPending.get();
+            if((pending & bit) != 0){
+                return;
+            }
+        } while(!mPending.compareAndSet(pending, pending | bit));
+
+        // Only the post that makes the bus pending asks for a drain
+        final IDrainScheduler scheduler = mScheduler;
+        if(pending == 0 && scheduler != null){
+            scheduler.requestDrain();
+        }
+    }
+
+    /**
+     * Delivers every pending event to the listener, in the order of their
+     * codes. Must only be called from the consumer thread.
+     *
+     * @return the number of delivered events.
+     */
+    public int drain(){
+
+        int pending = mPending.getAndSet(0);
+        final IListener listener = mListener;
+
+        int count = 0;
+        while(pending != 0){
+            final int code = Integer.numberOfTrailingZeros(pending);
+            pending &= pending - 1;
+
+            if(listener != null){
+                listener.onEvent(code, mValues.get(code));
+            }
+            count++;
+        }
+
+        return count;
+    }
+
+    /**
+     * Checks to see if there are events waiting for a drain.
+     * @return true if any event is pending.
+     */
+    public boolean isPending(){
+        return mPending.get() != 0;
+    }
+
+    /**
+     * Sets the listener to deliver the events to.
+     * @param listener the listener, or null to drop the events.
+     */
+    public void setListener(final IListener listener){
+        mListener = listener;
+    }
+
+    /**
+     * Sets what to ask for a drain when events are posted. If events are
+     * already pending, a drain is asked for right away.
+     *
+     * @param scheduler the scheduler, or null to drain by hand.
+     */
+    public void setScheduler(final IDrainScheduler scheduler){
+        mScheduler = scheduler;
+
+        if(scheduler != null && isPending()){
+            scheduler.requestDrain();
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package com.fredrikux.unitedcolors.utils;
+
+/**
+ * A named set of {@link Histogram}s, one per metric, that can be summarized
+ * in to a log line. Every metric has a budget, such as the time one frame
+ * may take, and the summary tells how many values went over it.
+ *
+ * The metrics are set up with {@link #define} before use. After that,
+ * recording never allocates. Like the histograms, a FrameStats-object is
+ * meant to be recorded to by one thread.
+ */
+public class FrameStats {
+
+    /*
+     * STATIC FINAL FIELDS
+     */
+    public static final long NANOS_PER_MICRO = 1000l;
+
+    private static final int SUB_BITS = 5;
+
+    /*
+     * FINAL FIELDS
+     */
+    private final String mName;
+    private final Histogram[] mHistograms;
+    private final String[] mNames;
+    private final long[] mUnits;
+    private final long[] mBudgets;
+
+    /**
+     * Creates a FrameStats-object without any metrics defined.
+     *
+     * @param name the name used in the summary.
+     * @param metricCount the number of metrics.
+     */
+    public FrameStats(final String name, final int metricCount){
+        mName = name;
+        mHistograms = new Histogram[metricCount];
+        mNames = new String[metricCount];
+        mUnits = new long[metricCount];
+        mBudgets = new long[metricCount];
+    }
+
+    /**
+     * Defines a metric.
+     *
+     * @param metric the index of the metric.
+     * @param name the name used in the summary.
+     * @param highestValue the highest value to tell apart.
+     * @param unit the values are divided by this in the summary, for
+     *             example {@link #NANOS_PER_MICRO} for times in nanoseconds.
+     * @param budget values above this are counted as over budget, zero for
+     *               no budget.
+     */
+    public void define(final int metric, final String name,
+                       final long highestValue, final long unit,
+                       final long budget){
+        mHistograms[metric] = new Histogram(highestValue, SUB_BITS);
+        mNames[metric] = name;
+        mUnits[metric] = Math.max(1l, unit);
+        mBudgets[metric] = budget;
+    }
+
+    /**
+     * Records a value of a metric.
+     *
+     * @param metric the index of the metric.
+     * @param value the value to record.
+     */
+    public void record(final int metric, final long value){
+        mHistograms[metric].record(value);
+    }
+
+    /**
+     * Gets the histogram of a metric.
+     *
+     * @param metric the index of the metric.
+     * @return the histogram.
+     */
+    public Histogram getHistogram(final int metric){
+        return mHistograms[metric];
+    }
+
+    /**
+     * Gets the number of values of a metric that went over its budget.
+     *
+     * @param metric the index of the metric.
+     * @return the number of values over budget, zero if there is no budget.
+     */
+    public long getOverBudget(final int metric){
+        final long budget = mBudgets[metric];
+        return budget > 0 ? mHistograms[metric].getCountAtOrAbove(budget + 1)
+                : 0l;
+    }
+
+    /**
+     * Gets the number of metrics.
+     * @return the number of metrics.
+     */
+    public int getMetricCount(){
+        return mHistograms.length;
+    }
+
+    /**
+     * Clears all metrics.
+     */
+    public void reset(){
+        for(Histogram histogram : mHistograms){
+            if(histogram != null){
+                histogram.reset();
+            }
+        }
+    }
+
+    /**
+     * Appends a summary of every metric to provided builder, one metric per
+     * line, with the median, the 90th, 99th and 99.9th percentile and the
+     * max.
+     *
+     * @param builder the builder to append to.
+     * @return the builder.
+     */
+    public StringBuilder appendTo(final StringBuilder builder){
+
+        builder.append(mName);
+
+        for(int i = 0; i < mHistograms.length; i++){
+            final Histogram histogram = mHistograms[i];
+            if(histogram == null){
+                continue;
+            }
+
+            final long unit = mUnits[i];
+            builder.append('\n').append(mNames[i])
+                    .append(": n ").append(histogram.getCount())
+                    .append(" p50 ")
+                    .append(histogram.getValueAtPercentile(50.0) / unit)
+                    .append(" p90 ")
+                    .append(histogram.getValueAtPercentile(90.0) / unit)
+                    .append(" p99 ")
+                    .append(histogram.getValueAtPercentile(99.0) / unit)
+                    .append(" p99.9 ")
+                    .append(histogram.getValueAtPercentile(99.9) / unit)
+                    .append(" max ").append(histogram.getMax() / unit);
+
+            if(mBudgets[i] > 0){
+                builder.append(" over ").append(getOverBudget(i));
+            }
+        }
+
+        return builder;
+    }
+}
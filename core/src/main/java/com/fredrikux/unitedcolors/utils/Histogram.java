@@ -0,0 +1,200 @@
+package com.fredrikux.unitedcolors.utils;
+
+/**
+ * A histogram of non negative long values with a fixed relative precision,
+ * laid out like an HDR histogram: values below {@code 2^subBits} get a
+ * bucket each, above that every power of two is split in to
+ * {@code 2^subBits} buckets. All buckets are allocated up front, so
+ * recording never allocates and costs a few shifts.
+ *
+ * A histogram is meant to be recorded to by one thread. Reading it from
+ * another thread gives approximate results, which is good enough for
+ * showing statistics while the game runs.
+ */
+public class Histogram {
+
+    /*
+     * FINAL FIELDS
+     */
+    private final int mSubBits;
+    private final int mSubCount;
+    private final long mHighestValue;
+    private final long[] mCounts;
+
+    /*
+     * OTHER FIELDS
+     */
+    private long mTotalCount = 0l;
+    private long mTotalValue = 0l;
+    private long mMin = Long.MAX_VALUE;
+    private long mMax = 0l;
+
+    /**
+     * Creates an empty Histogram-object.
+     *
+     * @param highestValue the highest value to tell apart, higher values are
+     *                     counted in the last bucket but still affect the
+     *                     max and the mean.
+     * @param subBits the precision, each value is recorded with a relative
+     *                error below {@code 2^-subBits}.
+     */
+    public Histogram(final long highestValue, final int subBits){
+
+        if(highestValue < 1 || subBits < 1 || subBits > 16){
+            throw new IllegalArgumentException("Invalid histogram range");
+        }
+
+        mSubBits = subBits;
+        mSubCount = 1 << subBits;
+        mHighestValue = highestValue;
+        mCounts = new long[indexOf(highestValue) + 1];
+    }
+
+    private int indexOf(final long value){
+
+        // The number of low bits that are dropped for this magnitude
+        final int highestBit = 63 - Long.numberOfLeadingZeros(value);
+        final int shift = Math.max(0, highestBit - mSubBits);
+
+        return shift * mSubCount + (int) (value >>> shift);
+    }
+
+    private long lowestValueAt(final int index){
+        final int shift = Math.max(0, index / mSubCount - 1);
+        return (long) (index - shift * mSubCount) << shift;
+    }
+
+    private long highestValueAt(final int index){
+        final int shift = Math.max(0, index / mSubCount - 1);
+        return lowestValueAt(index) + (1l << shift) - 1;
+    }
+
+    /**
+     * Records a value, negative values are recorded as zero.
+     *
+     * @param value the value to record.
+     */
+    public void record(long value){
+
+        if(value < 0){
+            value = 0;
+        }
+
+        final int index = value > mHighestValue
+                ? mCounts.length - 1
+                : indexOf(value);
+
+        mCounts[index]++;
+        mTotalCount++;
+        mTotalValue += value;
+
+        if(value < mMin) mMin = value;
+        if(value > mMax) mMax = value;
+    }
+
+    /**
+     * Gets the value that provided percent of all recorded values are at or
+     * below, within the precision of the histogram.
+     *
+     * @param percentile the percentile, from 0 to 100.
+     * @return the value at the percentile, zero if nothing is recorded.
+     */
+    public long getValueAtPercentile(final double percentile){
+
+        if(mTotalCount == 0){
+            return 0l;
+        }
+
+        final double clamped = Math.min(100.0, Math.max(0.0, percentile));
+        final long rank = Math.max(1l,
+                (long) Math.ceil(clamped / 100.0 * mTotalCount));
+
+        long count = 0l;
+        for(int i = 0; i < mCounts.length; i++){
+            count += mCounts[i];
+
+            // The last bucket also holds everything out of range
+            if(count >= rank){
+                return i == mCounts.length - 1 ? mMax
+                        : Math.max(mMin, Math.min(mMax, highestValueAt(i)));
+            }
+        }
+
+        return mMax;
+    }
+
+    /**
+     * Gets the number of recorded values at or above provided value, within
+     * the precision of the histogram.
+     *
+     * @param value the lower limit.
+     * @return the number of values at or above the limit.
+     */
+    public long getCountAtOrAbove(final long value){
+
+        if(value <= 0){
+            return mTotalCount;
+        }
+        if(value > mMax){
+            return 0l;
+        }
+
+        final int first = value > mHighestValue
+                ? mCounts.length - 1
+                : indexOf(value);
+
+        long count = 0l;
+        for(int i = first; i < mCounts.length; i++){
+            count += mCounts[i];
+        }
+
+        return count;
+    }
+
+    /**
+     * Clears all recorded values.
+     */
+    public void reset(){
+
+        for(int i = 0; i < mCounts.length; i++){
+            mCounts[i] = 0l;
+        }
+
+        mTotalCount = 0l;
+        mTotalValue = 0l;
+        mMin = Long.MAX_VALUE;
+        mMax = 0l;
+    }
+
+    /**
+     * Gets the number of recorded values.
+     * @return the number of values.
+     */
+    public long getCount(){
+        return mTotalCount;
+    }
+
+    /**
+     * Gets the mean of the recorded values.
+     * @return the mean, zero if nothing is recorded.
+     */
+    public double getMean(){
+        return mTotalCount == 0 ? 0.0 : (double) mTotalValue / mTotalCount;
+    }
+
+    /**
+     * Gets the lowest recorded value.
+     * @return the lowest value, zero if nothing is recorded.
+     */
+    public long getMin(){
+        return mTotalCount == 0 ? 0l : mMin;
+    }
+
+    /**
+     * Gets the highest recorded value.
+     * @return the highest value.
+     */
+    public long getMax(){
+        return mMax;
+    }
+}
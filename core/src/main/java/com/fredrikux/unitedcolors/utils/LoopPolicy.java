@@ -0,0 +1,96 @@
+package com.fredrikux.unitedcolors.utils;
+
+/**
+ * How often a game loop ticks and how often its frames are drawn. The loop
+ * wakes up once per tick. The game itself always moves at the same speed,
+ * so a tick that is longer than a time step of the game advances it several
+ * steps at once. A parked loop doesn't tick at all, and isn't drawn.
+ */
+public class LoopPolicy {
+
+    /*
+     * STATIC FINAL FIELDS
+     */
+    // Draw on every frame of the display
+    public static final long EVERY_FRAME = 0l;
+
+    // Draw no frames at all
+    public static final long NO_FRAMES = -1l;
+
+    public static final LoopPolicy PARKED = new LoopPolicy("parked", 0l,
+            NO_FRAMES);
+
+    /*
+     * FINAL FIELDS
+     */
+    private final String mName;
+    private final long mTickPeriod;
+    private final long mFramePeriod;
+
+    /**
+     * Creates a LoopPolicy-object.
+     *
+     * @param name the name to log the policy as.
+     * @param tickPeriod the time between ticks in nanoseconds, 0 to park
+     *                   the loop.
+     * @param framePeriod the time between drawn frames in nanoseconds, or
+     *                    {@code EVERY_FRAME} or {@code NO_FRAMES}.
+     */
+    public LoopPolicy(final String name, final long tickPeriod,
+                      final long framePeriod){
+        mName = name;
+        mTickPeriod = tickPeriod;
+        mFramePeriod = framePeriod;
+    }
+
+    /**
+     * Checks to see if the loop should sleep until it is woken up.
+     * @return true if parked.
+     */
+    public boolean isParked(){
+        return mTickPeriod <= 0l;
+    }
+
+    /**
+     * Gets the time between ticks.
+     * @return the time in nanoseconds, 0 if parked.
+     */
+    public long getTickPeriod(){
+        return mTickPeriod;
+    }
+
+    /**
+     * Gets the number of time steps each tick advances the game, for a game
+     * which takes provided time per step.
+     *
+     * @param stepPeriod the time of a step in nanoseconds.
+     * @return the steps per tick, at least 1.
+     */
+    public int getStepsPerTick(final long stepPeriod){
+        return (int) Math.max(1l, Math.round((double) mTickPeriod
+                / (double) stepPeriod));
+    }
+
+    /**
+     * Gets the time between drawn frames.
+     *
+     * @return the time in nanoseconds, or {@code EVERY_FRAME} or
+     * {@code NO_FRAMES}.
+     */
+    public long getFramePeriod(){
+        return mFramePeriod;
+    }
+
+    /**
+     * Gets the name of the policy.
+     * @return the name.
+     */
+    public String getName(){
+        return mName;
+    }
+
+    @Override
+    public String toString(){
+        return mName;
+    }
+}
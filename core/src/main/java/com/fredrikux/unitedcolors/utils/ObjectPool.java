@@ -0,0 +1,77 @@
+package com.fredrikux.unitedcolors.utils;
+
+/**
+ * A bounded pool of reusable objects. Objects are created by a factory when
+ * the pool is empty and handed back with {@code recycle(Object)} when they
+ * are no longer used. The pool never holds more than its capacity, objects
+ * recycled to a full pool are left to the garbage collector. Not thread
+ * safe, a pool belongs to the thread using it.
+ *
+ * @param <T> the type of the pooled objects.
+ */
+public class ObjectPool<T> {
+
+    /**
+     * Creates new objects for a pool.
+     *
+     * @param <T> the type of the pooled objects.
+     */
+    public interface IFactory<T> {
+        T create();
+    }
+
+    private final IFactory<T> mFactory;
+    private final Object[] mFree;
+    private int mFreeCount = 0;
+
+    /**
+     * Creates an empty ObjectPool-object.
+     *
+     * @param capacity the maximum number of free objects to keep.
+     * @param factory the factory to create new objects with.
+     */
+    public ObjectPool(final int capacity, final IFactory<T> factory){
+        mFactory = factory;
+        mFree = new Object[capacity];
+    }
+
+    /**
+     * Takes an object from the pool, or creates a new one if the pool is
+     * empty. The object has to be reset by the caller.
+     *
+     * @return a free object.
+     */
+    @SuppressWarnings("unchecked")
+    public T obtain(){
+
+        if(mFreeCount == 0){
+            return mFactory.create();
+        }
+
+        final T object = (T) mFree[--mFreeCount];
+        mFree[mFreeCount] = null;
+
+        return object;
+    }
+
+    /**
+     * Hands an object back to the pool. The object must not be used by the
+     * caller afterwards.
+     *
+     * @param object the object to recycle.
+     */
+    public void recycle(final T object){
+        if(mFreeCount < mFree.length){
+            mFree[mFreeCount++] = object;
+        }
+    }
+
+    /**
+     * Gets the number of free objects in the pool.
+     *
+     * @return the number of free objects.
+     */
+    public int getFreeCount(){
+        return mFreeCount;
+    }
+}
@@ -0,0 +1,141 @@
+package com.fredrikux.unitedcolors.utils;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A preallocated ring of timestamped two dimensional samples, written by one
+ * thread and read by another without locks. The writer never waits: when
+ * the ring is full, new samples are dropped and counted until the reader
+ * catches up.
+ */
+public class SampleRing {
+
+    private final long[] mTimes;
+    private final float[] mX;
+    private final float[] mY;
+    private final int mMask;
+
+    // Written by the producer only and the consumer only, respectively
+    private final AtomicLong mHead = new AtomicLong();
+    private final AtomicLong mTail = new AtomicLong();
+    private volatile int mDropped = 0;
+
+    // The sample last taken by the consumer
+    private long mPolledTime;
+    private float mPolledX;
+    private float mPolledY;
+
+    /**
+     * Creates an empty SampleRing-object.
+     *
+     * @param capacity the number of samples the ring holds, rounded up to a
+     *                 power of two.
+     */
+    public SampleRing(final int capacity){
+
+        int size = Integer.highestOneBit(Math.max(1, capacity));
+        if(size < capacity){
+            size <<= 1;
+        }
+
+        mTimes = new long[size];
+        mX = new float[size];
+        mY = new float[size];
+        mMask = size - 1;
+    }
+
+    /**
+     * Adds a sample to the ring. Must only be called from the producer
+     * thread.
+     *
+     * @param time the time of the sample in nanoseconds.
+     * @param x the first value of the sample.
+     * @param y the second value of the sample.
+     * @return true if the sample was added, false if the ring was full.
+     */
+    public boolean offer(final long time, final float x, final float y){
+
+        final long head = mHead.get();
+
+        if(head - mTail.get() > mMask){
+            mDropped++;
+            return false;
+        }
+
+        final int i = (int) (head & mMask);
+        mTimes[i] = time;
+        mX[i] = x;
+        mY[i] = y;
+
+        // Publish the sample to the consumer
+        mHead.lazySet(head + 1);
+
+        return true;
+    }
+
+    /**
+     * Takes the oldest sample from the ring, to be read with the
+     * {@code getPolled}-methods. Must only be called from the consumer
+     * thread.
+     *
+     * @return true if a sample was taken, false if the ring was empty.
+     */
+    public boolean poll(){
+
+        final long tail = mTail.get();
+
+        if(tail == mHead.get()){
+            return false;
+        }
+
+        final int i = (int) (tail & mMask);
+        mPolledTime = mTimes[i];
+        mPolledX = mX[i];
+        mPolledY = mY[i];
+
+        // Hand the slot back to the producer
+        mTail.lazySet(tail + 1);
+
+        return true;
+    }
+
+    /**
+     * Gets the time of the last polled sample.
+     * @return the time in nanoseconds.
+     */
+    public long getPolledTime(){
+        return mPolledTime;
+    }
+
+    /**
+     * Gets the first value of the last polled sample.
+     * @return the first value.
+     */
+    public float getPolledX(){
+        return mPolledX;
+    }
+
+    /**
+     * Gets the second value of the last polled sample.
+     * @return the second value.
+     */
+    public float getPolledY(){
+        return mPolledY;
+    }
+
+    /**
+     * Gets the number of samples dropped because the ring was full.
+     * @return the number of dropped samples.
+     */
+    public int getDropped(){
+        return mDropped;
+    }
+
+    /**
+     * Gets the number of samples the ring holds.
+     * @return the capacity.
+     */
+    public int capacity(){
+        return mMask + 1;
+    }
+}
@@ -0,0 +1,68 @@
+package com.fredrikux.unitedcolors.utils;
+
+import java.util.Random;
+
+/**
+ * A {@link Random} whose internal state can be read and restored, so a
+ * saved game continues with the same random numbers. It produces exactly
+ * the same numbers as a {@code Random} with the same seed, but is not
+ * safe to share between threads. The pending second value of
+ * {@code nextGaussian()} is not part of the state.
+ */
+public class SeededRandom extends Random {
+
+    /*
+     * STATIC FINAL FIELDS
+     */
+    // Random is Serializable, the state below is serialized along with it
+    private static final long serialVersionUID = 1l;
+
+    // The constants of the linear congruential generator of Random
+    private static final long MULTIPLIER = 0x5DEECE66DL;
+    private static final long ADDEND = 0xBL;
+    private static final long MASK = (1L << 48) - 1;
+
+    /*
+     * OTHER FIELDS
+     */
+    // Set through setSeed by the constructor of Random, so not initialized
+    // here, which would overwrite it after the super constructor ran
+    private long mState;
+
+    /**
+     * Creates a SeededRandom-object.
+     *
+     * @param seed the initial seed.
+     */
+    public SeededRandom(final long seed){
+        super(seed);
+    }
+
+    @Override
+    public synchronized void setSeed(final long seed){
+        super.setSeed(seed);
+        mState = (seed ^ MULTIPLIER) & MASK;
+    }
+
+    @Override
+    protected int next(final int bits){
+        mState = (mState * MULTIPLIER + ADDEND) & MASK;
+        return (int) (mState >>> (48 - bits));
+    }
+
+    /**
+     * Gets the internal state, which is not the same as the seed.
+     * @return the state.
+     */
+    public long getState(){
+        return mState;
+    }
+
+    /**
+     * Restores an internal state from {@link #getState()}.
+     * @param state the state to restore.
+     */
+    public void setState(final long state){
+        mState = state & MASK;
+    }
+}
@@ -0,0 +1,130 @@
+package com.fredrikux.unitedcolors.utils;
+
+/**
+ * Keeps the time of a game loop that ticks at the rate of its current
+ * {@link LoopPolicy}. It tells how many ticks are due, catching up on a few
+ * but dropping the time of any more, and how long to park until the next
+ * one. The policy may be changed from any thread, the rest is for the loop
+ * thread only.
+ */
+public class TickClock {
+
+    /*
+     * STATIC FINAL FIELDS
+     */
+    // Returned when the loop should park until it is woken up
+    public static final long FOREVER = Long.MAX_VALUE;
+
+    /*
+     * FINAL FIELDS
+     */
+    private final int mMaxTicks;
+
+    /*
+     * OTHER FIELDS
+     */
+    private volatile LoopPolicy mPolicy = LoopPolicy.PARKED;
+    private LoopPolicy mTickPolicy = LoopPolicy.PARKED;
+    private long mTickTime = 0l;
+
+    /**
+     * Creates a TickClock-object.
+     *
+     * @param maxTicks the most ticks to catch up on at once.
+     */
+    public TickClock(final int maxTicks){
+        mMaxTicks = maxTicks;
+    }
+
+    /**
+     * Starts counting ticks from provided time, the first tick is due one
+     * tick period later. Used when starting and after being parked, so the
+     * time spent parked isn't caught up on.
+     *
+     * @param now the current time in nanoseconds.
+     */
+    public void start(final long now){
+        mTickTime = now;
+    }
+
+    /**
+     * Takes the ticks that are due at provided time, timed by the current
+     * policy. If more than the maximum are due the game fell behind, and
+     * the time of the rest is dropped.
+     *
+     * @param now the current time in nanoseconds.
+     * @return the number of ticks to run, 0 if the policy is parked.
+     */
+    public int pollTicks(final long now){
+
+        final LoopPolicy policy = mPolicy;
+        mTickPolicy = policy;
+        if(policy.isParked()){
+            return 0;
+        }
+
+        final long period = policy.getTickPeriod();
+        int ticks = 0;
+        while(now - mTickTime >= period && ticks < mMaxTicks){
+            mTickTime += period;
+            ticks++;
+        }
+
+        if(now - mTickTime > period){
+            mTickTime = now - period;
+        }
+
+        return ticks;
+    }
+
+    /**
+     * Gets when the last tick taken was due.
+     * @return the time in nanoseconds.
+     */
+    public long getTickTime(){
+        return mTickTime;
+    }
+
+    /**
+     * Gets the policy the ticks last taken were timed by, which may differ
+     * from the current one if it was changed since.
+     *
+     * @return the policy.
+     */
+    public LoopPolicy getTickPolicy(){
+        return mTickPolicy;
+    }
+
+    /**
+     * Gets how long to park until the next tick is due.
+     *
+     * @param now the current time in nanoseconds.
+     * @return the time in nanoseconds, at most 0 if it already is due,
+     * or {@code FOREVER} if the policy is parked.
+     */
+    public long getParkTime(final long now){
+
+        final LoopPolicy policy = mPolicy;
+        if(policy.isParked()){
+            return FOREVER;
+        }
+
+        return mTickTime + policy.getTickPeriod() - now;
+    }
+
+    /**
+     * Sets the policy to follow from the next tick on.
+     * @param policy the policy.
+     */
+    public void setPolicy(final LoopPolicy policy){
+        mPolicy = policy;
+    }
+
+    /**
+     * Gets the policy currently followed.
+     * @return the policy.
+     */
+    public LoopPolicy getPolicy(){
+        return mPolicy;
+    }
+}
@@ -0,0 +1,422 @@
+package com.fredrikux.unitedcolors.utils;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Runs all the animations of a game as tweens in one table of primitive
+ * columns: target, property, start, length, from, to and easing. A tween
+ * is identified by its row in the table. All running tweens are updated
+ * in one pass per tick, without any objects or boxing, and the sine of
+ * the pulse is looked up in a precomputed table.
+ *
+ * A tween that reaches its end is queued as completed instead of calling
+ * back in to its owner, the owner polls the queue after the update and
+ * finds out which of its tweens completed through the target and the
+ * property of the row.
+ */
+public class Timeline {
+
+    /*
+     * STATIC FINAL FIELDS
+     */
+    // Goes from the from value to the to value and completes
+    public static final int EASE_LINEAR = 0;
+
+    // Swings between the from and the to value once per length, with a
+    // sine, until cancelled
+    public static final int EASE_PULSE = 1;
+
+    // Returned and used instead of a tween that doesn't exist
+    public static final int NONE = -1;
+
+    // The bytes of every tween in the saved state
+    public static final int BYTES_PER_TWEEN = 53;
+
+    private static final byte STATE_FREE = 0;
+    private static final byte STATE_RUNNING = 1;
+    private static final byte STATE_COMPLETED = 2;
+
+    // (sin(x) + 1) / 2 over one period, with an extra entry to interpolate
+    // towards at the end
+    private static final int PULSE_TABLE_SIZE = 1024;
+    private static final float[] PULSE_TABLE
+            = new float[PULSE_TABLE_SIZE + 1];
+
+    static {
+        for(int i = 0; i <= PULSE_TABLE_SIZE; i++){
+            double x = 2.0 * Math.PI * i / PULSE_TABLE_SIZE;
+            PULSE_TABLE[i] = (float) ((Math.sin(x) + 1.0) / 2.0);
+        }
+    }
+
+    /*
+     * FINAL FIELDS
+     */
+    private final int[] mTarget;
+    private final int[] mProperty;
+    private final int[] mEasing;
+    private final long[] mStart;
+    private final long[] mLength;
+    private final float[] mFrom;
+    private final float[] mTo;
+    private final float[] mInverseLength;
+    private final float[] mValue;
+    private final byte[] mState;
+
+    // The running tweens, packed so the update only visits them
+    private final int[] mRunning;
+    private final int[] mRunningPosition;
+
+    // The free rows, the last one freed is used first
+    private final int[] mFree;
+
+    // The completed tweens, in the order they completed
+    private final int[] mCompleted;
+
+    /*
+     * OTHER FIELDS
+     */
+    private int mRunningCount = 0;
+    private int mFreeCount = 0;
+    private int mCompletedHead = 0;
+    private int mCompletedCount = 0;
+
+    /**
+     * Creates a Timeline-object with room for provided number of tweens.
+     *
+     * @param capacity the most tweens at once.
+     */
+    public Timeline(final int capacity){
+        mTarget = new int[capacity];
+        mProperty = new int[capacity];
+        mEasing = new int[capacity];
+        mStart = new long[capacity];
+        mLength = new long[capacity];
+        mFrom = new float[capacity];
+        mTo = new float[capacity];
+        mInverseLength = new float[capacity];
+        mValue = new float[capacity];
+        mState = new byte[capacity];
+        mRunning = new int[capacity];
+        mRunningPosition = new int[capacity];
+        mFree = new int[capacity];
+        mCompleted = new int[capacity];
+
+        clear();
+    }
+
+    /**
+     * Stops and forgets all tweens.
+     */
+    public void clear(){
+        mRunningCount = 0;
+        mCompletedHead = 0;
+        mCompletedCount = 0;
+
+        // Free in reverse, so the first row is used first
+        mFreeCount = 0;
+        for(int tween = mState.length - 1; tween >= 0; tween--){
+            mState[tween] = STATE_FREE;
+            mFree[mFreeCount++] = tween;
+        }
+    }
+
+    /**
+     * Starts a tween. The value is the from value until the first update.
+     *
+     * @param target the index of the animated object, for the owner.
+     * @param property the animated property of the object, for the owner.
+     * @param start the time step the tween starts at.
+     * @param length the length of the tween, or of one period of a pulse.
+     * @param from the value at the start.
+     * @param to the value at the end.
+     * @param easing {@code EASE_LINEAR} or {@code EASE_PULSE}.
+     * @return the tween, or {@code NONE} if the timeline is full.
+     */
+    public int start(final int target, final int property, final long start,
+                     final long length, final float from, final float to,
+                     final int easing){
+
+        if(mFreeCount == 0){
+            return NONE;
+        }
+
+        final int tween = mFree[--mFreeCount];
+        mTarget[tween] = target;
+        mProperty[tween] = property;
+        mEasing[tween] = easing;
+        mStart[tween] = start;
+        mLength[tween] = length;
+        mFrom[tween] = from;
+        mTo[tween] = to;
+        mInverseLength[tween] = length > 0 ? 1.0f / length : Float.MAX_VALUE;
+        mValue[tween] = from;
+        mState[tween] = STATE_RUNNING;
+
+        mRunningPosition[tween] = mRunningCount;
+        mRunning[mRunningCount++] = tween;
+
+        return tween;
+    }
+
+    /**
+     * Updates the values of all running tweens, and queues the ones that
+     * reached their end as completed.
+     *
+     * @param timeStep the current time step.
+     */
+    public void update(final long timeStep){
+
+        for(int i = 0; i < mRunningCount; i++){
+            final int tween = mRunning[i];
+
+            float progress = (timeStep - mStart[tween])
+                    * mInverseLength[tween];
+            progress = progress < 0.0f ? 0.0f : progress;
+
+            final float from = mFrom[tween];
+            final float to = mTo[tween];
+
+            if(mEasing[tween] == EASE_PULSE){
+
+                // Only the position within the current period matters
+                final float phase = (progress - (int) progress)
+                        * PULSE_TABLE_SIZE;
+                final int index = Math.min((int) phase, PULSE_TABLE_SIZE - 1);
+                final float a = PULSE_TABLE[index];
+                final float pulse = a + (PULSE_TABLE[index + 1] - a)
+                        * (phase - index);
+
+                mValue[tween] = from + (to - from) * pulse;
+
+            } else if(progress >= 1.0f){
+
+                mValue[tween] = to;
+                complete(i);
+
+                // The last running tween was moved in to this position
+                i--;
+
+            } else {
+                mValue[tween] = from + (to - from) * progress;
+            }
+        }
+    }
+
+    private void complete(final int position){
+
+        final int tween = mRunning[position];
+        removeRunning(position);
+
+        mState[tween] = STATE_COMPLETED;
+        mCompleted[(mCompletedHead + mCompletedCount++) % mCompleted.length]
+                = tween;
+    }
+
+    private void removeRunning(final int position){
+        final int last = mRunning[--mRunningCount];
+        mRunning[position] = last;
+        mRunningPosition[last] = position;
+    }
+
+    /**
+     * Takes the next completed tween from the queue and frees it. The target,
+     * property and value of the tween can still be read until the next call
+     * to {@code start()}.
+     *
+     * @return the tween, or {@code NONE} if no tween has completed.
+     */
+    public int pollCompleted(){
+
+        if(mCompletedCount == 0){
+            return NONE;
+        }
+
+        final int tween = mCompleted[mCompletedHead];
+        mCompletedHead = (mCompletedHead + 1) % mCompleted.length;
+        mCompletedCount--;
+
+        free(tween);
+        return tween;
+    }
+
+    /**
+     * Stops a tween without queueing it as completed.
+     *
+     * @param tween the tween to stop, {@code NONE} is ignored.
+     */
+    public void cancel(final int tween){
+
+        if(tween == NONE){
+            return;
+        }
+
+        if(mState[tween] == STATE_RUNNING){
+            removeRunning(mRunningPosition[tween]);
+            free(tween);
+
+        } else if(mState[tween] == STATE_COMPLETED){
+
+            // Take it out of the queue, keeping the order of the others
+            int position = 0;
+            while(mCompleted[(mCompletedHead + position) % mCompleted.length]
+                    != tween){
+                position++;
+            }
+            for(int i = position; i < mCompletedCount - 1; i++){
+                mCompleted[(mCompletedHead + i) % mCompleted.length]
+                        = mCompleted[(mCompletedHead + i + 1)
+                        % mCompleted.length];
+            }
+            mCompletedCount--;
+            free(tween);
+        }
+    }
+
+    private void free(final int tween){
+        mState[tween] = STATE_FREE;
+        mFree[mFreeCount++] = tween;
+    }
+
+    /**
+     * Checks to see if a tween is running.
+     *
+     * @param tween the tween.
+     * @return true if the tween is running.
+     */
+    public boolean isRunning(final int tween){
+        return tween != NONE && mState[tween] == STATE_RUNNING;
+    }
+
+    /**
+     * Gets the value of a tween at the last update.
+     *
+     * @param tween the tween.
+     * @return the value.
+     */
+    public float getValue(final int tween){
+        return mValue[tween];
+    }
+
+    /**
+     * Gets the target the tween was started with.
+     *
+     * @param tween the tween.
+     * @return the target.
+     */
+    public int getTarget(final int tween){
+        return mTarget[tween];
+    }
+
+    /**
+     * Gets the property the tween was started with.
+     *
+     * @param tween the tween.
+     * @return the property.
+     */
+    public int getProperty(final int tween){
+        return mProperty[tween];
+    }
+
+    /**
+     * Gets the number of running tweens.
+     * @return the number of tweens.
+     */
+    public int getRunningCount(){
+        return mRunningCount;
+    }
+
+    /**
+     * Gets the most tweens at once.
+     * @return the capacity.
+     */
+    public int capacity(){
+        return mState.length;
+    }
+
+    /**
+     * Gets the most bytes {@code writeState(ByteBuffer)} writes.
+     * @return the size in bytes.
+     */
+    public int getStateSize(){
+        return 16 + mState.length * BYTES_PER_TWEEN;
+    }
+
+    /**
+     * Writes all tweens to provided buffer, with the order of the running,
+     * free and completed ones, so a restored timeline hands out the same
+     * tweens in the same order.
+     *
+     * @param out the buffer to write to.
+     */
+    public void writeState(final ByteBuffer out){
+
+        out.putInt(mState.length);
+        out.putInt(mRunningCount);
+        out.putInt(mFreeCount);
+        out.putInt(mCompletedCount);
+
+        for(int tween = 0; tween < mState.length; tween++){
+            out.put(mState[tween]);
+            out.putInt(mTarget[tween]);
+            out.putInt(mProperty[tween]);
+            out.putInt(mEasing[tween]);
+            out.putLong(mStart[tween]);
+            out.putLong(mLength[tween]);
+            out.putFloat(mFrom[tween]);
+            out.putFloat(mTo[tween]);
+            out.putFloat(mValue[tween]);
+            out.putInt(tween < mRunningCount ? mRunning[tween] : NONE);
+            out.putInt(tween < mFreeCount ? mFree[tween] : NONE);
+            out.putInt(tween < mCompletedCount
+                    ? mCompleted[(mCompletedHead + tween) % mCompleted.length]
+                    : NONE);
+        }
+    }
+
+    /**
+     * Restores all tweens written by {@code writeState(ByteBuffer)}.
+     *
+     * @param in the buffer to read from.
+     * @throws IllegalArgumentException if the state is of a timeline of
+     * another capacity.
+     */
+    public void readState(final ByteBuffer in){
+
+        final int capacity = in.getInt();
+        if(capacity != mState.length){
+            throw new IllegalArgumentException("Timeline of " + capacity
+                    + " tweens, expected " + mState.length);
+        }
+
+        mRunningCount = in.getInt();
+        mFreeCount = in.getInt();
+        mCompletedCount = in.getInt();
+        mCompletedHead = 0;
+        if(mRunningCount + mFreeCount + mCompletedCount != capacity){
+            throw new IllegalArgumentException("Tweens are missing");
+        }
+
+        for(int tween = 0; tween < capacity; tween++){
+            mState[tween] = in.get();
+            mTarget[tween] = in.getInt();
+            mProperty[tween] = in.getInt();
+            mEasing[tween] = in.getInt();
+            mStart[tween] = in.getLong();
+            mLength[tween] = in.getLong();
+            mFrom[tween] = in.getFloat();
+            mTo[tween] = in.getFloat();
+            mValue[tween] = in.getFloat();
+            mRunning[tween] = in.getInt();
+            mFree[tween] = in.getInt();
+            mCompleted[tween] = in.getInt();
+
+            mInverseLength[tween] = mLength[tween] > 0
+                    ? 1.0f / mLength[tween] : Float.MAX_VALUE;
+        }
+
+        for(int i = 0; i < mRunningCount; i++){
+            mRunningPosition[mRunning[i]] = i;
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.fredrikux.unitedcolors.utils;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Hands over the newest of a stream of values from one producer thread to
+ * one consumer thread without locks. The three buffers are owned by the
+ * producer, the consumer and the exchange in between. Publishing swaps the
+ * producers buffer with the one in the exchange and acquiring swaps the
+ * consumers buffer with it, so neither thread ever waits and the consumer
+ * always gets the latest published value. Values published faster than
+ * they are acquired are skipped.
+ *
+ * @param <T> the type of the buffers.
+ */
+public class TripleBuffer<T> {
+
+    // Set on the exchanged index when it holds a value not yet acquired
+    private static final int FRESH = 4;
+    private static final int INDEX = 3;
+
+    private final Object[] mBuffers;
+    private final AtomicInteger mExchange = new AtomicInteger(1);
+
+    private int mWrite = 0;
+    private int mRead = 2;
+
+    /**
+     * Creates a TripleBuffer-object from three distinct buffers.
+     *
+     * @param write the buffer the producer starts with.
+     * @param exchange the buffer starting in the exchange.
+     * @param read the buffer the consumer starts with.
+     */
+    public TripleBuffer(final T write, final T exchange, final T read){
+        mBuffers = new Object[]{write, exchange, read};
+    }
+
+    /**
+     * Gets the buffer the producer should write the next value in to. Must
+     * only be called from the producer thread.
+     *
+     * @return the buffer to write.
+     */
+    @SuppressWarnings("unchecked")
+    public T getWriteBuffer(){
+        return (T) mBuffers[mWrite];
+    }
+
+    /**
+     * Publishes the write buffer as the newest value. Must only be called
+     * from the producer thread.
+     */
+    public void publish(){
+        mWrite = mExchange.getAndSet(mWrite | FRESH) & INDEX;
+    }
+
+    /**
+     * Gets the newest published value. If nothing was published since the
+     * last call, the same buffer is returned again. Must only be called
+     * from the consumer thread.
+     *
+     * @return the buffer to read.
+     */
+    @SuppressWarnings("unchecked")
+    public T acquire(){
+
+        if((mExchange.get() & FRESH) != 0){
+            mRead = mExchange.getAndSet(mRead) & INDEX;
+        }
+
+        return (T) mBuffers[mRead];
+    }
+}
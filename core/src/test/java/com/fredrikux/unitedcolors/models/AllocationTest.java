@@ -0,0 +1,192 @@
+package com.fredrikux.unitedcolors.models;
+
+import com.fredrikux.unitedcolors.utils.FrameStats;
+
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Counts the bytes allocated by the per dot work of a tick, which has to
+ * be free of garbage. Uses the allocation counter of the HotSpot
+ * ThreadMXBean. Each check is warmed up for a few rounds, so that the
+ * measured code is compiled, and then every one of a few measured rounds
+ * has to be free of garbage.
+ */
+public class AllocationTest {
+
+    private static final int DOT_COUNT = 2000;
+    private static final int TICKS_PER_ROUND = 5000;
+    private static final int WARM_UP_ROUNDS = 8;
+    private static final int ROUNDS = 3;
+
+    @Test
+    public void collisionAndBoundsChecksDoNotAllocate() {
+
+        final WorldConfig config = new WorldConfig(1080, 1920, 480.0f,
+                DOT_COUNT);
+        final PlayerDot player = new PlayerDot(540.0f, 960.0f, 0, 60.0f,
+                1.0f, config);
+        final int[] hits = new int[1];
+
+        assertDoesNotAllocate(new Runnable() {
+            @Override
+            public void run() {
+                hits[0] += checkAll(player, config, TICKS_PER_ROUND);
+            }
+        });
+
+        // Kept, so the checks can't be left out as dead code
+        assertTrue(hits[0] > 0);
+    }
+
+    @Test
+    public void tickHotLoopDoesNotAllocate() {
+
+        final Simulation simulation = new Simulation(
+                new WorldConfig(1080, 1920, 480.0f, DOT_COUNT), 1l);
+        simulation.reset(false);
+
+        while (simulation.getDotCount() < DOT_COUNT) {
+            simulation.createRandomDot(30.0f, 1080, 1920);
+        }
+
+        final RenderFrame frame = new RenderFrame(DOT_COUNT);
+        assertDoesNotAllocate(new Runnable() {
+            @Override
+            public void run() {
+                runTicks(simulation, frame, TICKS_PER_ROUND);
+            }
+        });
+    }
+
+    @Test
+    public void gameTickDoesNotAllocateOncePointDotsArePooled() {
+
+        final Simulation simulation = new Simulation(
+                new WorldConfig(1080, 1920, 480.0f, DOT_COUNT), 1l);
+        simulation.reset(true);
+
+        // The warm-up is long enough for several point dots to come and go
+        assertDoesNotAllocate(new Runnable() {
+            @Override
+            public void run() {
+                for (int tick = 0; tick < TICKS_PER_ROUND; tick++) {
+                    simulation.step();
+                }
+            }
+        });
+    }
+
+    @Test
+    public void timedTicksAreRecordedWithoutAllocating() {
+
+        final Simulation simulation = new Simulation(
+                new WorldConfig(1080, 1920, 480.0f, DOT_COUNT), 1l);
+        simulation.reset(true);
+        simulation.setTimed(true);
+
+        final FrameStats stats = new FrameStats("test", 3);
+        stats.define(0, "spawn", 1000000000l, 1l, 0l);
+        stats.define(1, "update", 1000000000l, 1l, 0l);
+        stats.define(2, "collision", 1000000000l, 1l, 0l);
+
+        assertDoesNotAllocate(new Runnable() {
+            @Override
+            public void run() {
+                recordTicks(simulation, stats, TICKS_PER_ROUND);
+            }
+        });
+
+        assertEquals((WARM_UP_ROUNDS + ROUNDS) * TICKS_PER_ROUND,
+                stats.getHistogram(1).getCount());
+    }
+
+    /**
+     * Runs provided work for the warm-up rounds, then checks that each of
+     * the measured rounds allocates nothing.
+     *
+     * @param work one round of the work.
+     */
+    private static void assertDoesNotAllocate(Runnable work) {
+
+        for (int round = 0; round < WARM_UP_ROUNDS; round++) {
+            work.run();
+        }
+
+        for (int round = 0; round < ROUNDS; round++) {
+            long before = allocatedBytes();
+            work.run();
+            long allocated = allocatedBytes() - before
+                    - measurementOverhead();
+
+            assertEquals("Bytes allocated in round " + round, 0l,
+                    allocated);
+        }
+    }
+
+    private static void recordTicks(Simulation simulation, FrameStats stats,
+                                    int ticks) {
+        for (int tick = 0; tick < ticks; tick++) {
+            simulation.step();
+
+            stats.record(0, simulation.getSpawnTime());
+            stats.record(1, simulation.getUpdateTime());
+            stats.record(2, simulation.getCollisionTime());
+        }
+    }
+
+    /**
+     * Runs the per dot phases of a tick, the spawning of new dots is left
+     * out.
+     */
+    private static void runTicks(Simulation simulation, RenderFrame frame,
+                                 int ticks) {
+        for (int tick = 0; tick < ticks; tick++) {
+            long timeStep = simulation.getTimeStep() + tick;
+
+            simulation.updateDots(timeStep);
+            simulation.collidePlayer(timeStep);
+            simulation.packRenderArrays(frame);
+        }
+    }
+
+    private static int checkAll(PlayerDot player, WorldConfig config,
+                                int ticks) {
+        int hits = 0;
+
+        for (int tick = 0; tick < ticks; tick++) {
+            float x = tick % config.getWidth();
+            float y = (tick * 7) % config.getHeight();
+
+            player.update(tick);
+
+            if (Simulation.isPointOnDot(player.x, player.y, player.getSize(),
+                    x, y, 30.0f)) {
+                hits++;
+            }
+
+            if (Simulation.getOutOfScreenEdges(x, y, 30.0f, config) != 0) {
+                hits++;
+            }
+        }
+
+        return hits;
+    }
+
+    private static long measurementOverhead() {
+        long before = allocatedBytes();
+        return allocatedBytes() - before;
+    }
+
+    private static long allocatedBytes() {
+        com.sun.management.ThreadMXBean bean =
+                (com.sun.management.ThreadMXBean)
+                        ManagementFactory.getThreadMXBean();
+
+        return bean.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+}
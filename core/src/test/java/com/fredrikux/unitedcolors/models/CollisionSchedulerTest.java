@@ -0,0 +1,184 @@
+package com.fredrikux.unitedcolors.models;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks the heap of the scheduler against a plain array, and the scheduled
+ * collisions against checking every dot every time step.
+ */
+public class CollisionSchedulerTest {
+
+    private static final int CAPACITY = 64;
+    private static final int OPERATIONS = 20000;
+    private static final int CROWDED_DOT_COUNT = 5000;
+    private static final int CROWDED_TICKS = 1500;
+    private static final int WIDTH = 1080;
+    private static final int HEIGHT = 1920;
+
+    @Test
+    public void pollsInOrderOfDue() {
+
+        Random random = new Random(5l);
+        CollisionScheduler scheduler = new CollisionScheduler(CAPACITY);
+        long[] due = new long[CAPACITY];
+        boolean[] scheduled = new boolean[CAPACITY];
+        long now = 0l;
+
+        for (int n = 0; n < OPERATIONS; n++) {
+            int id = random.nextInt(CAPACITY);
+
+            switch (random.nextInt(4)) {
+                case 0:
+                    due[id] = now + random.nextInt(50);
+                    scheduled[id] = true;
+                    scheduler.schedule(id, due[id]);
+                    break;
+
+                case 1:
+                    scheduled[id] = false;
+                    scheduler.remove(id);
+                    break;
+
+                // Like the swap-removal of the world
+                case 2:
+                    int to = random.nextInt(CAPACITY);
+                    if (!scheduled[to]) {
+                        scheduled[to] = scheduled[id];
+                        due[to] = due[id];
+                        scheduled[id] = id == to && scheduled[id];
+                        scheduler.move(id, to);
+                    }
+                    break;
+
+                default:
+                    now += random.nextInt(3);
+                    int polled = scheduler.pollDue(now);
+                    long earliest = Long.MAX_VALUE;
+                    for (int i = 0; i < CAPACITY; i++) {
+                        if (scheduled[i]) {
+                            earliest = Math.min(earliest, due[i]);
+                        }
+                    }
+
+                    if (earliest > now) {
+                        assertEquals(CollisionScheduler.NONE, polled);
+                    } else {
+                        assertTrue(scheduled[polled]);
+                        assertEquals(earliest, due[polled]);
+                        scheduled[polled] = false;
+                    }
+                    break;
+            }
+
+            int count = 0;
+            for (int i = 0; i < CAPACITY; i++) {
+                assertEquals(scheduled[i], scheduler.isScheduled(i));
+                count += scheduled[i] ? 1 : 0;
+            }
+            assertEquals(count, scheduler.size());
+        }
+    }
+
+    @Test
+    public void travelIsRoundedTowardsCheckingEarly() {
+
+        // A gap of 90, closed by moving 30 three times
+        long gap = CollisionScheduler.getGapTravel(100.0f, 10.0f);
+        long moved = CollisionScheduler.getMovedTravel(30.0f);
+        assertTrue(gap <= 90.0f * CollisionScheduler.TRAVEL_SCALE);
+        assertTrue(3 * moved >= gap);
+        assertTrue(2 * moved < gap);
+
+        assertEquals(0l, CollisionScheduler.getGapTravel(5.0f, 10.0f));
+        assertTrue(CollisionScheduler.getMovedTravel(0.0f) > 0l);
+    }
+
+    @Test
+    public void collidesTheSameAsCheckingEveryDot() {
+
+        Simulation simulation = new Simulation(new WorldConfig(WIDTH, HEIGHT,
+                480.0f, CROWDED_DOT_COUNT), 23l);
+        simulation.reset(false, 23l);
+
+        while (simulation.getDotCount() < CROWDED_DOT_COUNT - 100) {
+            simulation.createRandomDot(20.0f, WIDTH, HEIGHT);
+        }
+
+        Random random = new Random(23l);
+        DotWorld world = simulation.getWorld();
+        long checks = 0l;
+        long dots = 0l;
+        int collisions = 0;
+
+        for (int tick = 0; tick < CROWDED_TICKS; tick++) {
+
+            // Steered around, with a sudden jerk now and then
+            float jerk = random.nextInt(50) == 0 ? 3.0f : 0.0f;
+            simulation.step((float) Math.sin(tick * 0.05) * 0.5f + jerk,
+                    (float) Math.cos(tick * 0.03) * 0.5f - jerk);
+
+            for (int i = 0; i < world.size(); i++) {
+                if (world.kind[i] != DotWorld.KIND_SMALL) {
+                    continue;
+                }
+
+                boolean touching = touchedPlayer(simulation, i);
+                boolean flagged = (world.flags[i] & DotWorld.FLAG_REMOVE)
+                        != 0;
+                assertEquals(touching, flagged);
+                collisions += flagged ? 1 : 0;
+            }
+
+            checks += simulation.getCollisionCheckCount();
+            dots += simulation.getDotCount();
+        }
+
+        // Only the dots close to the player dot are checked each time step
+        assertTrue(collisions > 0);
+        assertTrue("checked " + checks + " of " + dots, checks * 8 < dots);
+        assertFalse(simulation.isInKioskMode());
+    }
+
+    /**
+     * Checks to see if a dot touched the player dot during the last time
+     * step, at any of a fine set of times along the way.
+     */
+    private static boolean touchedPlayer(Simulation simulation, int dot) {
+
+        DotWorld world = simulation.getWorld();
+        long to = simulation.getTimeStep();
+        long from = to - 1l;
+        int player = 0;
+        while (world.kind[player] != DotWorld.KIND_PLAYER) {
+            player++;
+        }
+
+        // Sampled finer than the dots move, and at the closest pass, which
+        // the samples could miss by a hair
+        float rx = world.getX(dot, from, WIDTH)
+                - world.getX(player, from, WIDTH);
+        float ry = world.getY(dot, from, HEIGHT)
+                - world.getY(player, from, HEIGHT);
+        float mx = world.getX(dot, to, WIDTH)
+                - world.getX(player, to, WIDTH) - rx;
+        float my = world.getY(dot, to, HEIGHT)
+                - world.getY(player, to, HEIGHT) - ry;
+        float reach = (world.size[dot] + world.size[player]) / 2.0f;
+
+        float closest = Float.MAX_VALUE;
+        for (int sample = 0; sample <= 1000; sample++) {
+            float t = sample / 1000.0f;
+            float x = rx + mx * t;
+            float y = ry + my * t;
+            closest = Math.min(closest, x * x + y * y);
+        }
+
+        return closest <= reach * reach * 1.0001f;
+    }
+}
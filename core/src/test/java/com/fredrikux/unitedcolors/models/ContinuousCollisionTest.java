@@ -0,0 +1,90 @@
+package com.fredrikux.unitedcolors.models;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Plays the same few seconds at several tick rates, with every speed
+ * scaled to the length of a tick, and checks that the player dot collects
+ * the same dots at all of them, however far the dots move per tick.
+ */
+public class ContinuousCollisionTest {
+
+    // The tick rate the speeds are given in, and the ones to play at
+    private static final int BASE_HERTZ = 60;
+    private static final int[] HERTZ = {60, 30, 20, 12, 6, 4};
+    private static final int SECONDS = 2;
+
+    private static final float DOT_SIZE = 24.0f;
+    private static final int DOT_COUNT = 24;
+
+    @Test
+    public void collectsTheSameDotsAtEveryTickRate() {
+
+        int expected = -1;
+        for (int hertz : HERTZ) {
+            int collected = play(hertz);
+            if (expected == -1) {
+                expected = collected;
+            }
+            assertEquals("collected at " + hertz + " Hz", expected,
+                    collected);
+        }
+
+        // Some dots cross the path of the player dot, some don't
+        assertEquals(DOT_COUNT / 2, expected);
+    }
+
+    /**
+     * Plays the scene at provided tick rate.
+     *
+     * @return the number of the placed dots the player dot collected.
+     */
+    private static int play(int hertz) {
+
+        float perTick = (float) BASE_HERTZ / hertz;
+
+        // Big enough for no dot to reach a wall
+        Simulation simulation = new Simulation(
+                new WorldConfig(4000, 4000, 480.0f), 5l);
+        simulation.reset(false, 5l);
+        PlayerDot player = simulation.getPlayerDot();
+
+        // The player dot heads right from the middle of the world, 4 pixels
+        // per base tick
+        float orientation = 4.0f / player.velocity * perTick;
+        float playerY = player.y;
+        float playerReach = (player.getSize() + DOT_SIZE) / 2.0f;
+
+        // Fast dots dropping across the path of the player dot, half of
+        // them timed to hit it and half to pass in front of it
+        for (int i = 0; i < DOT_COUNT; i++) {
+            float speed = 10.0f + 0.5f * i;
+            float hitTime = 20.0f + 3.0f * i;
+            float x = player.x + 4.0f * hitTime
+                    + (i % 2 == 0 ? 0.0f : 3.0f * playerReach);
+            float y = playerY - speed * hitTime;
+
+            simulation.addDot(DotWorld.KIND_SMALL, x, y, 0.0f, 1.0f,
+                    speed * perTick, DOT_SIZE, player.color);
+        }
+
+        int collected = 0;
+        int ticks = SECONDS * hertz;
+        DotWorld world = simulation.getWorld();
+        for (int tick = 0; tick < ticks; tick++) {
+            simulation.step(orientation, 0.0f);
+
+            // Flagged dots are removed in the next tick
+            for (int i = 0; i < world.size(); i++) {
+                if (world.size[i] == DOT_SIZE
+                        && (world.flags[i] & DotWorld.FLAG_REMOVE) != 0) {
+                    collected++;
+                }
+            }
+        }
+
+        return collected;
+    }
+}
@@ -0,0 +1,213 @@
+package com.fredrikux.unitedcolors.models;
+
+import com.fredrikux.unitedcolors.utils.Backoff;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Submits logged games to a stand-in for the leaderboard service, which
+ * can be taken down, and checks what reaches it and when.
+ */
+public class LeaderboardSyncTest {
+
+    private static final long HOUR = 3600000l;
+    private static final long INITIAL_DELAY = 2000l;
+    private static final long MAX_DELAY = 600000l;
+    private static final int BATCH = 50;
+
+    private File mFile;
+    private ScoreLog mLog;
+    private FakeService mService;
+    private FakeClock mClock;
+    private LeaderboardSync mSync;
+
+    @Before
+    public void setUp() throws IOException {
+        mFile = File.createTempFile("scores", ".log");
+        assertTrue(mFile.delete());
+        mLog = new ScoreLog(mFile, 10);
+
+        mService = new FakeService();
+        mClock = new FakeClock();
+        mSync = new LeaderboardSync(mService, HOUR, BATCH,
+                new Backoff(INITIAL_DELAY, MAX_DELAY, new Random(1l)),
+                mClock);
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        mLog.close();
+        mFile.delete();
+    }
+
+    @Test
+    public void submitsTheBestOfEveryWindow() throws IOException {
+
+        // Three games in the first hour, one in the next and two in the
+        // fifth
+        mLog.append(10l, 100, 1, 1);
+        mLog.append(HOUR / 2, 300, 1, 2);
+        mLog.append(HOUR - 1, 200, 1, 3);
+        mLog.append(HOUR, 50, 1, 4);
+        mLog.append(4 * HOUR + 5, 70, 1, 5);
+        mLog.append(4 * HOUR + 9, 60, 1, 6);
+
+        assertEquals(6, mLog.uploadPending(mSync, BATCH));
+
+        assertEquals(1, mService.mCalls);
+        assertEquals(3, mService.mScores.size());
+        assertEquals(300, (int) mService.mScores.get(0));
+        assertEquals(50, (int) mService.mScores.get(1));
+        assertEquals(70, (int) mService.mScores.get(2));
+        assertEquals(4 * HOUR, (long) mService.mWindowStarts.get(2));
+    }
+
+    @Test
+    public void windowsAreSubmittedOnceAcrossBatchesAndRuns()
+            throws IOException {
+
+        // The first hour split over two batches, its best in the first
+        mLog.append(10l, 100, 1, 1);
+        mLog.append(20l, 300, 1, 2);
+        mLog.append(30l, 200, 1, 3);
+        assertEquals(3, mLog.uploadPending(mSync, 2));
+        assertEquals(1, mService.mCalls);
+
+        // A game on the next connection that doesn't beat it
+        mLog.append(40l, 250, 1, 4);
+        assertEquals(1, mLog.uploadPending(mSync, BATCH));
+        assertEquals(1, mService.mCalls);
+
+        // Nor after the app is started again, until a game beats it
+        mLog.close();
+        mLog = new ScoreLog(mFile, 10);
+        mLog.append(50l, 300, 1, 5);
+        assertEquals(1, mLog.uploadPending(mSync, BATCH));
+        assertEquals(1, mService.mCalls);
+
+        mLog.append(60l, 400, 1, 6);
+        mLog.append(HOUR, 20, 1, 7);
+        assertEquals(2, mLog.uploadPending(mSync, BATCH));
+
+        assertEquals(2, mService.mCalls);
+        assertEquals(3, mService.mScores.size());
+        assertEquals(300, (int) mService.mScores.get(0));
+        assertEquals(400, (int) mService.mScores.get(1));
+        assertEquals(0l, (long) mService.mWindowStarts.get(1));
+        assertEquals(20, (int) mService.mScores.get(2));
+    }
+
+    @Test
+    public void backsOffWhileTheServiceIsDown() throws IOException {
+
+        mLog.append(0l, 100, 1, 1);
+        mService.mDown = true;
+
+        // Every failure at least doubles the wait, up to the maximum
+        long previousHalf = 0l;
+        for (int failure = 0; failure < 12; failure++) {
+            long before = mService.mCalls;
+            assertUploadFails();
+            assertEquals(before + 1, mService.mCalls);
+
+            long delay = mSync.getBackoff().getReadyTime() - mClock.mNow;
+            long full = Math.min(MAX_DELAY, INITIAL_DELAY << failure);
+            assertTrue(delay >= full / 2 && delay <= full);
+            assertTrue(full / 2 >= previousHalf);
+            previousHalf = full / 2;
+
+            // Retrying before the delay passed doesn't reach the service
+            mClock.mNow += delay - 1;
+            assertUploadFails();
+            assertEquals(before + 1, mService.mCalls);
+            mClock.mNow += 1;
+        }
+
+        // Back up, the game is submitted once and the backoff starts over
+        mService.mDown = false;
+        assertEquals(1, mLog.uploadPending(mSync, BATCH));
+        assertEquals(1, mService.mScores.size());
+        assertEquals(0, mSync.getBackoff().getFailures());
+        assertEquals(0, mLog.uploadPending(mSync, BATCH));
+    }
+
+    @Test
+    public void gamesPlayedOfflineAreAllSubmitted() throws IOException {
+
+        mService.mDown = true;
+        mLog.append(0l, 100, 1, 1);
+        assertUploadFails();
+
+        // More games, in other hours, while the network is gone
+        for (int hour = 1; hour <= 120; hour++) {
+            mLog.append(hour * HOUR, hour, 1, hour);
+        }
+
+        mService.mDown = false;
+        mClock.mNow += MAX_DELAY;
+        assertEquals(121, mLog.uploadPending(mSync, BATCH));
+
+        // The failed call, then a call for every batch of the log
+        assertEquals(4, mService.mCalls);
+        assertEquals(121, mService.mScores.size());
+        assertEquals(100, (int) mService.mScores.get(0));
+        assertEquals(120, (int) mService.mScores.get(120));
+    }
+
+    private void assertUploadFails() {
+        try {
+            mLog.uploadPending(mSync, BATCH);
+            fail("Upload to a service that is down succeeded");
+        } catch (IOException expected) {
+            assertTrue(mLog.getPendingCount() > 0);
+        }
+    }
+
+    /**
+     * Stands in for the leaderboard service.
+     */
+    private static class FakeService implements LeaderboardSync.IService {
+
+        private final List<Long> mWindowStarts = new ArrayList<Long>();
+        private final List<Integer> mScores = new ArrayList<Integer>();
+        private long mCalls = 0;
+        private boolean mDown = false;
+
+        @Override
+        public void submit(long[] windowStarts, int[] scores, int count)
+                throws IOException {
+
+            mCalls++;
+            if (mDown) {
+                throw new IOException("Service unavailable");
+            }
+
+            for (int i = 0; i < count; i++) {
+                mWindowStarts.add(windowStarts[i]);
+                mScores.add(scores[i]);
+            }
+        }
+    }
+
+    private static class FakeClock implements LeaderboardSync.IClock {
+
+        private long mNow = 1000000l;
+
+        @Override
+        public long currentTimeMillis() {
+            return mNow;
+        }
+    }
+}
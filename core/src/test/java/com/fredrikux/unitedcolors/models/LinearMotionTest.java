@@ -0,0 +1,181 @@
+package com.fredrikux.unitedcolors.models;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks the folded motion against bouncing step by step, and that the
+ * motions of a frame move the dots, the way the vertex shader does, to
+ * where the world computes them to be.
+ */
+public class LinearMotionTest {
+
+    private static final int TICKS = 20000;
+
+    @Test
+    public void foldMatchesBouncingStepByStep() {
+
+        float[] velocities = {0.0f, 0.37f, -1.25f, 7.5f, -13.0f, 240.0f};
+        for (float velocity : velocities) {
+
+            float min = 12.0f, max = 300.0f;
+            float position = 100.0f, stepped = 100.0f, direction = velocity;
+            for (int step = 1; step <= TICKS; step++) {
+
+                // Reflected off the walls, as far as it went past them
+                stepped += direction;
+                while (stepped < min || stepped > max) {
+                    if (stepped > max) {
+                        stepped = 2.0f * max - stepped;
+                    } else {
+                        stepped = 2.0f * min - stepped;
+                    }
+                    direction = -direction;
+                }
+
+                float folded = LinearMotion.position(position, velocity,
+                        step, min, max);
+                assertEquals(stepped, folded, 0.05f);
+                assertTrue(folded >= min && folded <= max);
+                // Right at a wall either direction is right
+                if (folded > min + 0.1f && folded < max - 0.1f) {
+                    assertEquals(Math.signum(direction), Math.signum(velocity)
+                            * LinearMotion.slope(position + velocity * step,
+                            min, max), 0.0f);
+                }
+            }
+        }
+
+        // No room to move, the dot stays at the low end
+        assertEquals(5.0f, LinearMotion.fold(123.0f, 5.0f, 5.0f), 0.0f);
+    }
+
+    @Test
+    public void motionsMoveDotsLikeTheSimulation() {
+
+        WorldConfig config = new WorldConfig(1080, 1920, 480.0f);
+        Simulation simulation = new Simulation(config, 11l);
+        simulation.reset(false);
+
+        RenderFrame frame = new RenderFrame(GameRules.DOT_LIMIT);
+        for (int tick = 0; tick < 3000; tick++) {
+
+            // The world shrinks and grows, like when the screen rotates
+            if (tick == 1000) {
+                config.setSize(1920, 1080);
+            } else if (tick == 2000) {
+                config.setSize(1080, 1920);
+            }
+
+            simulation.step((float) Math.sin(tick * 0.01) * 0.3f,
+                    (float) Math.cos(tick * 0.017) * 0.3f);
+            simulation.packRenderArrays(frame);
+
+            assertTrue(frame.count > 0);
+            assertMotionsMatch(simulation.getWorld(), frame);
+        }
+    }
+
+    @Test
+    public void motionsMoveDotsLikeTheSimulationInLongTicks() {
+
+        Simulation simulation = new Simulation(
+                new WorldConfig(1080, 1920, 480.0f), 17l);
+        simulation.reset(true);
+
+        // Like in kiosk mode, three steps every tick
+        RenderFrame frame = new RenderFrame(GameRules.DOT_LIMIT);
+        for (int tick = 0; tick < 1000; tick++) {
+            simulation.step(3);
+            simulation.packRenderArrays(frame);
+
+            assertEquals(3, frame.steps);
+            assertEquals(3l * (tick + 1), frame.timeStep);
+            assertMotionsMatch(simulation.getWorld(), frame);
+        }
+    }
+
+    @Test
+    public void motionsMoveDotsLikeTheSimulationPastTheStepBase() {
+
+        Simulation simulation = new Simulation(
+                new WorldConfig(1080, 1920, 480.0f), 19l);
+        simulation.reset(true);
+
+        // The dots are given new origins when the step base moves
+        RenderFrame frame = new RenderFrame(GameRules.DOT_LIMIT);
+        long end = RenderFrame.STEP_BASE_INTERVAL + 100l;
+        while (simulation.getTimeStep() < end) {
+            simulation.step();
+            if (simulation.getTimeStep() > end - 200l) {
+                simulation.packRenderArrays(frame);
+                assertMotionsMatch(simulation.getWorld(), frame);
+            }
+        }
+        assertEquals(RenderFrame.STEP_BASE_INTERVAL, frame.stepBase);
+    }
+
+    @Test
+    public void dotsSpawnInsideOfTheFoldRange() {
+
+        Simulation simulation = new Simulation(
+                new WorldConfig(1080, 1920, 480.0f), 13l);
+        simulation.reset(true);
+        DotWorld world = simulation.getWorld();
+
+        float size = 30.0f;
+        for (int n = 0; n < 1000; n++) {
+            simulation.createRandomDot(size, 1080, 1920);
+            int i = world.size() - 1;
+
+            // Folding a position in the range leaves it where it is
+            assertEquals(world.originX[i], LinearMotion.fold(
+                    world.originX[i], size / 2.0f, 1080 - size / 2.0f), 0.0f);
+            assertEquals(world.originY[i], LinearMotion.fold(
+                    world.originY[i], size / 2.0f, 1920 - size / 2.0f), 0.0f);
+
+            simulation.removeDot(i);
+        }
+    }
+
+    private static void assertMotionsMatch(DotWorld world,
+                                           RenderFrame frame) {
+
+        long to = frame.timeStep;
+        long from = to - frame.steps;
+        for (int i = 0; i < frame.count; i++) {
+            assertEquals(world.getX(i, from, frame.width),
+                    moved(frame, i, 0.0f, 0), 0.01f);
+            assertEquals(world.getY(i, from, frame.height),
+                    moved(frame, i, 0.0f, 1), 0.01f);
+            assertEquals(world.getX(i, to, frame.width),
+                    moved(frame, i, frame.steps, 0), 0.01f);
+            assertEquals(world.getY(i, to, frame.height),
+                    moved(frame, i, frame.steps, 1), 0.01f);
+        }
+    }
+
+    /**
+     * Moves a dot of the frame the same way as the vertex shader.
+     */
+    private static float moved(RenderFrame frame, int dot, float interpolation,
+                               int axis) {
+
+        int m = dot * RenderFrame.SIZE_OF_MOTION;
+        float[] motions = frame.motions;
+        float elapsed = (frame.getMotionStep()
+                - motions[m + RenderFrame.MOTION_STEP]) + interpolation;
+        float position = motions[m + RenderFrame.MOTION_ORIGIN_X + axis]
+                + motions[m + RenderFrame.MOTION_VELOCITY_X + axis] * elapsed;
+
+        if (motions[m + RenderFrame.MOTION_BOUNCE] == 0.0f) {
+            return position;
+        }
+
+        float radius = frame.sizes[dot] / 2.0f;
+        float size = axis == 0 ? frame.width : frame.height;
+        return LinearMotion.fold(position, radius, size - radius);
+    }
+}
@@ -0,0 +1,85 @@
+package com.fredrikux.unitedcolors.models;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Feeds timestamped samples through the orientation filter.
+ */
+public class OrientationFilterTest {
+
+    private static final long MS = 1000000l;
+
+    @Test
+    public void averagesSamplesOverTheirTimeSpan() {
+
+        OrientationFilter filter = new OrientationFilter(16, 0l);
+
+        // Zero for 30 ms, then one for 10 ms
+        filter.offer(0l, 0.0f, 0.0f);
+        filter.offer(30 * MS, 0.0f, 0.0f);
+        filter.offer(30 * MS + 1, 1.0f, -1.0f);
+        filter.offer(40 * MS, 1.0f, -1.0f);
+        filter.update();
+
+        assertEquals(4, filter.getSampleCount());
+        assertEquals(0.25f, filter.getX(), 0.001f);
+        assertEquals(-0.25f, filter.getY(), 0.001f);
+    }
+
+    @Test
+    public void keepsTheLastOrientationWithoutNewSamples() {
+
+        OrientationFilter filter = new OrientationFilter(16, 0l);
+        filter.offer(0l, 0.5f, 0.25f);
+        filter.update();
+        filter.update();
+
+        assertEquals(0, filter.getSampleCount());
+        assertEquals(0.5f, filter.getX(), 0.0f);
+        assertEquals(0.25f, filter.getY(), 0.0f);
+    }
+
+    @Test
+    public void lowPassSmoothsSteps() {
+
+        OrientationFilter filter = new OrientationFilter(16,
+                GameRules.SENSOR_FILTER_TIME_CONSTANT);
+        filter.offer(0l, 0.0f, 0.0f);
+        filter.update();
+
+        // A step to one, sampled every 5 ms for one 33 ms tick
+        for (long time = 5 * MS; time <= 33 * MS; time += 5 * MS) {
+            filter.offer(time, 1.0f, 1.0f);
+        }
+        filter.update();
+
+        assertTrue(filter.getX() > 0.0f);
+        assertTrue(filter.getX() < 0.5f);
+
+        // Given time it settles on the step
+        for (long time = 35 * MS; time <= 1000 * MS; time += 5 * MS) {
+            filter.offer(time, 1.0f, 1.0f);
+            filter.update();
+        }
+        assertEquals(1.0f, filter.getX(), 0.01f);
+    }
+
+    @Test
+    public void dropsSamplesWhenFull() {
+
+        OrientationFilter filter = new OrientationFilter(4, 0l);
+
+        for (int i = 0; i < 4; i++) {
+            assertTrue(filter.offer(i * MS, 0.0f, 0.0f));
+        }
+        assertFalse(filter.offer(4 * MS, 0.0f, 0.0f));
+        assertEquals(1, filter.getDropped());
+
+        filter.update();
+        assertTrue(filter.offer(5 * MS, 0.0f, 0.0f));
+    }
+}
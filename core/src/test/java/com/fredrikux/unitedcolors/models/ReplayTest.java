@@ -0,0 +1,129 @@
+package com.fredrikux.unitedcolors.models;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Records a game fed with live-like sensor samples and plays it again.
+ */
+public class ReplayTest {
+
+    private static final int TICKS = 3000;
+    private static final long TICK_NANOS = 33333333l;
+
+    @Test
+    public void replayEndsInTheRecordedState() throws IOException {
+
+        WorldConfig config = new WorldConfig(1080, 1920, 480.0f);
+        Simulation live = new Simulation(config, 1l);
+        live.reset(false, 99l);
+
+        ReplayRecorder recorder = new ReplayRecorder();
+        recorder.begin(99l, config, false);
+
+        // Sensor samples at an uneven rate, from another random source
+        Random sensor = new Random(5l);
+        long time = 0l;
+        for (int tick = 0; tick < TICKS; tick++) {
+            int samples = sensor.nextInt(4);
+            for (int i = 0; i < samples; i++) {
+                time += TICK_NANOS / 4;
+                live.updateOrientation(time, sensor.nextFloat() - 0.5f,
+                        sensor.nextFloat() - 0.5f);
+            }
+
+            if (tick == TICKS / 2) {
+                config.setSize(1920, 1080);
+            }
+
+            recorder.recordWorld(config);
+            live.step();
+            recorder.recordTick(live.getPlayerDot().getOrientationX(),
+                    live.getPlayerDot().getOrientationY());
+        }
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        recorder.end(out);
+
+        Replay replay = Replay.read(new ByteArrayInputStream(out.toByteArray()));
+        assertEquals(TICKS, replay.getTickCount());
+
+        Simulation replayed = replay.play();
+
+        assertTrue(live.getDotCount() > 0);
+        assertEquals(live.getDotCount(), replayed.getDotCount());
+        assertEquals(live.getScore(), replayed.getScore());
+        assertEquals(live.getPlayerDot().x, replayed.getPlayerDot().x, 0.0f);
+        assertEquals(live.getPlayerDot().y, replayed.getPlayerDot().y, 0.0f);
+
+        RenderFrame liveFrame = new RenderFrame(GameRules.DOT_LIMIT);
+        RenderFrame replayedFrame = new RenderFrame(GameRules.DOT_LIMIT);
+        live.packRenderArrays(liveFrame);
+        replayed.packRenderArrays(replayedFrame);
+        assertArrayEquals(liveFrame.motions, replayedFrame.motions, 0.0f);
+        assertArrayEquals(liveFrame.colors, replayedFrame.colors);
+    }
+
+    @Test
+    public void replayKeepsTheStepsPerTick() throws IOException {
+
+        WorldConfig config = new WorldConfig(1080, 1920, 480.0f);
+        Simulation live = new Simulation(config, 1l);
+        live.reset(true, 7l);
+
+        ReplayRecorder recorder = new ReplayRecorder();
+        recorder.begin(7l, config, true);
+
+        // Kiosk mode ticks three steps at a time, the rest one
+        for (int tick = 0; tick < TICKS; tick++) {
+            int steps = tick < TICKS / 3 || tick > TICKS * 2 / 3 ? 1 : 3;
+
+            recorder.recordWorld(config);
+            recorder.recordSteps(steps);
+            live.step(steps);
+            recorder.recordTick(0.0f, 0.0f);
+        }
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        recorder.end(out);
+
+        Replay replay = Replay.read(new ByteArrayInputStream(out.toByteArray()));
+        Simulation replayed = replay.play();
+
+        assertEquals(live.getTimeStep(), replayed.getTimeStep());
+        assertEquals(live.getDotCount(), replayed.getDotCount());
+
+        RenderFrame liveFrame = new RenderFrame(GameRules.DOT_LIMIT);
+        RenderFrame replayedFrame = new RenderFrame(GameRules.DOT_LIMIT);
+        live.packRenderArrays(liveFrame);
+        replayed.packRenderArrays(replayedFrame);
+        assertArrayEquals(liveFrame.motions, replayedFrame.motions, 0.0f);
+    }
+
+    @Test
+    public void ticksAreCompact() throws IOException {
+
+        WorldConfig config = new WorldConfig(1080, 1920, 480.0f);
+        ReplayRecorder recorder = new ReplayRecorder();
+        recorder.begin(1l, config, true);
+
+        for (int tick = 0; tick < TICKS; tick++) {
+            recorder.recordWorld(config);
+            recorder.recordTick(0.0f, 0.0f);
+        }
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        recorder.end(out);
+
+        assertEquals(Replay.HEADER_SIZE + TICKS * Replay.TICK_SIZE + 1,
+                out.size());
+    }
+}
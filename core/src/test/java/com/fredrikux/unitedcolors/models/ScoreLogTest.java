@@ -0,0 +1,279 @@
+package com.fredrikux.unitedcolors.models;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Checks the indexed queries of the score log against sorting all scores,
+ * and uploads to a stand-in for the leaderboard service.
+ */
+public class ScoreLogTest {
+
+    private static final int ENTRIES = 100000;
+    private static final int TOP_COUNT = 10;
+
+    private File mFile;
+
+    @Before
+    public void setUp() throws IOException {
+        mFile = File.createTempFile("scores", ".log");
+        assertTrue(mFile.delete());
+    }
+
+    @After
+    public void tearDown() {
+        mFile.delete();
+    }
+
+    @Test
+    public void queriesMatchSortedScores() throws IOException {
+
+        Random random = new Random(3l);
+        int[] scores = new int[ENTRIES];
+
+        ScoreLog log = new ScoreLog(mFile, TOP_COUNT);
+        try {
+            for (int i = 0; i < ENTRIES; i++) {
+
+                // Mostly low scores, with a long tail
+                scores[i] = (int) (Math.abs(random.nextGaussian()) * 300)
+                        + (random.nextInt(1000) == 0 ? 40000 : 0);
+                log.append(1000l * i, scores[i], 30 * scores[i], i);
+
+                if (i % 9973 == 0) {
+                    assertQueries(log, scores, i + 1);
+                }
+            }
+            assertQueries(log, scores, ENTRIES);
+        } finally {
+            log.close();
+        }
+
+        // The index is built again from the file
+        ScoreLog reopened = new ScoreLog(mFile, TOP_COUNT);
+        try {
+            assertQueries(reopened, scores, ENTRIES);
+            assertEquals(30 * scores[123], reopened.getDuration(123));
+            assertEquals(123l, reopened.getSeed(123));
+            assertEquals(123000l, reopened.getTimestamp(123));
+        } finally {
+            reopened.close();
+        }
+    }
+
+    @Test
+    public void sparseHighScoresAreIndexed() throws IOException {
+
+        // Far apart, up to the highest score there can be
+        int[] scores = {ScoreLog.MAX_SCORE, 0, 1 << 20, 7, ScoreLog.MAX_SCORE,
+                40000, (1 << 23) + 1, 7, 1};
+
+        ScoreLog log = new ScoreLog(mFile, TOP_COUNT);
+        try {
+            for (int i = 0; i < scores.length; i++) {
+                log.append(i, scores[i], 1, i);
+                assertQueries(log, scores, i + 1);
+            }
+            assertEquals(scores.length, log.countAtOrBelow(ScoreLog.MAX_SCORE));
+        } finally {
+            log.close();
+        }
+
+        ScoreLog reopened = new ScoreLog(mFile, TOP_COUNT);
+        try {
+            assertQueries(reopened, scores, scores.length);
+        } finally {
+            reopened.close();
+        }
+    }
+
+    private static void assertQueries(ScoreLog log, int[] scores, int count) {
+
+        int[] sorted = Arrays.copyOf(scores, count);
+        Arrays.sort(sorted);
+
+        assertEquals(count, log.getCount());
+
+        double[] percentiles = {0.0, 1.0, 25.0, 50.0, 90.0, 99.0, 99.9, 100.0};
+        for (double percentile : percentiles) {
+            int wanted = Math.max(1, (int) Math.ceil(percentile / 100.0
+                    * count));
+            assertEquals(sorted[wanted - 1],
+                    log.getScoreAtPercentile(percentile));
+        }
+
+        int[] probes = {-1, 0, 1, 150, 299, 1000, 40000, 40500, 1 << 20};
+        for (int probe : probes) {
+            int atOrBelow = 0;
+            while (atOrBelow < count && sorted[atOrBelow] <= probe) {
+                atOrBelow++;
+            }
+            assertEquals(atOrBelow, log.countAtOrBelow(probe));
+            assertEquals(count - atOrBelow + 1, log.getRank(probe));
+        }
+
+        // The best entries, ties in the order they were played
+        assertEquals(Math.min(TOP_COUNT, count), log.getTopCount());
+        int previous = -1;
+        for (int rank = 0; rank < log.getTopCount(); rank++) {
+            int entry = log.getTop(rank);
+            assertEquals(sorted[count - 1 - rank], log.getScore(entry));
+            if (rank > 0 && log.getScore(entry)
+                    == log.getScore(log.getTop(rank - 1))) {
+                assertTrue(entry > previous);
+            }
+            previous = entry;
+        }
+    }
+
+    @Test
+    public void uploadsInBatchesOnce() throws IOException {
+
+        FakeLeaderboard leaderboard = new FakeLeaderboard();
+
+        ScoreLog log = new ScoreLog(mFile, TOP_COUNT);
+        try {
+            for (int i = 0; i < 25; i++) {
+                log.append(i, i * 10, i, i);
+            }
+            assertEquals(25, log.getPendingCount());
+
+            // The service goes down during the second batch
+            leaderboard.mFailAfter = 1;
+            try {
+                log.uploadPending(leaderboard, 10);
+                fail("Failed upload was not reported");
+            } catch (IOException expected) {
+                assertEquals(15, log.getPendingCount());
+            }
+        } finally {
+            log.close();
+        }
+
+        // The progress survives the log being opened again
+        leaderboard.mFailAfter = Integer.MAX_VALUE;
+        ScoreLog reopened = new ScoreLog(mFile, TOP_COUNT);
+        try {
+            assertEquals(15, reopened.getPendingCount());
+            assertEquals(15, reopened.uploadPending(leaderboard, 10));
+            assertEquals(0, reopened.uploadPending(leaderboard, 10));
+
+            reopened.append(99, 7, 1, 1);
+            assertEquals(1, reopened.uploadPending(leaderboard, 10));
+        } finally {
+            reopened.close();
+        }
+
+        // Every score once, in the order played, in batches of at most 10
+        assertEquals(26, leaderboard.mScores.size());
+        for (int i = 0; i < 25; i++) {
+            assertEquals(i * 10, (int) leaderboard.mScores.get(i));
+        }
+        assertEquals(7, (int) leaderboard.mScores.get(25));
+        assertEquals(Arrays.asList(10, 10, 5, 1), leaderboard.mBatches);
+    }
+
+    @Test
+    public void tornEntryIsDropped() throws IOException {
+
+        ScoreLog log = new ScoreLog(mFile, TOP_COUNT);
+        try {
+            log.append(1, 100, 1, 1);
+            log.append(2, 200, 1, 1);
+        } finally {
+            log.close();
+        }
+
+        // Half an entry, like when the process dies mid-append
+        RandomAccessFile file = new RandomAccessFile(mFile, "rw");
+        try {
+            file.seek(file.length());
+            file.write(new byte[ScoreLog.ENTRY_SIZE / 2]);
+        } finally {
+            file.close();
+        }
+
+        ScoreLog reopened = new ScoreLog(mFile, TOP_COUNT);
+        try {
+            assertEquals(2, reopened.getCount());
+            reopened.append(3, 300, 1, 1);
+            assertEquals(300, reopened.getScore(reopened.getTop(0)));
+        } finally {
+            reopened.close();
+        }
+
+        assertEquals(ScoreLog.HEADER_SIZE + 3 * ScoreLog.ENTRY_SIZE,
+                mFile.length());
+    }
+
+    @Test
+    public void damagedEntryIsDroppedWithTheOnesAfterIt() throws IOException {
+
+        ScoreLog log = new ScoreLog(mFile, TOP_COUNT);
+        try {
+            log.append(1, 100, 1, 1);
+            log.append(2, 200, 1, 1);
+            log.append(3, 300, 1, 1);
+        } finally {
+            log.close();
+        }
+
+        // A negative score in the second entry
+        RandomAccessFile file = new RandomAccessFile(mFile, "rw");
+        try {
+            file.seek(ScoreLog.HEADER_SIZE + ScoreLog.ENTRY_SIZE + 8);
+            file.writeInt(-1);
+        } finally {
+            file.close();
+        }
+
+        ScoreLog reopened = new ScoreLog(mFile, TOP_COUNT);
+        try {
+            assertEquals(1, reopened.getCount());
+            assertEquals(100, reopened.getScore(0));
+            assertEquals(1, reopened.getPendingCount());
+        } finally {
+            reopened.close();
+        }
+
+        assertEquals(ScoreLog.HEADER_SIZE + ScoreLog.ENTRY_SIZE,
+                mFile.length());
+    }
+
+    /**
+     * Stands in for the leaderboard service, remembering what it got.
+     */
+    private static class FakeLeaderboard implements ScoreLog.IUploader {
+
+        private final List<Integer> mScores = new ArrayList<Integer>();
+        private final List<Integer> mBatches = new ArrayList<Integer>();
+        private int mFailAfter = Integer.MAX_VALUE;
+
+        @Override
+        public void upload(ScoreLog log, int from, int to)
+                throws IOException {
+
+            if (mBatches.size() >= mFailAfter) {
+                throw new IOException("Service unavailable");
+            }
+
+            for (int i = from; i < to; i++) {
+                mScores.add(log.getScore(i));
+            }
+            mBatches.add(to - from);
+        }
+    }
+}
@@ -0,0 +1,171 @@
+package com.fredrikux.unitedcolors.models;
+
+import com.fredrikux.unitedcolors.utils.ChunkExecutor;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Runs the simulation headless on the JVM.
+ */
+public class SimulationTest {
+
+    private static final int TICKS = 10000;
+    private static final int CROWDED_DOT_COUNT = 20000;
+    private static final int CROWDED_TICKS = 300;
+
+    @Test
+    public void sameSeedGivesSameWorld() {
+
+        Simulation a = createSimulation(42l);
+        Simulation b = createSimulation(42l);
+
+        for (int tick = 0; tick < TICKS; tick++) {
+            a.step();
+            b.step();
+        }
+
+        RenderFrame frameA = new RenderFrame(GameRules.DOT_LIMIT);
+        RenderFrame frameB = new RenderFrame(GameRules.DOT_LIMIT);
+        a.packRenderArrays(frameA);
+        b.packRenderArrays(frameB);
+
+        assertTrue(a.getDotCount() > 0);
+        assertEquals(a.getDotCount(), b.getDotCount());
+        assertArrayEquals(frameA.motions, frameB.motions, 0.0f);
+        assertArrayEquals(frameA.sizes, frameB.sizes, 0.0f);
+        assertArrayEquals(frameA.colors, frameB.colors);
+    }
+
+    @Test
+    public void sendsEventsToListener() {
+
+        final int[] events = new int[5];
+        Simulation simulation = createSimulation(7l);
+        simulation.setListener(new ISimulationListener() {
+            @Override
+            public void onSimulationEvent(int event, int value) {
+                events[event]++;
+            }
+        });
+
+        for (int tick = 0; tick < TICKS; tick++) {
+            simulation.step();
+        }
+
+        // Point dots keep spawning, each one with a jump sound
+        assertTrue(events[Simulation.EVENT_SOUND_JUMP] > 0);
+    }
+
+    @Test
+    public void parallelRebaseGivesTheSameBits() {
+
+        Simulation serial = createCrowdedSimulation();
+        Simulation parallel = createCrowdedSimulation();
+
+        ChunkExecutor executor = new ChunkExecutor(4, "Test worker");
+        parallel.setExecutor(executor);
+
+        RenderFrame frameA = new RenderFrame(CROWDED_DOT_COUNT);
+        RenderFrame frameB = new RenderFrame(CROWDED_DOT_COUNT);
+
+        try {
+            for (int tick = 0; tick < CROWDED_TICKS; tick++) {
+
+                // Every dot is rebased when the world changes size
+                if (tick == CROWDED_TICKS / 3) {
+                    serial.getConfig().setSize(1920, 1080);
+                    parallel.getConfig().setSize(1920, 1080);
+                } else if (tick == CROWDED_TICKS * 2 / 3) {
+                    serial.getConfig().setSize(1080, 1920);
+                    parallel.getConfig().setSize(1080, 1920);
+                }
+
+                // Steer the player around, so it collides with dots
+                float x = (float) Math.sin(tick * 0.05) * 0.5f;
+                float y = (float) Math.cos(tick * 0.03) * 0.5f;
+                serial.step(x, y);
+                parallel.step(x, y);
+
+                serial.packRenderArrays(frameA);
+                parallel.packRenderArrays(frameB);
+                assertSameBits(frameA, frameB);
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        assertEquals(serial.getScore(), parallel.getScore());
+        assertEquals(serial.isGameOver(), parallel.isGameOver());
+    }
+
+    @Test
+    public void packingTheChangesGivesTheWholeFrame() {
+
+        Simulation simulation = createCrowdedSimulation();
+
+        // Packed in turn, like the buffers handed to the renderer
+        RenderFrame[] frames = {
+                new RenderFrame(CROWDED_DOT_COUNT),
+                new RenderFrame(CROWDED_DOT_COUNT),
+                new RenderFrame(CROWDED_DOT_COUNT)
+        };
+
+        for (int tick = 0; tick < CROWDED_TICKS; tick++) {
+
+            if (tick == CROWDED_TICKS / 2) {
+                simulation.getConfig().setSize(1920, 1080);
+            }
+
+            simulation.step((float) Math.sin(tick * 0.05) * 0.5f,
+                    (float) Math.cos(tick * 0.03) * 0.5f);
+
+            // Every dot packed in to a frame of its own
+            RenderFrame whole = new RenderFrame(CROWDED_DOT_COUNT);
+            simulation.packRenderArrays(whole);
+
+            RenderFrame frame = frames[tick % frames.length];
+            simulation.packRenderArrays(frame);
+            assertSameBits(whole, frame);
+        }
+
+        assertTrue(simulation.getScore() > 0);
+    }
+
+    private static Simulation createCrowdedSimulation() {
+        Simulation simulation = new Simulation(new WorldConfig(1080, 1920,
+                480.0f, CROWDED_DOT_COUNT), 11l);
+        simulation.reset(false, 11l);
+
+        while (simulation.getDotCount() < CROWDED_DOT_COUNT - 100) {
+            simulation.createRandomDot(20.0f, 1080, 1920);
+        }
+
+        return simulation;
+    }
+
+    private static void assertSameBits(RenderFrame a, RenderFrame b) {
+
+        assertEquals(a.count, b.count);
+        for (int i = 0; i < a.count * RenderFrame.SIZE_OF_MOTION; i++) {
+            assertEquals(Float.floatToIntBits(a.motions[i]),
+                    Float.floatToIntBits(b.motions[i]));
+        }
+        for (int i = 0; i < a.count; i++) {
+            assertEquals(Float.floatToIntBits(a.sizes[i]),
+                    Float.floatToIntBits(b.sizes[i]));
+            assertEquals(a.colors[i], b.colors[i]);
+        }
+    }
+
+    private static Simulation createSimulation(long seed) {
+        Simulation simulation = new Simulation(
+                new WorldConfig(1080, 1920, 480.0f), seed);
+        simulation.reset(true);
+
+        return simulation;
+    }
+}
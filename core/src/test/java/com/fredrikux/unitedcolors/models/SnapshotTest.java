@@ -0,0 +1,187 @@
+package com.fredrikux.unitedcolors.models;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Saves games half way through and checks that the restored games go on
+ * exactly like the saved ones.
+ */
+public class SnapshotTest {
+
+    private static final int TICKS_BEFORE = 1500;
+    private static final int TICKS_AFTER = 500;
+    private static final int SAVE_INTERVAL = 53;
+
+    @Test
+    public void restoredGameContinuesTheSame() throws IOException {
+
+        // Save at many points, to catch the point dot in every phase
+        for (int save = SAVE_INTERVAL; save <= TICKS_BEFORE;
+             save += SAVE_INTERVAL) {
+            saveAndContinue(save);
+        }
+    }
+
+    private static void saveAndContinue(int save) throws IOException {
+
+        Simulation saved = createSimulation(5l);
+        playTicks(saved, 0, save);
+
+        Snapshot snapshot = new Snapshot(saved);
+        ByteBuffer buffer = ByteBuffer.allocate(snapshot.getMaxSize());
+        int size = snapshot.write(saved, buffer);
+        buffer.flip();
+
+        // A simulation from another seed, every other time in the middle
+        // of another game
+        Simulation restored = createSimulation(99l);
+        playTicks(restored, 0, save % 2 == 0 ? 200 : 0);
+        snapshot.read(restored, buffer);
+
+        assertEquals(size, buffer.position());
+        assertEquals(saved.getTimeStep(), restored.getTimeStep());
+        assertEquals(saved.getScore(), restored.getScore());
+
+        RenderFrame frameA = new RenderFrame(saved.getConfig().getDotLimit());
+        RenderFrame frameB = new RenderFrame(saved.getConfig().getDotLimit());
+
+        for (int tick = save; tick < save + TICKS_AFTER; tick++) {
+            playTicks(saved, tick, tick + 1);
+            playTicks(restored, tick, tick + 1);
+
+            saved.packRenderArrays(frameA);
+            restored.packRenderArrays(frameB);
+            assertSameFrame(frameA, frameB);
+        }
+
+        assertEquals(saved.getScore(), restored.getScore());
+        assertEquals(saved.isGameOver(), restored.isGameOver());
+    }
+
+    @Test
+    public void damagedSnapshotIsRejected() {
+
+        Simulation simulation = createSimulation(5l);
+        playTicks(simulation, 0, TICKS_BEFORE);
+
+        Snapshot snapshot = new Snapshot(simulation);
+        ByteBuffer buffer = ByteBuffer.allocate(snapshot.getMaxSize());
+        int size = snapshot.write(simulation, buffer);
+
+        // Flip one bit of the state
+        int damaged = Snapshot.HEADER_SIZE + (size - Snapshot.HEADER_SIZE) / 2;
+        buffer.put(damaged, (byte) (buffer.get(damaged) ^ 0x10));
+        buffer.flip();
+
+        Simulation target = createSimulation(7l);
+        playTicks(target, 0, 10);
+        long timeStep = target.getTimeStep();
+
+        try {
+            snapshot.read(target, buffer);
+            fail("Damaged snapshot was restored");
+        } catch (IOException expected) {
+            assertTrue(expected.getMessage().contains("checksum"));
+        }
+
+        // Nothing was restored
+        assertEquals(timeStep, target.getTimeStep());
+    }
+
+    @Test
+    public void otherVersionIsRejected() {
+
+        Simulation simulation = createSimulation(5l);
+        Snapshot snapshot = new Snapshot(simulation);
+        ByteBuffer buffer = ByteBuffer.allocate(snapshot.getMaxSize());
+        snapshot.write(simulation, buffer);
+        buffer.putInt(4, Snapshot.VERSION + 1);
+        buffer.flip();
+
+        try {
+            snapshot.read(simulation, buffer);
+            fail("Snapshot of another version was restored");
+        } catch (IOException expected) {
+            assertTrue(expected.getMessage().contains("version"));
+        }
+    }
+
+    @Test
+    public void savesToMappedFile() throws IOException {
+
+        File file = File.createTempFile("world", ".snapshot");
+        assertTrue(file.delete());
+
+        try {
+            Simulation saved = createSimulation(5l);
+            SnapshotFile snapshotFile = new SnapshotFile(file, saved);
+            assertFalse(snapshotFile.restore(saved));
+
+            playTicks(saved, 0, TICKS_BEFORE);
+            int size = snapshotFile.save(saved);
+
+            // Only the dots in the world are written, not the whole limit
+            assertTrue(size >= saved.getDotCount() * DotWorld.BYTES_PER_DOT);
+            assertTrue(size < new Snapshot(saved).getMaxSize());
+
+            // A new file object, like after the process was restarted
+            Simulation restored = createSimulation(99l);
+            assertTrue(new SnapshotFile(file, restored).restore(restored));
+            assertEquals(saved.getDotCount(), restored.getDotCount());
+            assertEquals(saved.getTimeStep(), restored.getTimeStep());
+
+            // A cleared file has nothing to restore
+            snapshotFile.clear();
+            try {
+                new SnapshotFile(file, restored).restore(restored);
+                fail("Cleared snapshot was restored");
+            } catch (IOException expected) {
+                assertTrue(expected.getMessage().contains("snapshot"));
+            }
+        } finally {
+            file.delete();
+        }
+    }
+
+    private static Simulation createSimulation(long seed) {
+        Simulation simulation = new Simulation(
+                new WorldConfig(1080, 1920, 480.0f), seed);
+        simulation.reset(false, seed);
+
+        return simulation;
+    }
+
+    /**
+     * Plays the ticks with an orientation that only depends on the tick, so
+     * both games get the same input.
+     */
+    private static void playTicks(Simulation simulation, int from, int to) {
+        for (int tick = from; tick < to; tick++) {
+            simulation.step((float) Math.sin(tick * 0.02) * 0.3f,
+                    (float) Math.cos(tick * 0.013) * 0.3f);
+        }
+    }
+
+    private static void assertSameFrame(RenderFrame a, RenderFrame b) {
+
+        assertEquals(a.count, b.count);
+        for (int i = 0; i < a.count * RenderFrame.SIZE_OF_MOTION; i++) {
+            assertEquals(Float.floatToIntBits(a.motions[i]),
+                    Float.floatToIntBits(b.motions[i]));
+        }
+        for (int i = 0; i < a.count; i++) {
+            assertEquals(Float.floatToIntBits(a.sizes[i]),
+                    Float.floatToIntBits(b.sizes[i]));
+            assertEquals(a.colors[i], b.colors[i]);
+        }
+    }
+}
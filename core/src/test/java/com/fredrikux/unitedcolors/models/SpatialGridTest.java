@@ -0,0 +1,197 @@
+package com.fredrikux.unitedcolors.models;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks the spatial grid against a linear scan of the world, both for
+ * player collision queries and for all-pairs overlap, on its own and as
+ * kept by the simulation.
+ */
+public class SpatialGridTest {
+
+    private static final int WIDTH = 1080;
+    private static final int HEIGHT = 1920;
+    private static final float DOT_SIZE = 30.0f;
+    private static final float PLAYER_SIZE = 60.0f;
+    private static final int[] DOT_COUNTS = {200, 2000, 20000};
+    private static final int TICKS = 200;
+    private static final int CROWDED_DOT_COUNT = 5000;
+
+    @Test
+    public void radiusQueryMatchesLinearScan() {
+
+        for (int count : DOT_COUNTS) {
+
+            DotWorld world = createWorld(count, 1l);
+            SpatialGrid grid = createGrid(world);
+            int[] found = new int[count];
+            Random random = new Random(2l);
+
+            for (int tick = 0; tick < TICKS; tick++) {
+                float px = random.nextFloat() * WIDTH;
+                float py = random.nextFloat() * HEIGHT;
+
+                int n = grid.queryRadius(px, py, PLAYER_SIZE / 2.0f, found);
+                int[] expected = linearScan(world, tick, px, py, PLAYER_SIZE);
+
+                int[] actual = Arrays.copyOf(found, n);
+                Arrays.sort(actual);
+                assertArrayEquals(expected, actual);
+
+                moveAll(world, grid, tick + 1);
+            }
+        }
+    }
+
+    @Test
+    public void overlapPairsMatchBruteForce() {
+
+        for (int count : DOT_COUNTS) {
+
+            DotWorld world = createWorld(count, 3l);
+            SpatialGrid grid = createGrid(world);
+
+            assertEquals(bruteForcePairs(world, 0l), countPairs(grid));
+        }
+    }
+
+    @Test
+    public void simulationQueriesMatchBruteForce() {
+
+        Simulation simulation = new Simulation(new WorldConfig(WIDTH, HEIGHT,
+                480.0f, CROWDED_DOT_COUNT), 29l);
+        simulation.reset(false, 29l);
+
+        while (simulation.getDotCount() < CROWDED_DOT_COUNT - 100) {
+            simulation.createRandomDot(DOT_SIZE, WIDTH, HEIGHT);
+        }
+
+        DotWorld world = simulation.getWorld();
+        int[] found = new int[CROWDED_DOT_COUNT];
+        Random random = new Random(29l);
+
+        for (int tick = 0; tick < TICKS; tick++) {
+            simulation.step((float) Math.sin(tick * 0.05) * 0.5f,
+                    (float) Math.cos(tick * 0.03) * 0.5f);
+
+            // The dots are where the world has been advanced to
+            long step = simulation.getTimeStep();
+            float px = random.nextFloat() * WIDTH;
+            float py = random.nextFloat() * HEIGHT;
+
+            int n = simulation.findDots(px, py, PLAYER_SIZE / 2.0f, found);
+            int[] actual = Arrays.copyOf(found, n);
+            Arrays.sort(actual);
+            assertArrayEquals(linearScan(world, step, px, py, PLAYER_SIZE),
+                    actual);
+
+            if (tick % 50 == 0) {
+                final int[] pairs = new int[1];
+                simulation.forEachOverlap(new SpatialGrid.IOverlapListener() {
+                    @Override
+                    public void onOverlap(int a, int b) {
+                        pairs[0]++;
+                    }
+                });
+                assertEquals(bruteForcePairs(world, step), pairs[0]);
+                assertTrue(pairs[0] > 0);
+            }
+        }
+    }
+
+    private static DotWorld createWorld(int count, long seed) {
+        DotWorld world = new DotWorld(count);
+        Random random = new Random(seed);
+
+        for (int i = 0; i < count; i++) {
+            double angle = random.nextDouble() * 2.0 * Math.PI;
+            world.add(DotWorld.KIND_SMALL,
+                    random.nextFloat() * WIDTH, random.nextFloat() * HEIGHT,
+                    (float) Math.cos(angle), (float) Math.sin(angle), 3.0f,
+                    DOT_SIZE, 0, 0l);
+        }
+
+        return world;
+    }
+
+    private static SpatialGrid createGrid(DotWorld world) {
+        SpatialGrid grid = new SpatialGrid(world.capacity(), PLAYER_SIZE);
+        grid.resize(WIDTH, HEIGHT);
+
+        for (int i = 0; i < world.size(); i++) {
+            grid.insert(i, world.getX(i, 0l, WIDTH),
+                    world.getY(i, 0l, HEIGHT), world.size[i] / 2.0f);
+        }
+
+        return grid;
+    }
+
+    private static void moveAll(DotWorld world, SpatialGrid grid, long step) {
+        for (int i = 0; i < world.size(); i++) {
+            grid.update(i, world.getX(i, step, WIDTH),
+                    world.getY(i, step, HEIGHT), world.size[i] / 2.0f);
+        }
+    }
+
+    private static int countPairs(SpatialGrid grid) {
+        final int[] pairs = new int[1];
+        grid.forEachOverlap(new SpatialGrid.IOverlapListener() {
+            @Override
+            public void onOverlap(int a, int b) {
+                pairs[0]++;
+            }
+        });
+
+        return pairs[0];
+    }
+
+    /**
+     * Every pair of dots checked against each other.
+     */
+    private static int bruteForcePairs(DotWorld world, long step) {
+        int pairs = 0;
+        for (int a = 0; a < world.size(); a++) {
+            for (int b = a + 1; b < world.size(); b++) {
+                if (overlaps(world, a, step, world.getX(b, step, WIDTH),
+                        world.getY(b, step, HEIGHT), world.size[b])) {
+                    pairs++;
+                }
+            }
+        }
+
+        return pairs;
+    }
+
+    /**
+     * The collision check as done by Simulation.isPointOnDot, for every dot.
+     */
+    private static int[] linearScan(DotWorld world, long step, float x,
+                                    float y, float size) {
+        int[] hits = new int[world.size()];
+        int n = 0;
+
+        for (int i = 0; i < world.size(); i++) {
+            if (overlaps(world, i, step, x, y, size)) {
+                hits[n++] = i;
+            }
+        }
+
+        return Arrays.copyOf(hits, n);
+    }
+
+    private static boolean overlaps(DotWorld world, int i, long step, float x,
+                                    float y, float size) {
+        float dx = world.getX(i, step, WIDTH) - x;
+        float dy = world.getY(i, step, HEIGHT) - y;
+        float reach = (world.size[i] + size) / 2.0f;
+
+        return dx * dx + dy * dy <= reach * reach;
+    }
+}
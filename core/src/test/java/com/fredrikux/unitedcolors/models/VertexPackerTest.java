@@ -0,0 +1,120 @@
+package com.fredrikux.unitedcolors.models;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks the vertex format and measures how many bytes have to be uploaded
+ * per dot and frame.
+ */
+public class VertexPackerTest {
+
+    // Two positions, an rgb color and a size, all as floats
+    private static final int FLOAT_BYTES_PER_DOT = (2 + 2 + 3 + 1) * 4;
+
+    private static final int TICKS = 600;
+
+    @Test
+    public void packsColorAsRgbaBytes() {
+
+        RenderFrame frame = new RenderFrame(1);
+        frame.colors[0] = 0x80E91E63;
+        frame.sizes[0] = 12.5f;
+        frame.count = 1;
+
+        VertexPacker packer = new VertexPacker(1);
+        packer.pack(frame);
+
+        ByteBuffer attributes = packer.getAttributeBuffer();
+        int color = attributes.position() + VertexPacker.OFFSET_COLOR;
+        assertEquals(0xE9, attributes.get(color) & 0xFF);
+        assertEquals(0x1E, attributes.get(color + 1) & 0xFF);
+        assertEquals(0x63, attributes.get(color + 2) & 0xFF);
+        assertEquals(0x80, attributes.get(color + 3) & 0xFF);
+
+        float size = (attributes.getShort(
+                attributes.position() + VertexPacker.OFFSET_SIZE)
+                & 0xFFFF) / VertexPacker.SIZE_SCALE;
+        assertEquals(12.5f, size, 0.0f);
+    }
+
+    @Test
+    public void onlyChangedDotsAreDirty() {
+
+        RenderFrame frame = new RenderFrame(10);
+        frame.count = 10;
+        for (int i = 0; i < frame.count; i++) {
+            frame.motions[i * RenderFrame.SIZE_OF_MOTION] = i + 1;
+            frame.colors[i] = Simulation.colorAlt[0];
+            frame.sizes[i] = 20.0f;
+        }
+
+        VertexPacker packer = new VertexPacker(10);
+        packer.pack(frame);
+        assertEquals(10, packer.getDirtyMotionCount());
+        assertEquals(10, packer.getDirtyAttributeCount());
+
+        // The same frame again, nothing to upload
+        packer.pack(frame);
+        assertEquals(0, packer.getDirtyMotionCount());
+        assertEquals(0, packer.getDirtyAttributeCount());
+
+        // One dot changes color, two dots change their motion
+        frame.colors[4] = Simulation.colorAlt[1];
+        frame.motions[3 * RenderFrame.SIZE_OF_MOTION
+                + RenderFrame.MOTION_VELOCITY_Y] = 1.0f;
+        frame.motions[6 * RenderFrame.SIZE_OF_MOTION
+                + RenderFrame.MOTION_STEP] = 1.0f;
+        packer.pack(frame);
+
+        assertEquals(4, packer.getFirstDirtyAttribute());
+        assertEquals(1, packer.getDirtyAttributeCount());
+        assertEquals(3, packer.getFirstDirtyMotion());
+        assertEquals(4, packer.getDirtyMotionCount());
+        assertEquals(3 * VertexPacker.MOTION_STRIDE,
+                packer.getMotionBuffer().position());
+    }
+
+    @Test
+    public void uploadsFewerBytesPerDotThanFloats() {
+
+        Simulation simulation = new Simulation(
+                new WorldConfig(1080, 1920, 480.0f), 3l);
+        simulation.reset(true);
+
+        RenderFrame frame = new RenderFrame(GameRules.DOT_LIMIT);
+        VertexPacker packer = new VertexPacker(GameRules.DOT_LIMIT);
+
+        long uploaded = 0l;
+        long drawn = 0l;
+        for (int tick = 0; tick < TICKS; tick++) {
+            simulation.step();
+            simulation.packRenderArrays(frame);
+
+            // A display twice as fast as the game loop draws frames twice
+            for (int refresh = 0; refresh < 2; refresh++) {
+                packer.pack(frame);
+                uploaded += uploadedBytes(packer);
+                drawn += frame.count;
+            }
+        }
+
+        // The plain dots move on the GPU, so only the few dots that spawn,
+        // get rebased or are moved by the game are uploaded again
+        float perDot = (float) uploaded / drawn;
+        assertTrue(drawn > 0);
+        assertTrue("bytes per dot and frame: " + perDot,
+                perDot < FLOAT_BYTES_PER_DOT / 16);
+    }
+
+    private static long uploadedBytes(VertexPacker packer) {
+        return (long) packer.getDirtyMotionCount()
+                * VertexPacker.MOTION_STRIDE
+                + (long) packer.getDirtyAttributeCount()
+                * VertexPacker.ATTRIBUTE_STRIDE;
+    }
+}
@@ -0,0 +1,81 @@
+package com.fredrikux.unitedcolors.utils;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+/**
+ * Checks that events are coalesced per code and that a drain is asked for
+ * once per batch.
+ */
+public class EventBusTest {
+
+    private static final int SCORE = 1;
+    private static final int STATE = 3;
+
+    private int mDrainRequests = 0;
+    private final int[] mDelivered = new int[EventBus.MAX_CODES];
+    private final int[] mValues = new int[EventBus.MAX_CODES];
+
+    private EventBus createBus() {
+        EventBus bus = new EventBus(STATE + 1);
+
+        bus.setListener(new EventBus.IListener() {
+            @Override
+            public void onEvent(int code, int value) {
+                mDelivered[code]++;
+                mValues[code] = value;
+            }
+        });
+        bus.setScheduler(new EventBus.IDrainScheduler() {
+            @Override
+            public void requestDrain() {
+                mDrainRequests++;
+            }
+        });
+
+        return bus;
+    }
+
+    @Test
+    public void onlyTheLatestValueIsDelivered() {
+
+        EventBus bus = createBus();
+        for (int score = 1; score <= 60; score++) {
+            bus.post(SCORE, score);
+        }
+        bus.post(STATE, 12);
+
+        assertEquals(1, mDrainRequests);
+        assertEquals(2, bus.drain());
+        assertEquals(1, mDelivered[SCORE]);
+        assertEquals(60, mValues[SCORE]);
+        assertEquals(1, mDelivered[STATE]);
+        assertEquals(12, mValues[STATE]);
+        assertFalse(bus.isPending());
+
+        // Nothing new, nothing delivered
+        assertEquals(0, bus.drain());
+    }
+
+    @Test
+    public void eachBatchAsksForOneDrain() {
+
+        EventBus bus = createBus();
+        for (int frame = 0; frame < 10; frame++) {
+            bus.post(SCORE, frame);
+            bus.post(SCORE, frame + 1);
+            bus.drain();
+        }
+
+        assertEquals(10, mDrainRequests);
+        assertEquals(10, mDelivered[SCORE]);
+        assertEquals(10, mValues[SCORE]);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void tooManyCodesAreRejected() {
+        new EventBus(EventBus.MAX_CODES + 1);
+    }
+}
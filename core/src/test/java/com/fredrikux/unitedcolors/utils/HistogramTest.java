@@ -0,0 +1,83 @@
+package com.fredrikux.unitedcolors.utils;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks the percentiles of the histogram against the exact percentiles of
+ * the same values.
+ */
+public class HistogramTest {
+
+    private static final int SUB_BITS = 5;
+    private static final double PRECISION = 1.0 / (1 << SUB_BITS);
+
+    @Test
+    public void smallValuesAreExact() {
+
+        Histogram histogram = new Histogram(1000l, SUB_BITS);
+        for (long value = 0; value < 20; value++) {
+            histogram.record(value);
+        }
+
+        assertEquals(20l, histogram.getCount());
+        assertEquals(0l, histogram.getMin());
+        assertEquals(19l, histogram.getMax());
+        assertEquals(9l, histogram.getValueAtPercentile(50.0));
+        assertEquals(19l, histogram.getValueAtPercentile(100.0));
+        assertEquals(9.5, histogram.getMean(), 0.0);
+        assertEquals(5l, histogram.getCountAtOrAbove(15l));
+    }
+
+    @Test
+    public void percentilesAreWithinPrecision() {
+
+        Random random = new Random(7l);
+        Histogram histogram = new Histogram(1000000000l, SUB_BITS);
+        long[] values = new long[10000];
+
+        // Frame times around a few milliseconds with a long tail
+        for (int i = 0; i < values.length; i++) {
+            values[i] = (long) (2000000 * Math.exp(random.nextGaussian()));
+            histogram.record(values[i]);
+        }
+
+        Arrays.sort(values);
+
+        double[] percentiles = {1.0, 50.0, 90.0, 99.0, 99.9};
+        for (double percentile : percentiles) {
+            long exact = values[(int) Math.ceil(
+                    percentile / 100.0 * values.length) - 1];
+            long value = histogram.getValueAtPercentile(percentile);
+
+            assertTrue("p" + percentile + " " + value + " vs " + exact,
+                    Math.abs(value - exact) <= exact * PRECISION);
+        }
+
+        assertEquals(values[values.length - 1], histogram.getMax());
+    }
+
+    @Test
+    public void valuesAboveTheRangeKeepTheMax() {
+
+        Histogram histogram = new Histogram(100l, SUB_BITS);
+        histogram.record(50l);
+        histogram.record(5000l);
+        histogram.record(-3l);
+
+        assertEquals(3l, histogram.getCount());
+        assertEquals(0l, histogram.getMin());
+        assertEquals(5000l, histogram.getMax());
+        assertEquals(5000l, histogram.getValueAtPercentile(100.0));
+        assertEquals(1l, histogram.getCountAtOrAbove(1000l));
+
+        histogram.reset();
+        assertEquals(0l, histogram.getCount());
+        assertEquals(0l, histogram.getValueAtPercentile(99.0));
+    }
+}
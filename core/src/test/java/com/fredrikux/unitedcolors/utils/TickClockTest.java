@@ -0,0 +1,103 @@
+package com.fredrikux.unitedcolors.utils;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Runs a game loop on a fake clock, parking as long as the tick clock
+ * says, and checks that every policy ticks at its own rate while the game
+ * moves just as fast.
+ */
+public class TickClockTest {
+
+    private static final long STEP_PERIOD = 1000000000l / 30;
+    private static final int MAX_TICKS = 5;
+    private static final long SECONDS = 10l;
+
+    // Parking wakes up a bit late, never early
+    private static final long OVERSLEEP = 300000l;
+
+    @Test
+    public void ticksAtTheRateOfThePolicy() {
+
+        LoopPolicy running = new LoopPolicy("running", STEP_PERIOD,
+                LoopPolicy.EVERY_FRAME);
+        LoopPolicy kiosk = new LoopPolicy("kiosk", 3 * STEP_PERIOD,
+                STEP_PERIOD);
+        int[] runningCounts = run(running);
+        int[] kioskCounts = run(kiosk);
+
+        // A third of the ticks and wake-ups in kiosk mode, one per tick
+        long steps = SECONDS * 30;
+        assertEquals(steps, runningCounts[0], 1.0);
+        assertEquals(steps / 3, kioskCounts[0], 1.0);
+        assertEquals(runningCounts[0], runningCounts[1], 1.0);
+        assertEquals(kioskCounts[0], kioskCounts[1], 1.0);
+
+        // The game moves just as fast, only the ticks are longer
+        assertEquals(1, running.getStepsPerTick(STEP_PERIOD));
+        assertEquals(3, kiosk.getStepsPerTick(STEP_PERIOD));
+        assertEquals(steps, kioskCounts[0]
+                * kiosk.getStepsPerTick(STEP_PERIOD), 3.0);
+    }
+
+    @Test
+    public void parksUntilWokenUp() {
+
+        TickClock clock = new TickClock(MAX_TICKS);
+        clock.start(0l);
+        assertEquals(TickClock.FOREVER, clock.getParkTime(0l));
+        assertEquals(0, clock.pollTicks(1000000000l));
+
+        clock.setPolicy(new LoopPolicy("running", STEP_PERIOD,
+                LoopPolicy.EVERY_FRAME));
+        clock.start(0l);
+        assertEquals(STEP_PERIOD, clock.getParkTime(0l));
+        assertTrue(clock.getParkTime(STEP_PERIOD) <= 0l);
+    }
+
+    @Test
+    public void dropsTheTimeItCantCatchUpOn() {
+
+        TickClock clock = new TickClock(MAX_TICKS);
+        LoopPolicy policy = new LoopPolicy("running", STEP_PERIOD,
+                LoopPolicy.EVERY_FRAME);
+        clock.setPolicy(policy);
+        clock.start(0l);
+
+        // A second behind, only a few ticks are run and the rest is skipped
+        long now = 1000000000l;
+        assertEquals(MAX_TICKS, clock.pollTicks(now));
+        assertEquals(now - STEP_PERIOD, clock.getTickTime());
+        assertEquals(1, clock.pollTicks(now));
+        assertEquals(0, clock.pollTicks(now));
+        assertEquals(policy, clock.getTickPolicy());
+    }
+
+    /**
+     * Runs a loop following provided policy.
+     *
+     * @return the ticks run and the times woken up.
+     */
+    private static int[] run(LoopPolicy policy) {
+
+        TickClock clock = new TickClock(MAX_TICKS);
+        clock.setPolicy(policy);
+        clock.start(0l);
+
+        long now = 0l;
+        int ticks = 0;
+        int wakeUps = 0;
+        while (now < SECONDS * 1000000000l) {
+            ticks += clock.pollTicks(now);
+
+            long wait = clock.getParkTime(now);
+            now += Math.max(wait, 0l) + OVERSLEEP;
+            wakeUps++;
+        }
+
+        return new int[]{ticks, wakeUps};
+    }
+}
@@ -0,0 +1,135 @@
+package com.fredrikux.unitedcolors.utils;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks the values and the completion queue of the timeline.
+ */
+public class TimelineTest {
+
+    @Test
+    public void linearTweensCompleteInOrder() {
+
+        Timeline timeline = new Timeline(4);
+        int a = timeline.start(7, 0, 10l, 10l, 0.0f, 100.0f,
+                Timeline.EASE_LINEAR);
+        int b = timeline.start(8, 1, 10l, 5l, 50.0f, 0.0f,
+                Timeline.EASE_LINEAR);
+
+        timeline.update(10l);
+        assertEquals(0.0f, timeline.getValue(a), 0.0f);
+        assertEquals(50.0f, timeline.getValue(b), 0.0f);
+
+        timeline.update(14l);
+        assertEquals(40.0f, timeline.getValue(a), 1e-4f);
+        assertEquals(10.0f, timeline.getValue(b), 1e-4f);
+        assertEquals(Timeline.NONE, timeline.pollCompleted());
+
+        // The shorter one ends first, at exactly its to value
+        timeline.update(15l);
+        assertFalse(timeline.isRunning(b));
+        assertEquals(b, timeline.pollCompleted());
+        assertEquals(8, timeline.getTarget(b));
+        assertEquals(1, timeline.getProperty(b));
+        assertEquals(0.0f, timeline.getValue(b), 0.0f);
+        assertEquals(Timeline.NONE, timeline.pollCompleted());
+
+        timeline.update(25l);
+        assertEquals(a, timeline.pollCompleted());
+        assertEquals(100.0f, timeline.getValue(a), 0.0f);
+        assertEquals(0, timeline.getRunningCount());
+    }
+
+    @Test
+    public void pulseFollowsTheSine() {
+
+        Timeline timeline = new Timeline(1);
+        int pulse = timeline.start(0, 0, 3l, 24l, 60.0f, 51.0f,
+                Timeline.EASE_PULSE);
+
+        for (long timeStep = 3l; timeStep < 3l + 24l * 50l; timeStep++) {
+            timeline.update(timeStep);
+
+            double x = 2.0 * Math.PI * (timeStep - 3l) / 24.0;
+            double expected = 60.0 - 9.0 * (Math.sin(x) + 1.0) / 2.0;
+            assertEquals(expected, timeline.getValue(pulse), 1e-3);
+        }
+
+        // A pulse never completes
+        assertTrue(timeline.isRunning(pulse));
+        assertEquals(Timeline.NONE, timeline.pollCompleted());
+    }
+
+    @Test
+    public void cancelledTweensAreNotCompleted() {
+
+        Timeline timeline = new Timeline(3);
+        int a = timeline.start(0, 0, 0l, 2l, 0.0f, 1.0f,
+                Timeline.EASE_LINEAR);
+        int b = timeline.start(1, 0, 0l, 2l, 0.0f, 1.0f,
+                Timeline.EASE_LINEAR);
+        int c = timeline.start(2, 0, 0l, 2l, 0.0f, 1.0f,
+                Timeline.EASE_LINEAR);
+
+        // Full, until one is cancelled
+        assertEquals(Timeline.NONE, timeline.start(3, 0, 0l, 2l, 0.0f, 1.0f,
+                Timeline.EASE_LINEAR));
+        timeline.cancel(a);
+        assertFalse(timeline.isRunning(a));
+
+        // Cancelled after completing, but before being polled
+        timeline.update(2l);
+        timeline.cancel(b);
+        assertEquals(c, timeline.pollCompleted());
+        assertEquals(Timeline.NONE, timeline.pollCompleted());
+
+        // Every row is free again
+        for (int i = 0; i < 3; i++) {
+            assertTrue(timeline.start(i, 0, 0l, 2l, 0.0f, 1.0f,
+                    Timeline.EASE_LINEAR) != Timeline.NONE);
+        }
+    }
+
+    @Test
+    public void restoredTimelineRunsTheSame() {
+
+        Timeline saved = new Timeline(4);
+        saved.start(0, 0, 0l, 30l, 0.0f, 10.0f, Timeline.EASE_LINEAR);
+        saved.start(1, 0, 0l, 24l, 5.0f, 8.0f, Timeline.EASE_PULSE);
+        int done = saved.start(2, 0, 0l, 5l, 1.0f, 2.0f,
+                Timeline.EASE_LINEAR);
+        saved.update(7l);
+
+        ByteBuffer buffer = ByteBuffer.allocate(saved.getStateSize());
+        saved.writeState(buffer);
+        assertEquals(saved.getStateSize(), buffer.position());
+        buffer.flip();
+
+        Timeline restored = new Timeline(4);
+        restored.start(3, 3, 0l, 1l, 0.0f, 0.0f, Timeline.EASE_LINEAR);
+        restored.readState(buffer);
+
+        // The pending completion and the next free row come back as well
+        assertEquals(done, restored.pollCompleted());
+        assertEquals(done, saved.pollCompleted());
+        assertEquals(saved.start(4, 0, 8l, 3l, 0.0f, 1.0f,
+                Timeline.EASE_LINEAR), restored.start(4, 0, 8l, 3l, 0.0f,
+                1.0f, Timeline.EASE_LINEAR));
+
+        for (long timeStep = 8l; timeStep < 40l; timeStep++) {
+            saved.update(timeStep);
+            restored.update(timeStep);
+            for (int tween = 0; tween < 4; tween++) {
+                assertEquals(Float.floatToIntBits(saved.getValue(tween)),
+                        Float.floatToIntBits(restored.getValue(tween)));
+            }
+            assertEquals(saved.pollCompleted(), restored.pollCompleted());
+        }
+    }
+}